@@ -520,6 +520,7 @@ public class CandidateKey extends View {
 			}
 			else if (mSoftKeyboard != null) {
 					keyPressed();
+					CharacterPrior.getCharacterPrior(getContext(), Skiggle.sLanguage).recordCommit(mChar);
 					invalidate();
 			}
 //			invalidate();
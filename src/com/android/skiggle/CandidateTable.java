@@ -0,0 +1,193 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * CandidateTable holds the mask of candidate characters for every multiset of primitives of one to
+ * four segments, so that finding the candidates of a character is a single read of the table.
+ *
+ * The candidates only depend on how many of each primitive a character has, not on the order they
+ * were written, so the table is indexed by the number of segments and the rank of the sorted
+ * primitive indices among all the multisets of that size.  With 13 primitives there are
+ * 13 + 91 + 455 + 1820 such multisets.  Characters of more segments are filtered by their primitive
+ * counts on each lookup.
+ *
+ * The masks are stored one after another in the language pack, ordered by number of segments and
+ * then rank, and are read from it as they are looked up.  They are sparse in packs of large alphabets,
+ * so a table of a script of thousands of characters takes space for the candidates only.
+ */
+public class CandidateTable {
+
+	public static final int MAX_NUM_OF_SEGMENTS = 4;
+
+	// sBinomial[n][r] is n choose r
+	private static int sBinomial[][];
+
+	private LanguageTables mLanguageTables;
+	private int mFirstMaskNumbers[]; // Number in the pack of the first mask of each number of segments
+	private SegmentMask mNoCandidates; // For no segments or segments that are not primitives
+
+	/**
+	 * Reads the table from the masks of a language pack
+	 * @param tables - tables of the language
+	 * @param firstMaskNumber - number of the first mask of the table in the pack
+	 */
+	public CandidateTable(LanguageTables tables, int firstMaskNumber) {
+		initializeBinomials();
+		mLanguageTables = tables;
+		mNoCandidates = new SegmentMask(tables.getNumOfCharacters());
+		mFirstMaskNumbers = new int[MAX_NUM_OF_SEGMENTS + 1];
+		mFirstMaskNumbers[1] = firstMaskNumber;
+		for (int numOfSegments = 2; numOfSegments <= MAX_NUM_OF_SEGMENTS; numOfSegments++) {
+			mFirstMaskNumbers[numOfSegments] = mFirstMaskNumbers[numOfSegments - 1] + getNumOfMultisets(numOfSegments - 1);
+		}
+	} // End of CandidateTable() constructor
+
+	// Number of masks of the table
+	public static int getNumOfMasks() {
+		initializeBinomials();
+		int numOfMasks = 0;
+		for (int numOfSegments = 1; numOfSegments <= MAX_NUM_OF_SEGMENTS; numOfSegments++) {
+			numOfMasks = numOfMasks + getNumOfMultisets(numOfSegments);
+		}
+		return numOfMasks;
+	}
+
+	/**
+	 * Builds the table from the primitive count masks of a language and writes it into the masks of its
+	 * language pack, where the table is read from.  Used by LanguagePackCompiler only.
+	 * @param tables - tables of the language, read from the pack of dense masks being compiled
+	 */
+	static void write(LanguageTables tables) {
+		CandidateTable table = tables.getCandidateTable();
+		int numOfCharacters = tables.getNumOfCharacters();
+		char primitives[] = new char[MAX_NUM_OF_SEGMENTS];
+		int counts[] = new int[PenSegment.NUM_OF_PRIMITIVES];
+		SegmentMask candidates = new SegmentMask(numOfCharacters);
+		SegmentMask variantCandidates = new SegmentMask(numOfCharacters);
+
+		int multiset[] = new int[MAX_NUM_OF_SEGMENTS];
+		for (int numOfSegments = 1; numOfSegments <= MAX_NUM_OF_SEGMENTS; numOfSegments++) {
+
+			// Go through the multisets as non-decreasing sequences of primitive indices, starting with all 0's
+			for (int i = 0; i < numOfSegments; i++) {
+				multiset[i] = 0;
+			}
+			boolean done = false;
+			while (!done) {
+				for (int i = 0; i < numOfSegments; i++) {
+					primitives[i] = PenSegment.PRIMITIVE_CHARS.charAt(multiset[i]);
+				}
+				LanguageTables.getPrimitiveCounts(primitives, numOfSegments, counts);
+				tables.filterCandidates(counts, candidates, variantCandidates);
+				tables.writeMask(table.getMaskNumber(numOfSegments, getRank(multiset, numOfSegments)), candidates);
+
+				// Next multiset: bump the last index that can still go up and reset the ones after it to match
+				int i = numOfSegments - 1;
+				while ((i >= 0) && (multiset[i] == PenSegment.NUM_OF_PRIMITIVES - 1)) {
+					i--;
+				}
+				if (i < 0) {
+					done = true;
+				}
+				else {
+					multiset[i]++;
+					for (int j = i + 1; j < numOfSegments; j++) {
+						multiset[j] = multiset[i];
+					}
+				}
+			}
+		}
+	} // End of write() method
+
+	// Number in the pack of the mask of a multiset
+	private int getMaskNumber(int numOfSegments, int rank) {
+		return mFirstMaskNumbers[numOfSegments] + rank;
+	}
+
+	private static synchronized void initializeBinomials() {
+		if (sBinomial != null) return;
+
+		int maxN = PenSegment.NUM_OF_PRIMITIVES + MAX_NUM_OF_SEGMENTS;
+		sBinomial = new int[maxN + 1][MAX_NUM_OF_SEGMENTS + 1];
+		for (int n = 0; n <= maxN; n++) {
+			sBinomial[n][0] = 1;
+			for (int r = 1; r <= Math.min(n, MAX_NUM_OF_SEGMENTS); r++) {
+				sBinomial[n][r] = sBinomial[n - 1][r - 1] + ((r < n) ? sBinomial[n - 1][r] : 0);
+			}
+		}
+	} // End of initializeBinomials() method
+
+	// Number of multisets of numOfSegments primitives
+	private static int getNumOfMultisets(int numOfSegments) {
+		return sBinomial[PenSegment.NUM_OF_PRIMITIVES + numOfSegments - 1][numOfSegments];
+	}
+
+	// Rank of a sorted multiset among all multisets of the same size.  Adding i to the i-th index turns the
+	// multiset into a set, whose rank in the combinatorial number system is the sum of (index + i) choose (i + 1).
+	private static int getRank(int sortedMultiset[], int numOfSegments) {
+		int rank = 0;
+		for (int i = 0; i < numOfSegments; i++) {
+			rank = rank + sBinomial[sortedMultiset[i] + i][i + 1];
+		}
+		return rank;
+	}
+
+	/**
+	 * Gets the candidate characters for the segments of a character.  Nothing is allocated; the mask
+	 * returned is the context's (or a shared empty one) so it must not be changed, and it is only good
+	 * until the context's next lookup.
+	 * @param primitives - primitive character of each segment
+	 * @param numOfSegments - number of segments
+	 * @param context - recognition context whose scratch space is used by the lookup
+	 * @return mask of the candidates, whose set bits index the language's character string
+	 */
+	public SegmentMask getCandidates(char primitives[], int numOfSegments, RecognitionContext context) {
+		if (numOfSegments < 1) {
+			return mNoCandidates;
+		}
+		if (numOfSegments > MAX_NUM_OF_SEGMENTS) {
+			if (!LanguageTables.getPrimitiveCounts(primitives, numOfSegments, context.mPrimitiveCounts)) {
+				return mNoCandidates;
+			}
+			mLanguageTables.filterCandidates(context.mPrimitiveCounts, context.mManySegmentCandidates,
+					context.mVariantCandidates);
+			return context.mManySegmentCandidates;
+		}
+
+		// Insertion sort the primitive indices; there are at most four of them
+		int multiset[] = context.mMultiset;
+		for (int i = 0; i < numOfSegments; i++) {
+			int index = PenSegment.getPrimitiveIndex(primitives[i]);
+			if (index < 0) {
+				return mNoCandidates; // Not a primitive so no character has it
+			}
+			int j = i;
+			while ((j > 0) && (multiset[j - 1] > index)) {
+				multiset[j] = multiset[j - 1];
+				j--;
+			}
+			multiset[j] = index;
+		}
+		mLanguageTables.copyMask(getMaskNumber(numOfSegments, getRank(multiset, numOfSegments)), context.mCandidates);
+		return context.mCandidates;
+	} // End of getCandidates() method
+
+}
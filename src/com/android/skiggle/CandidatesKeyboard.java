@@ -32,7 +32,7 @@ import android.view.View;
 
 public class CandidatesKeyboard extends View {
 	private ShapeDrawable mDrawable;
-	private String mCandidateCharacters;
+	private char mCandidateCharacters[] = new char[0];
 	private CandidateKey[] mKeys;
 	private int mX = Skiggle.sVirtualKeyboardLeft;
 	private int mY = Skiggle.sVirutalKeyhoardTop;
@@ -54,17 +54,31 @@ public class CandidatesKeyboard extends View {
 	 * @param str - other possible matching characters highlighted in gray
 	 */
 	public void setAttributes(Context context, Character c, String str, SkiggleSoftKeyboard softKeyBoard, boolean isAppInstance) {
+		setAttributes(context, c, str.toCharArray(), str.length(), softKeyBoard, isAppInstance);
+	} // End of setAttributes() method
+
+	/**
+	 * Sets the rectangular area and the keys for the keyboard
+	 * @param context
+	 * @param c - character to highlight in green (matched character)
+	 * @param candidates - buffer with the matched character, if any, followed by the other possible matching characters
+	 * @param numOfCandidates - number of characters in the buffer to use; the buffer is copied so it can be reused
+	 */
+	public void setAttributes(Context context, Character c, char candidates[], int numOfCandidates, SkiggleSoftKeyboard softKeyBoard, boolean isAppInstance) {
 		
 		int keyColor = Skiggle.GRAY_80; // Gray80 (default key color)
-		mCandidateCharacters = str;
+		if (mCandidateCharacters.length < numOfCandidates) {
+			mCandidateCharacters = new char[numOfCandidates];
+		}
+		System.arraycopy(candidates, 0, mCandidateCharacters, 0, numOfCandidates);
 		
-		int width = str.length() * (mKeyWidth + mKeySpacing);
+		int width = numOfCandidates * (mKeyWidth + mKeySpacing);
 
 		mDrawable = new ShapeDrawable(new RectShape());
 		mDrawable.getPaint().setColor(Skiggle.sDefaultCanvasColor); // Same background as the writing area
 		mDrawable.setBounds(mX, mY, mX + width, mY + mKeyHeight);
 		
-		mKeys = new CandidateKey[str.length()];
+		mKeys = new CandidateKey[numOfCandidates];
 		
 		int iBase = 0;
 		if (c != null) {
@@ -73,8 +87,8 @@ public class CandidatesKeyboard extends View {
 			iBase = iBase + 1;
 		}
 		
-		if (str.length() > 0) {
-			for (int i = iBase; i < str.length(); i++ ) {
+		if (numOfCandidates > 0) {
+			for (int i = iBase; i < numOfCandidates; i++ ) {
 				int left = mX + (mKeyWidth + mKeySpacing) * i;
 				int top = mY;
 				int right = left + mKeyWidth;
@@ -87,7 +101,7 @@ public class CandidatesKeyboard extends View {
 					keyColor = Skiggle.GRAY_80; // Gray, default color;
 				}
 
-				mKeys[i] = new CandidateKey(context, left, top, right, bottom, str.charAt(i), keyColor, softKeyBoard, isAppInstance);
+				mKeys[i] = new CandidateKey(context, left, top, right, bottom, mCandidateCharacters[i], keyColor, softKeyBoard, isAppInstance);
 
 			}
 		}
@@ -124,7 +138,9 @@ public class CandidatesKeyboard extends View {
 		return true; //true;
 	}
 	
+	// Clears the area of the keys to the background color, e.g. before other candidates are drawn over them
 	protected void clear(Canvas canvas) {
+		mDrawable.draw(canvas);
 		if (mKeys != null) {
 			for (int i = 0; i < mKeys.length; i++ ) {
 				mKeys[i].clear(canvas);
@@ -0,0 +1,51 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * CharacterEngine matches what is written to the characters of a language one candidate at a time, e.g., the
+ * hand-written checks of PenCharacterEn or the templates of a PointCloudEngine.  PenCharacter tries the
+ * engines of the language (see PenCharacter.getEngines()) that have a matcher for a candidate and keeps the best
+ * score.  Engines may be run on several threads at once, so they must not keep state between calls except per thread.
+ */
+public interface CharacterEngine {
+
+	// Highest score of a character that does not match, so that only a match scores 1
+	public static final float MAX_FAILED_SCORE = 0.99F;
+
+	// Whether the engine has a matcher for a character; CharacterPrefilter drops the characters no engine has one for
+	public boolean hasMatcher(char c);
+
+	// Whether the engine matches the shape of the strokes as a whole, whatever the primitives of their segments, so
+	// that its characters are candidates of any segments (see RecognitionContext.getShapeCandidates())
+	public boolean matchesByShape();
+
+	/**
+	 * Scores how well the character written matches a character
+	 * @param c - character to match
+	 * @param pChar - character written; the engine only sets its matchedChar
+	 * @return from 0 to 1; 1 is a match, after which pChar.matchedChar is the character matched (e.g., 'k' for 'K')
+	 */
+	public float score(char c, PenCharacter pChar);
+
+	// Gets a bound on score(c, pChar), found more cheaply than the score itself
+	public float getUpperBound(char c, PenCharacter pChar);
+
+}
@@ -0,0 +1,263 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * CharacterFeatures holds the geometry of the segments of a character that the matchers read: the ends of
+ * each segment ordered top/bottom and left/right, their mid-points and one-third and two-third marks, and for
+ * each pair of segments the gaps between their tops and bottoms, which is above or left of the other and where
+ * the lines through their ends cross.  Each is computed once (by SegmentGeometry), when the segment is added
+ * (see PenCharacter.getFeatures()), instead of by every matcher that reads it.
+ *
+ * The arrays returned are the features' own and must not be changed.  They are only good until the character's
+ * segments are reset.
+ */
+public class CharacterFeatures {
+
+	private static final int INITIAL_CAPACITY = 8; // Segments
+
+	private SegmentStore mStore = null; // Store the features are computed from
+	private int mNumOfClears = 0; // Times mStore had been cleared when they were
+	private int mNumOfSegments = 0; // Segments whose features are computed
+	private int mCapacity = 0;
+
+	// Features of each segment, as {x1, y1, x2, y2}
+	private float mTopBottomCoords[][]; // Top end, then bottom end
+	private float mLeftRightCoords[][]; // Left end, then right end
+	private float mTopBottomThirds[][]; // Points at one third and two thirds of the way from the top end to the bottom end
+	private float mLeftRightThirds[][]; // Points at one third and two thirds of the way from the left end to the right end
+	private float mMidX[]; // x-coord of the mid-point of the ends
+	private float mMidY[]; // y-coord of the mid-point of the ends
+
+	// Features of each pair of segments, indexed by the segments in the order the matcher gives them
+	private float mTopBottomGaps[][][]; // Gap between the top ends and gap between the bottom ends
+	private int mTopBottomOrder[][][]; // The two segments, top one first
+	private int mLeftRightOrder[][][]; // The two segments, left one first
+	private float mIntersections[][][]; // Point where the lines through the ends of the segments cross
+	private boolean mIntersects[][]; // The point is on both segments (between their ends)
+
+	public CharacterFeatures() {
+		grow(INITIAL_CAPACITY);
+	} // End of CharacterFeatures() constructor
+
+	/**
+	 * Copy of the features computed so far, for a copy of the store they were computed from, so that only the
+	 * segments added to the copy are computed for it
+	 * @param features - features to copy
+	 * @param store - copy of the store of features, with at least the segments it has features of
+	 */
+	public CharacterFeatures(CharacterFeatures features, SegmentStore store) {
+		grow(Math.max(INITIAL_CAPACITY, features.mNumOfSegments));
+		int n = features.mNumOfSegments;
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(features.mTopBottomCoords[i], 0, mTopBottomCoords[i], 0, 4);
+			System.arraycopy(features.mLeftRightCoords[i], 0, mLeftRightCoords[i], 0, 4);
+			System.arraycopy(features.mTopBottomThirds[i], 0, mTopBottomThirds[i], 0, 4);
+			System.arraycopy(features.mLeftRightThirds[i], 0, mLeftRightThirds[i], 0, 4);
+			for (int j = 0; j < n; j++) {
+				System.arraycopy(features.mTopBottomGaps[i][j], 0, mTopBottomGaps[i][j], 0, 2);
+				System.arraycopy(features.mTopBottomOrder[i][j], 0, mTopBottomOrder[i][j], 0, 2);
+				System.arraycopy(features.mLeftRightOrder[i][j], 0, mLeftRightOrder[i][j], 0, 2);
+				System.arraycopy(features.mIntersections[i][j], 0, mIntersections[i][j], 0, 2);
+			}
+			System.arraycopy(features.mIntersects[i], 0, mIntersects[i], 0, n);
+		}
+		System.arraycopy(features.mMidX, 0, mMidX, 0, n);
+		System.arraycopy(features.mMidY, 0, mMidY, 0, n);
+		mStore = store;
+		mNumOfClears = store.getNumOfClears();
+		mNumOfSegments = Math.min(n, store.numOfSegments);
+	} // End of CharacterFeatures() copy constructor
+
+	// Makes room for the features of capacity segments, keeping those computed
+	private void grow(int capacity) {
+		mTopBottomCoords = growArray(mTopBottomCoords, capacity, 4);
+		mLeftRightCoords = growArray(mLeftRightCoords, capacity, 4);
+		mTopBottomThirds = growArray(mTopBottomThirds, capacity, 4);
+		mLeftRightThirds = growArray(mLeftRightThirds, capacity, 4);
+		float midX[] = new float[capacity];
+		float midY[] = new float[capacity];
+		float topBottomGaps[][][] = new float[capacity][][];
+		int topBottomOrder[][][] = new int[capacity][][];
+		int leftRightOrder[][][] = new int[capacity][][];
+		float intersections[][][] = new float[capacity][][];
+		boolean intersects[][] = new boolean[capacity][capacity];
+		for (int i = 0; i < capacity; i++) {
+			topBottomGaps[i] = growArray((i < mCapacity) ? mTopBottomGaps[i] : null, capacity, 2);
+			intersections[i] = growArray((i < mCapacity) ? mIntersections[i] : null, capacity, 2);
+			topBottomOrder[i] = growArray((i < mCapacity) ? mTopBottomOrder[i] : null, capacity);
+			leftRightOrder[i] = growArray((i < mCapacity) ? mLeftRightOrder[i] : null, capacity);
+			if (i < mCapacity) {
+				System.arraycopy(mIntersects[i], 0, intersects[i], 0, mCapacity);
+			}
+		}
+		if (mCapacity > 0) {
+			System.arraycopy(mMidX, 0, midX, 0, mCapacity);
+			System.arraycopy(mMidY, 0, midY, 0, mCapacity);
+		}
+		mMidX = midX;
+		mMidY = midY;
+		mTopBottomGaps = topBottomGaps;
+		mTopBottomOrder = topBottomOrder;
+		mLeftRightOrder = leftRightOrder;
+		mIntersections = intersections;
+		mIntersects = intersects;
+		mCapacity = capacity;
+	} // End of grow() method
+
+	private static float[][] growArray(float array[][], int capacity, int length) {
+		float grown[][] = new float[capacity][];
+		int numOfKept = (array == null) ? 0 : array.length;
+		for (int i = 0; i < capacity; i++) {
+			grown[i] = (i < numOfKept) ? array[i] : new float[length];
+		}
+		return grown;
+	}
+
+	private static int[][] growArray(int array[][], int capacity) {
+		int grown[][] = new int[capacity][];
+		int numOfKept = (array == null) ? 0 : array.length;
+		for (int i = 0; i < capacity; i++) {
+			grown[i] = (i < numOfKept) ? array[i] : new int[2];
+		}
+		return grown;
+	}
+
+	/**
+	 * Computes the features of the segments added to a store since the last update, and of their pairs with all
+	 * the segments.  Starts over for another store or if the store has been cleared.
+	 * @param store - features of the segments of the character
+	 */
+	public void update(SegmentStore store) {
+		if ((store != mStore) || (store.getNumOfClears() != mNumOfClears) || (store.numOfSegments < mNumOfSegments)) {
+			mStore = store;
+			mNumOfClears = store.getNumOfClears();
+			mNumOfSegments = 0;
+		}
+		if (store.numOfSegments == mNumOfSegments) return;
+
+		if (store.numOfSegments > mCapacity) {
+			grow(Math.max(store.numOfSegments, 2 * mCapacity));
+		}
+		for (int i = mNumOfSegments; i < store.numOfSegments; i++) {
+			computeSegmentFeatures(store, i);
+		}
+		for (int i = mNumOfSegments; i < store.numOfSegments; i++) {
+			for (int j = 0; j <= i; j++) {
+				computePairFeatures(i, j);
+				computePairFeatures(j, i);
+			}
+		}
+		mNumOfSegments = store.numOfSegments;
+	} // End of update() method
+
+	// Whether the features are those of all the segments of a store, so that update() would leave them as they are
+	public boolean isUpdated(SegmentStore store) {
+		return (store == mStore) && (store.getNumOfClears() == mNumOfClears) && (store.numOfSegments == mNumOfSegments);
+	}
+
+	// Number of segments whose features are computed
+	public int getNumOfSegments() {
+		return mNumOfSegments;
+	}
+
+	private void computeSegmentFeatures(SegmentStore store, int i) {
+		SegmentGeometry.getTopBottomCoords(store, i, mTopBottomCoords[i]);
+		SegmentGeometry.getLeftRightCoords(store, i, mLeftRightCoords[i]);
+		SegmentGeometry.getPointsAt1stAnd2ndThirdMarks(mTopBottomCoords[i], mTopBottomThirds[i]);
+		SegmentGeometry.getPointsAt1stAnd2ndThirdMarks(mLeftRightCoords[i], mLeftRightThirds[i]);
+		mMidX[i] = (store.startX[i] + store.endX[i])/2;
+		mMidY[i] = (store.startY[i] + store.endY[i])/2;
+	} // End of computeSegmentFeatures() method
+
+	private void computePairFeatures(int i1, int i2) {
+		float coords1[] = mTopBottomCoords[i1];
+		float coords2[] = mTopBottomCoords[i2];
+		mTopBottomGaps[i1][i2][0] = PenUtil.distanceBetween2Points(coords1[0], coords1[1], coords2[0], coords2[1]);
+		mTopBottomGaps[i1][i2][1] = PenUtil.distanceBetween2Points(coords1[2], coords1[3], coords2[2], coords2[3]);
+
+		// Segment i1 is taken to be on top (or left) unless the mid-point of segment i2 is above (or left of) its own.
+		// Note: y increases downwards (y values of the top stroke are smaller than those of the bottom stroke).
+		boolean isSwapped = mMidY[i2] < mMidY[i1];
+		mTopBottomOrder[i1][i2][0] = isSwapped ? i2 : i1;
+		mTopBottomOrder[i1][i2][1] = isSwapped ? i1 : i2;
+		isSwapped = mMidX[i2] < mMidX[i1];
+		mLeftRightOrder[i1][i2][0] = isSwapped ? i2 : i1;
+		mLeftRightOrder[i1][i2][1] = isSwapped ? i1 : i2;
+
+		mIntersects[i1][i2] = SegmentGeometry.getIntersection(coords1, coords2, mIntersections[i1][i2]);
+	} // End of computePairFeatures() method
+
+	// Ends of a segment (like a '/', '\', or '|') as {topX, topY, bottomX, bottomY}
+	public float[] getTopBottomCoords(int i) {
+		return mTopBottomCoords[i];
+	}
+
+	// Ends of a segment (like a '-') as {leftX, leftY, rightX, rightY}
+	public float[] getLeftRightCoords(int i) {
+		return mLeftRightCoords[i];
+	}
+
+	// Points at one third and two thirds of the way down a segment as {x1, y1, x2, y2}
+	public float[] getTopBottomThirds(int i) {
+		return mTopBottomThirds[i];
+	}
+
+	// Points at one third and two thirds of the way across a segment from the left as {x1, y1, x2, y2}
+	public float[] getLeftRightThirds(int i) {
+		return mLeftRightThirds[i];
+	}
+
+	// x-coord of the mid-point of the ends of a segment
+	public float getMidX(int i) {
+		return mMidX[i];
+	}
+
+	// y-coord of the mid-point of the ends of a segment
+	public float getMidY(int i) {
+		return mMidY[i];
+	}
+
+	// Gaps between the tops and between the bottoms of two segments as {top gap, bottom gap}
+	public float[] getTopBottomGaps(int i1, int i2) {
+		return mTopBottomGaps[i1][i2];
+	}
+
+	// Two segments as {top one, bottom one} by their mid-points; i1 first if neither is higher
+	public int[] getTopBottomOrder(int i1, int i2) {
+		return mTopBottomOrder[i1][i2];
+	}
+
+	// Two segments as {left one, right one} by their mid-points; i1 first if neither is further left
+	public int[] getLeftRightOrder(int i1, int i2) {
+		return mLeftRightOrder[i1][i2];
+	}
+
+	// Point as {x, y} where the lines through the ends of two segments cross
+	public float[] getIntersection(int i1, int i2) {
+		return mIntersections[i1][i2];
+	}
+
+	// Check to see if the lines through the ends of two segments cross between the ends of both
+	public boolean intersects(int i1, int i2) {
+		return mIntersects[i1][i2];
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.android.skiggle.chinese.PenCharacterCn;
+import com.android.skiggle.english.PenCharacterEn;
+
+/**
+ * CharacterPrefilter drops the candidates of a character that cannot match because of its geometry, before
+ * their matchers run.  A few features are computed once per character (e.g., the aspect ratio of the rectangle
+ * bounding its strokes, and where its only HLINE crosses its only VLINE) and each condition clears the
+ * candidates whose matchers need a feature in a range it is not in.  The conditions are only ones the matchers
+ * themselves check, so the prefilter never drops a candidate that would have matched.
+ *
+ * Each language adds its conditions next to its matchers, e.g., PenCharacterEn.addPrefilterConditions().
+ */
+public class CharacterPrefilter {
+
+	// Features of a character used by the conditions
+	public static final int WIDTH_TO_HEIGHT = 0; // Width of the strokes over their height; the matchers use width > min * height
+	public static final int HLINE_ON_VLINE = 1; // Mid-point of the only HLINE, from the top (0) to the bottom (1) of the only VLINE
+	public static final int VLINE_TOP = 2; // Top of the only VLINE, as a fraction of the height of the writing area
+
+	// Slack on HLINE_ON_VLINE ranges, for the matchers' rounding of distances, as a fraction of the VLINE's height
+	private static final float HLINE_ON_VLINE_SLACK = 0.01F;
+
+	private static final HashMap<String, CharacterPrefilter> sPrefilters = new HashMap<String, CharacterPrefilter>();
+
+	private final LanguageTables mLanguageTables;
+	private CharacterEngine mEngines[] = null; // Engines of the language the prefilter was made for
+	private final SegmentMask mShapeCandidates; // Characters of the engines that match by shape
+	private final SegmentMask mUnmatched; // Characters that have no matcher, or whose matcher never matches
+	private final ArrayList<Condition> mConditions = new ArrayList<Condition>();
+	private final ArrayList<SegmentMask> mSharedMatchers = new ArrayList<SegmentMask>();
+	private final int mSharedMatcherIndices[]; // Index in mSharedMatchers of each character, or -1
+
+	// Characters whose matchers need a feature to be in the range (min, max)
+	private static class Condition {
+		int feature;
+		double min;
+		double max;
+		SegmentMask characters;
+	}
+
+	public CharacterPrefilter(LanguageTables tables) {
+		mLanguageTables = tables;
+		mUnmatched = new SegmentMask(tables.getNumOfCharacters());
+		mShapeCandidates = new SegmentMask(tables.getNumOfCharacters());
+		mSharedMatcherIndices = new int[tables.getNumOfCharacters()];
+		for (int i = 0; i < mSharedMatcherIndices.length; i++) {
+			mSharedMatcherIndices[i] = -1;
+		}
+	} // End of CharacterPrefilter() constructor
+
+	// Gets the prefilter of a language, with the conditions of its matchers
+	public static synchronized CharacterPrefilter getCharacterPrefilter(LanguageTables tables) {
+		CharacterPrefilter prefilter = sPrefilters.get(tables.getLanguage());
+		CharacterEngine engines[] = PenCharacter.getEngines(tables.getLanguage());
+		if ((prefilter == null) || (prefilter.mLanguageTables != tables) || (prefilter.mEngines != engines)) {
+			prefilter = new CharacterPrefilter(tables);
+			if (Skiggle.ENGLISH_MODE.equals(tables.getLanguage())) {
+				PenCharacterEn.addPrefilterConditions(prefilter);
+			}
+			else if (Skiggle.CHINESE_MODE.equals(tables.getLanguage())) {
+				PenCharacterCn.addPrefilterConditions(prefilter);
+			}
+			prefilter.addEngines(engines);
+			sPrefilters.put(tables.getLanguage(), prefilter);
+		}
+		return prefilter;
+	} // End of getCharacterPrefilter() method
+
+	// Mask of the characters of the language in a string; characters not in the language are left out
+	private SegmentMask getMask(String characters) {
+		SegmentMask mask = new SegmentMask(mLanguageTables.getNumOfCharacters());
+		mLanguageTables.getMask(characters, mask);
+		return mask;
+	}
+
+	// Characters that are never matched, e.g., their case in the language's matchCharacter() is empty
+	public void addUnmatchedCharacters(String characters) {
+		mUnmatched.or(getMask(characters));
+	}
+
+	// Keeps the characters another engine has a matcher for, e.g., templates of characters without checks, and
+	// finds those of the engines that match by shape
+	private void addEngines(CharacterEngine engines[]) {
+		mEngines = engines;
+		for (int i = 0; i < mLanguageTables.getNumOfCharacters(); i++) {
+			char c = mLanguageTables.getCharacter(i);
+			for (int j = 0; j < engines.length; j++) {
+				if (engines[j].hasMatcher(c)) {
+					mUnmatched.clear(i);
+					if (engines[j].matchesByShape()) {
+						mShapeCandidates.set(i);
+					}
+				}
+			}
+		}
+	} // End of addEngines() method
+
+	// Characters of the engines that match by shape, whatever the primitives of the segments; must not be changed
+	public SegmentMask getShapeCandidates() {
+		return mShapeCandidates;
+	}
+
+	// Characters with the same matcher, e.g., 'C' and 'c'; once it fails for one of them, it is not run for the others
+	public void addSharedMatcher(String characters) {
+		SegmentMask mask = getMask(characters);
+		for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+			mSharedMatcherIndices[i] = mSharedMatchers.size();
+		}
+		mSharedMatchers.add(mask);
+	}
+
+	/**
+	 * Adds a condition the matchers of some characters check
+	 * @param characters - characters whose matchers need the feature in the range
+	 * @param feature - e.g., WIDTH_TO_HEIGHT
+	 * @param min - low end of the range, exclusive; Double.NEGATIVE_INFINITY if none
+	 * @param max - high end of the range, exclusive; Double.POSITIVE_INFINITY if none
+	 */
+	public void addCondition(String characters, int feature, double min, double max) {
+		Condition condition = new Condition();
+		condition.feature = feature;
+		condition.min = min;
+		condition.max = max;
+		condition.characters = getMask(characters);
+		mConditions.add(condition);
+	}
+
+	// Index of the only segment of a primitive in the character, or -1 if it has none or more than one
+	private static int getOnlySegment(SegmentStore store, char primitive) {
+		int segmentIndex = -1;
+		for (int i = 0; i < store.numOfSegments; i++) {
+			if (store.primitives[i] == primitive) {
+				if (segmentIndex >= 0) return -1;
+				segmentIndex = i;
+			}
+		}
+		return segmentIndex;
+	}
+
+	/**
+	 * Gets the candidates whose matchers may match the geometry of a character
+	 * @param pChar - character written
+	 * @param candidates - candidates for the primitives of the character's segments
+	 * @param survivors - set to the candidates that are left
+	 */
+	public void filter(PenCharacter pChar, SegmentMask candidates, SegmentMask survivors) {
+		survivors.copy(candidates);
+		survivors.andNot(mUnmatched);
+		if (survivors.isEmpty() || mConditions.isEmpty()) return;
+
+		SegmentStore store = pChar.segmentStore;
+		float width = pChar.penStrokesMaxX - pChar.penStrokesMinX;
+		float height = pChar.penStrokesMaxY - pChar.penStrokesMinY;
+
+		// Features of the only VLINE and HLINE, as the matchers get them (see getTopBottomCoordsOfSegment())
+		float vLineTopY = Float.NaN;
+		float hLineOnVLine = Float.NaN;
+		int vLineIndex = getOnlySegment(store, PenSegment.VLINE_CHAR);
+		if (vLineIndex >= 0) {
+			vLineTopY = Math.min(store.startY[vLineIndex], store.endY[vLineIndex]);
+			float vLineHeight = Math.max(store.startY[vLineIndex], store.endY[vLineIndex]) - vLineTopY;
+			int hLineIndex = getOnlySegment(store, PenSegment.HLINE_CHAR);
+			if ((hLineIndex >= 0) && (vLineHeight > 0)) {
+				float hLineMidY = (store.startY[hLineIndex] + store.endY[hLineIndex])/2;
+				hLineOnVLine = (hLineMidY - vLineTopY)/vLineHeight;
+			}
+		}
+
+		for (int i = 0; i < mConditions.size(); i++) {
+			Condition condition = mConditions.get(i);
+			boolean isPossible = true;
+			switch (condition.feature) {
+			case WIDTH_TO_HEIGHT:
+				// Same comparisons as the matchers, so rounding cannot drop a character they match
+				isPossible = ((condition.min == Double.NEGATIVE_INFINITY) || (width > condition.min * height)) &&
+					((condition.max == Double.POSITIVE_INFINITY) || (width < condition.max * height));
+				break;
+			case HLINE_ON_VLINE:
+				// The distances the matchers check are at least the vertical distances
+				isPossible = Float.isNaN(hLineOnVLine) ||
+					((hLineOnVLine > condition.min - HLINE_ON_VLINE_SLACK) && (hLineOnVLine < condition.max + HLINE_ON_VLINE_SLACK));
+				break;
+			case VLINE_TOP:
+				isPossible = Float.isNaN(vLineTopY) ||
+					((vLineTopY > (float) (condition.min * Skiggle.sDefaultWritePadHeight)) &&
+					 (vLineTopY < (float) (condition.max * Skiggle.sDefaultWritePadHeight)));
+				break;
+			default:
+				break;
+			}
+			if (!isPossible) {
+				survivors.andNot(condition.characters);
+			}
+		}
+	} // End of filter() method
+
+	// Clears the characters sharing the matcher of a character, after the matcher failed for it
+	public void clearSharedMatcher(int index, SegmentMask survivors) {
+		if (mSharedMatcherIndices[index] >= 0) {
+			survivors.andNot(mSharedMatchers.get(mSharedMatcherIndices[index]));
+		}
+	}
+
+}
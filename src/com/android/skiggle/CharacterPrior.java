@@ -0,0 +1,284 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * CharacterPrior keeps how often the user commits each character of a language, so that candidates
+ * can be tried, and shown, in the order of how likely the user is to write them.  Each commit adds a
+ * weight that halves every HALF_LIFE_MILLIS, so the prior follows what the user writes now.
+ *
+ * Instead of decaying all the weights on every commit, the weights are kept relative to a base time
+ * and each commit adds 2^((now - base time)/HALF_LIFE_MILLIS); all the weights are scaled down and the
+ * base time moved up only when that gets large.  Scaling does not change the order, and a commit only
+ * raises one weight, so the order is kept up to date by moving the committed character up.
+ *
+ * The prior of each language is saved in a small private file of the app with only the characters
+ * that have been committed, by code point, so that it still applies if the language's tables change
+ * (e.g., a new language pack orders the characters differently).  A prior is meant to be used from
+ * the UI thread only; recognizers on other threads read a copy of it (see copyTo()).
+ */
+public class CharacterPrior {
+
+	// TAG for logging
+	private static final String TAG = "SkiggleCharacterPrior";
+
+	public static final String PRIOR_FILENAME_PREFIX = "Skiggle_prior_";
+	public static final long HALF_LIFE_MILLIS = 14L * 24 * 60 * 60 * 1000; // Two weeks
+	private static final float MAX_COMMIT_WEIGHT = 1.0e6F; // Weight of a commit at which the base time is moved up
+	private static final int FILE_VERSION = 2; // Version 1 kept the weights by character index
+
+	private static final HashMap<String, CharacterPrior> sPriors = new HashMap<String, CharacterPrior>();
+
+	private final LanguageTables mLanguageTables;
+	private final float mWeights[]; // Weight of each character relative to the base time
+	private final int mOrder[]; // Character indices, most likely first; ties keep the order of the language
+	private final int mRanks[]; // Position of each character index in mOrder
+	private long mBaseTime = 0;
+	private boolean mIsDirty = false;
+
+	public CharacterPrior(LanguageTables tables) {
+		mLanguageTables = tables;
+		int numOfCharacters = tables.getNumOfCharacters();
+		mWeights = new float[numOfCharacters];
+		mOrder = new int[numOfCharacters];
+		mRanks = new int[numOfCharacters];
+		for (int i = 0; i < numOfCharacters; i++) {
+			mOrder[i] = i;
+			mRanks[i] = i;
+		}
+	} // End of CharacterPrior() constructor
+
+	/**
+	 * Gets the prior of the user for a language, loading it from the file of the app the first time and
+	 * again for new tables of the language
+	 * @param context - context of the app
+	 * @param language - e.g., Skiggle.ENGLISH_MODE
+	 */
+	public static synchronized CharacterPrior getCharacterPrior(Context context, String language) {
+		LanguageTables tables = LanguageTables.getLanguageTables(language);
+		CharacterPrior prior = sPriors.get(tables.getLanguage());
+		if ((prior == null) || (prior.mLanguageTables != tables)) {
+			if ((prior != null) && prior.mIsDirty) {
+				prior.save(context); // Carried over to the new tables by code point
+			}
+			prior = new CharacterPrior(tables);
+			prior.load(context);
+			sPriors.put(tables.getLanguage(), prior);
+		}
+		return prior;
+	} // End of getCharacterPrior() method
+
+	// Saves the priors that have changed since they were loaded or last saved
+	public static synchronized void savePriors(Context context) {
+		for (CharacterPrior prior : sPriors.values()) {
+			if (prior.mIsDirty) {
+				prior.save(context);
+			}
+		}
+	}
+
+	public String getLanguage() {
+		return mLanguageTables.getLanguage();
+	}
+
+	/**
+	 * Gets the character indices (see LanguageTables.getCharacter()) in the order of the prior, most
+	 * likely first.  The array must not be changed; it changes with the next commit.
+	 */
+	public int[] getOrder() {
+		return mOrder;
+	}
+
+	/**
+	 * Copies the prior, e.g., for a recognizer on another thread to read while the user commits characters.
+	 * The copy is never saved.
+	 * @param copy - prior to copy into, reused if it is of the same tables; may be null
+	 * @return the copy
+	 */
+	public CharacterPrior copyTo(CharacterPrior copy) {
+		if ((copy == null) || (copy.mLanguageTables != mLanguageTables)) {
+			copy = new CharacterPrior(mLanguageTables);
+		}
+		System.arraycopy(mWeights, 0, copy.mWeights, 0, mWeights.length);
+		System.arraycopy(mOrder, 0, copy.mOrder, 0, mOrder.length);
+		System.arraycopy(mRanks, 0, copy.mRanks, 0, mRanks.length);
+		copy.mBaseTime = mBaseTime;
+		return copy;
+	} // End of copyTo() method
+
+	// Records that the user committed a character now
+	public void recordCommit(char c) {
+		recordCommit(c, System.currentTimeMillis());
+	}
+
+	/**
+	 * Records that the user committed a character
+	 * @param c - character committed; ignored if not a character of the language
+	 * @param time - time of the commit, in milliseconds
+	 */
+	public void recordCommit(char c, long time) {
+		int index = mLanguageTables.getCharacterIndex(c);
+		if (index < 0) return;
+
+		float commitWeight = getCommitWeight(time);
+		if (commitWeight > MAX_COMMIT_WEIGHT) {
+			// Move the base time up to now; scaling all the weights the same keeps their order
+			for (int i = 0; i < mWeights.length; i++) {
+				mWeights[i] = mWeights[i] / commitWeight;
+			}
+			mBaseTime = time;
+			commitWeight = 1.0F;
+		}
+		mWeights[index] = mWeights[index] + commitWeight;
+		mIsDirty = true;
+
+		// Only the committed character went up, so move it up past the characters it now outweighs
+		int rank = mRanks[index];
+		while ((rank > 0) && isBefore(index, mOrder[rank - 1])) {
+			mOrder[rank] = mOrder[rank - 1];
+			mRanks[mOrder[rank]] = rank;
+			rank--;
+		}
+		mOrder[rank] = index;
+		mRanks[index] = rank;
+	} // End of recordCommit() method
+
+	// Weight of a commit at a time relative to the base time
+	private float getCommitWeight(long time) {
+		return (float) Math.pow(2.0D, (double) (time - mBaseTime) / HALF_LIFE_MILLIS);
+	}
+
+	// Whether the character at index1 goes before the one at index2 in the order
+	private boolean isBefore(int index1, int index2) {
+		return (mWeights[index1] > mWeights[index2]) || ((mWeights[index1] == mWeights[index2]) && (index1 < index2));
+	}
+
+	// Sorts the order from the weights, e.g., after loading them
+	private void sortOrder() {
+		// Insertion sort; there are at most a few hundred characters and it is done once
+		for (int i = 1; i < mOrder.length; i++) {
+			int index = mOrder[i];
+			int j = i;
+			while ((j > 0) && isBefore(index, mOrder[j - 1])) {
+				mOrder[j] = mOrder[j - 1];
+				j--;
+			}
+			mOrder[j] = index;
+		}
+		for (int i = 0; i < mOrder.length; i++) {
+			mRanks[mOrder[i]] = i;
+		}
+	} // End of sortOrder() method
+
+	public static String getPriorFileName(String language) {
+		return PRIOR_FILENAME_PREFIX + language.toLowerCase();
+	}
+
+	/**
+	 * Writes the prior as the file version, the base time and the number of characters with weights,
+	 * followed by the code point and weight of each of them
+	 */
+	private void save(Context context) {
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(context.openFileOutput(getPriorFileName(getLanguage()), Context.MODE_PRIVATE));
+			int numOfWeights = 0;
+			for (int i = 0; i < mWeights.length; i++) {
+				if (mWeights[i] > 0) numOfWeights++;
+			}
+			out.writeByte(FILE_VERSION);
+			out.writeLong(mBaseTime);
+			out.writeShort(numOfWeights);
+			for (int i = 0; i < mWeights.length; i++) {
+				if (mWeights[i] > 0) {
+					out.writeInt(mLanguageTables.getCodePoint(i));
+					out.writeFloat(mWeights[i]);
+				}
+			}
+			mIsDirty = false;
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Cannot save prior of " + getLanguage(), e);
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				}
+				catch (IOException e) {
+					// Nothing more can be done
+				}
+			}
+		}
+	} // End of save() method
+
+	// Reads the prior saved by save(), if any; weights of characters no longer in the language are dropped
+	private void load(Context context) {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(context.openFileInput(getPriorFileName(getLanguage())));
+			int version = in.readByte();
+			if (version < FILE_VERSION) return; // Indices of older files may be of other tables, so start over
+			if (version != FILE_VERSION) {
+				throw new IOException("Unknown prior file version");
+			}
+			long baseTime = in.readLong();
+			int numOfWeights = in.readShort();
+			for (int i = 0; i < numOfWeights; i++) {
+				int index = mLanguageTables.getCodePointIndex(in.readInt());
+				float weight = in.readFloat();
+				if (index >= 0) {
+					mWeights[index] = weight;
+				}
+			}
+			mBaseTime = baseTime;
+			sortOrder();
+		}
+		catch (FileNotFoundException e) {
+			// No prior saved yet
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Cannot load prior of " + getLanguage(), e);
+			Arrays.fill(mWeights, 0.0F);
+			sortOrder();
+		}
+		finally {
+			if (in != null) {
+				try {
+					in.close();
+				}
+				catch (IOException e) {
+					// Nothing more can be done
+				}
+			}
+		}
+	} // End of load() method
+
+}
@@ -0,0 +1,133 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.util.HashMap;
+
+import android.view.inputmethod.EditorInfo;
+
+/**
+ * FieldProfile is the alphabet of the characters that can be written in a kind of input field, e.g., digits and
+ * signs for a number field.  Its mask for a language is ANDed into the candidates of every character written in
+ * the field (see RecognitionContext.setFieldProfile()), so the matchers of the other characters never run and
+ * they are never offered.
+ *
+ * The profiles are built once per class of field, from the class, variation and number flags of its input type,
+ * and their masks once per language.
+ */
+public class FieldProfile {
+
+	// Digits, including the Chinese numerals
+	private static final String DIGITS = "0123456789〇一二三四五六七八九十";
+	private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+	// Characters of the fields whose alphabet is restricted; '␠' is the space written as a character
+	private static final String PHONE_CHARACTERS = DIGITS + "+*#(),-./;N␠";
+	private static final String DATETIME_CHARACTERS = DIGITS + "/:-.,␠";
+	private static final String EMAIL_CHARACTERS = LETTERS + DIGITS + "@.-_+";
+	private static final String URI_CHARACTERS = LETTERS + DIGITS + "-._~:/?#[]@!$&'()*+,;=%";
+
+	// Parts of the input type that pick the profile
+	private static final int PROFILE_TYPE_MASK = EditorInfo.TYPE_MASK_CLASS | EditorInfo.TYPE_MASK_VARIATION |
+		EditorInfo.TYPE_NUMBER_FLAG_SIGNED | EditorInfo.TYPE_NUMBER_FLAG_DECIMAL;
+
+	// Profile of fields of any character
+	public static final FieldProfile ALL_CHARACTERS = new FieldProfile(null);
+
+	private static final HashMap<Integer, FieldProfile> sProfiles = new HashMap<Integer, FieldProfile>();
+
+	private final String mCharacters; // Characters of the profile, or null for all the characters of the language
+	private final HashMap<String, SegmentMask> mMasks = new HashMap<String, SegmentMask>(); // By language
+	private final HashMap<String, LanguageTables> mMaskTables = new HashMap<String, LanguageTables>(); // Tables of each mask
+
+	public FieldProfile(String characters) {
+		mCharacters = characters;
+	} // End of FieldProfile() constructor
+
+	/**
+	 * Gets the profile of a class of input field
+	 * @param inputType - input type of the field, from its EditorInfo
+	 */
+	public static synchronized FieldProfile getFieldProfile(int inputType) {
+		Integer key = Integer.valueOf(inputType & PROFILE_TYPE_MASK);
+		FieldProfile profile = sProfiles.get(key);
+		if (profile == null) {
+			String characters = getCharacters(inputType);
+			profile = (characters == null) ? ALL_CHARACTERS : new FieldProfile(characters);
+			sProfiles.put(key, profile);
+		}
+		return profile;
+	} // End of getFieldProfile() method
+
+	// Characters that can be written in a field of an input type, or null if any can
+	private static String getCharacters(int inputType) {
+		String characters = null;
+		switch (inputType & EditorInfo.TYPE_MASK_CLASS) {
+		case EditorInfo.TYPE_CLASS_NUMBER:
+			characters = DIGITS;
+			if ((inputType & EditorInfo.TYPE_NUMBER_FLAG_SIGNED) != 0) {
+				characters = characters + "+-";
+			}
+			if ((inputType & EditorInfo.TYPE_NUMBER_FLAG_DECIMAL) != 0) {
+				characters = characters + ".,";
+			}
+			break;
+		case EditorInfo.TYPE_CLASS_PHONE:
+			characters = PHONE_CHARACTERS;
+			break;
+		case EditorInfo.TYPE_CLASS_DATETIME:
+			characters = DATETIME_CHARACTERS;
+			break;
+		case EditorInfo.TYPE_CLASS_TEXT:
+			int variation = inputType & EditorInfo.TYPE_MASK_VARIATION;
+			if ((variation == EditorInfo.TYPE_TEXT_VARIATION_EMAIL_ADDRESS) ||
+					(variation == EditorInfo.TYPE_TEXT_VARIATION_WEB_EMAIL_ADDRESS)) {
+				characters = EMAIL_CHARACTERS;
+			}
+			else if (variation == EditorInfo.TYPE_TEXT_VARIATION_URI) {
+				characters = URI_CHARACTERS;
+			}
+			break;
+		default:
+			break;
+		}
+		return characters;
+	} // End of getCharacters() method
+
+	/**
+	 * Gets the mask of the characters of the profile in a language.  A profile that leaves none of the characters of
+	 * the language (e.g., an email address written in Chinese) does not restrict it.
+	 * @param tables - tables of the language
+	 * @return the mask, which must not be changed, or null if all the characters can be written
+	 */
+	public synchronized SegmentMask getMask(LanguageTables tables) {
+		if (mCharacters == null) return null;
+
+		SegmentMask mask = mMasks.get(tables.getLanguage());
+		if ((mask == null) || (mMaskTables.get(tables.getLanguage()) != tables)) {
+			mask = new SegmentMask(tables.getNumOfCharacters());
+			tables.getMask(mCharacters, mask);
+			mMasks.put(tables.getLanguage(), mask);
+			mMaskTables.put(tables.getLanguage(), tables);
+		}
+		return mask.isEmpty() ? null : mask;
+	} // End of getMask() method
+
+}
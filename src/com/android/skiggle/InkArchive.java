@@ -0,0 +1,339 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * InkArchive keeps the strokes users write, simplified with the largest tolerance (up to SIMPLIFY_TOLERANCE
+ * pixels) that leaves their segmentation into primitives unchanged, in a compact binary form in a private
+ * file of the app.  Each stroke is stored as its number of points followed by the
+ * first point and then the differences between successive points, in quarter pixels, as zig-zag varints.
+ * Most differences of simplified ink take one or two bytes.  Strokes are simplified and written on a thread
+ * of their own, as simplifying segments each stroke several times.
+ *
+ * In verification mode (e.g., in debug mode) each stroke archived is read back from its bytes and segmented
+ * again, and the strokes whose primitives differ from those of the raw stroke are counted; verify() checks
+ * the same of a corpus of raw strokes.
+ */
+public class InkArchive {
+
+	// TAG for logging
+	private static final String TAG = "SkiggleInkArchive";
+
+	public static final String ARCHIVE_FILENAME = "Skiggle_ink";
+	public static final String VERIFICATION_REPORT_FILENAME = "Skiggle_ink_verification.txt";
+
+	// Max distance (in pixels) of a dropped point from the simplified stroke.  Strokes whose segmentation
+	// would change are simplified again with half the tolerance, down to MIN_SIMPLIFY_TOLERANCE.
+	public static final float SIMPLIFY_TOLERANCE = 2.0F;
+	private static final float MIN_SIMPLIFY_TOLERANCE = 0.25F;
+
+	private static final float UNITS_PER_PIXEL = 4.0F; // Coordinates are stored in quarter pixels
+
+	private static ExecutorService sExecutor = null; // Thread the strokes are archived on, started when first needed
+	private static volatile boolean sIsVerifying = false;
+	private static final Verification sVerification = new Verification(); // Of the strokes archived in verification mode
+
+	// Counts of strokes checked to segment the same after they are archived, and of their sizes
+	private static class Verification {
+		int numOfStrokes = 0;
+		int numOfMismatches = 0; // Strokes that segment into other primitives when read back
+		int rawPoints = 0;
+		int archivedPoints = 0;
+		int archivedBytes = 0;
+
+		// Reads a stroke back from its bytes and counts it, and whether it segments as the raw stroke does
+		synchronized void check(InkStroke raw, byte bytes[], StrokeFilterChain filterChain) {
+			InkStroke archived;
+			try {
+				archived = readStrokes(new ByteArrayInputStream(bytes)).firstElement();
+			}
+			catch (IOException e) {
+				archived = new InkStroke(); // Cannot happen for the bytes of encode(); counted as a mismatch
+			}
+			numOfStrokes++;
+			rawPoints = rawPoints + raw.numOfPoints;
+			archivedPoints = archivedPoints + archived.numOfPoints;
+			archivedBytes = archivedBytes + bytes.length;
+			if (!getSegmentCharacters(archived, filterChain).equals(getSegmentCharacters(raw, filterChain))) {
+				numOfMismatches++;
+			}
+		} // End of check() method
+
+		// Raw ink takes two floats (8 bytes) a point
+		synchronized String getReport() {
+			return String.format("%1$d strokes, %2$d differ; %3$d points, %4$d bytes raw; %5$d points, %6$d bytes archived",
+					numOfStrokes, numOfMismatches, rawPoints, 8 * rawPoints, archivedPoints, archivedBytes);
+		}
+	} // End of Verification class
+
+	// Sets verification mode, in which every stroke archived is checked to segment the same when read back
+	public static void setVerifying(boolean verifying) {
+		sIsVerifying = verifying;
+	}
+
+	/**
+	 * Simplifies the stroke and appends it to the archive file of the app, on the archive thread
+	 * @param context - context of the app
+	 * @param inkStroke - raw stroke; it is copied
+	 * @param filterChain - smoothing the stroke is segmented with; as it is run on the archive thread, it must be
+	 * a chain of its own, not that of a recognition context
+	 */
+	public static void archiveStroke(Context context, InkStroke inkStroke, final StrokeFilterChain filterChain) {
+		final Context appContext = context.getApplicationContext();
+		final InkStroke raw = new InkStroke(inkStroke);
+		getExecutor().execute(new Runnable() {
+			public void run() {
+				writeStroke(appContext, raw, filterChain);
+			}
+		});
+	} // End of archiveStroke() method
+
+	private static synchronized ExecutorService getExecutor() {
+		if (sExecutor == null) {
+			sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "SkiggleInkArchive");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sExecutor;
+	} // End of getExecutor() method
+
+	// Simplifies the stroke and appends it to the archive file
+	private static void writeStroke(Context context, InkStroke inkStroke, StrokeFilterChain filterChain) {
+		byte bytes[] = encode(simplifyKeepingSegments(inkStroke, SIMPLIFY_TOLERANCE, filterChain));
+		OutputStream out = null;
+		try {
+			out = context.openFileOutput(ARCHIVE_FILENAME, Context.MODE_APPEND);
+			out.write(bytes);
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Cannot archive stroke", e);
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				}
+				catch (IOException e) {
+					// Nothing more can be done
+				}
+			}
+		}
+		if (sIsVerifying) {
+			sVerification.check(inkStroke, bytes, filterChain);
+		}
+	} // End of writeStroke() method
+
+	/**
+	 * Simplifies a stroke with the largest tolerance, halving it from maxTolerance, at which it segments into
+	 * the same primitives as the raw stroke once it is rounded to the quarter pixels it is stored in
+	 * @param inkStroke - raw stroke
+	 * @param maxTolerance - tolerance to try first
+	 * @param filterChain - smoothing the stroke is segmented with
+	 * @return the simplified and rounded stroke, or the raw stroke if no tolerance keeps the segments the same;
+	 * a raw stroke may still segment differently once rounded, which verification mode counts
+	 */
+	public static InkStroke simplifyKeepingSegments(InkStroke inkStroke, float maxTolerance, StrokeFilterChain filterChain) {
+		String rawSegmentChars = getSegmentCharacters(inkStroke, filterChain);
+		for (float tolerance = maxTolerance; tolerance >= MIN_SIMPLIFY_TOLERANCE; tolerance = tolerance/2) {
+			InkStroke simplified = round(inkStroke.simplify(tolerance));
+			if (getSegmentCharacters(simplified, filterChain).equals(rawSegmentChars)) {
+				return simplified;
+			}
+		}
+		return inkStroke;
+	} // End of simplifyKeepingSegments() method
+
+	// Rounds the points of a stroke to the quarter pixels they are stored in, as they are read back
+	private static InkStroke round(InkStroke inkStroke) {
+		InkStroke rounded = new InkStroke(inkStroke.numOfPoints);
+		for (int i = 0; i < inkStroke.numOfPoints; i++) {
+			rounded.addPoint(Math.round(inkStroke.x[i] * UNITS_PER_PIXEL)/UNITS_PER_PIXEL,
+					Math.round(inkStroke.y[i] * UNITS_PER_PIXEL)/UNITS_PER_PIXEL);
+		}
+		return rounded;
+	} // End of round() method
+
+	/**
+	 * Encodes a stroke
+	 * @param inkStroke - stroke to encode
+	 * @return the encoded stroke
+	 */
+	public static byte[] encode(InkStroke inkStroke) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(4 + 3 * inkStroke.numOfPoints);
+		writeVarint(out, inkStroke.numOfPoints);
+		int prevX = 0;
+		int prevY = 0;
+		for (int i = 0; i < inkStroke.numOfPoints; i++) {
+			int px = Math.round(inkStroke.x[i] * UNITS_PER_PIXEL);
+			int py = Math.round(inkStroke.y[i] * UNITS_PER_PIXEL);
+			writeVarint(out, zigzag(px - prevX));
+			writeVarint(out, zigzag(py - prevY));
+			prevX = px;
+			prevY = py;
+		}
+		return out.toByteArray();
+	} // End of encode() method
+
+	/**
+	 * Reads all the strokes from a stream of encoded strokes, e.g. the archive file
+	 * @param in - stream of encoded strokes
+	 * @return the strokes
+	 */
+	public static Vector<InkStroke> readStrokes(InputStream in) throws IOException {
+		Vector<InkStroke> inkStrokes = new Vector<InkStroke>();
+		int numOfPoints = readVarint(in);
+		while (numOfPoints >= 0) {
+			InkStroke inkStroke = new InkStroke(numOfPoints);
+			int px = 0;
+			int py = 0;
+			for (int i = 0; i < numOfPoints; i++) {
+				px = px + unzigzag(readVarint(in));
+				py = py + unzigzag(readVarint(in));
+				inkStroke.addPoint(px/UNITS_PER_PIXEL, py/UNITS_PER_PIXEL);
+			}
+			inkStrokes.add(inkStroke);
+			numOfPoints = readVarint(in);
+		}
+		return inkStrokes;
+	} // End of readStrokes() method
+
+	/**
+	 * Verification mode for a corpus of raw strokes: checks that they segment into the same primitives after they
+	 * are simplified, both with a fixed tolerance and the way they are archived, and read back from their bytes
+	 * @param corpus - raw strokes
+	 * @param tolerance - simplification tolerance to check
+	 * @param filterChain - smoothing the strokes are segmented with
+	 * @return a report of each, including the number of strokes that segment differently
+	 */
+	public static String verify(Vector<InkStroke> corpus, float tolerance, StrokeFilterChain filterChain) {
+		Verification simplified = new Verification();
+		Verification archived = new Verification();
+		for (int i = 0; i < corpus.size(); i++) {
+			InkStroke raw = corpus.elementAt(i);
+			simplified.check(raw, encode(raw.simplify(tolerance)), filterChain);
+			archived.check(raw, encode(simplifyKeepingSegments(raw, tolerance, filterChain)), filterChain);
+		}
+		String report = String.format("Tolerance %1$.2f: %2$s\nArchived: %3$s", tolerance, simplified.getReport(),
+				archived.getReport());
+		Log.i(TAG, report);
+		return report;
+	} // End of verify() method
+
+	/**
+	 * Logs the counts of the strokes archived in verification mode and writes them to a private file of the app,
+	 * VERIFICATION_REPORT_FILENAME
+	 * @param context - context of the app
+	 */
+	public static void writeVerificationReport(Context context) {
+		String report;
+		synchronized (sVerification) {
+			if (sVerification.numOfStrokes == 0) return;
+			report = sVerification.getReport();
+		}
+		Log.i(TAG, report);
+		OutputStream out = null;
+		try {
+			out = context.openFileOutput(VERIFICATION_REPORT_FILENAME, Context.MODE_PRIVATE);
+			out.write(report.getBytes("UTF-8"));
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Cannot write verification report", e);
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				}
+				catch (IOException e) {
+					// Nothing more can be done
+				}
+			}
+		}
+	} // End of writeVerificationReport() method
+
+	// Get the primitive characters of the segments of a stroke, e.g. "|-" for an 'L'
+	private static String getSegmentCharacters(InkStroke inkStroke, StrokeFilterChain filterChain) {
+		PenStroke penStroke = new PenStroke(inkStroke.toPath());
+		penStroke.addPath(penStroke.penStrokePath);
+		ArrayList<PenSegment> segments = penStroke.segmentStroke(null, null, filterChain);
+		String chars = "";
+		for (int i = 0; i < segments.size(); i++) {
+			chars = chars + segments.get(i).penSegmentCharacter;
+		}
+		return chars;
+	} // End of getSegmentCharacters() method
+
+	// Map signed ints to unsigned ones so that small negative numbers also get short varints
+	private static int zigzag(int n) {
+		return (n << 1) ^ (n >> 31);
+	}
+
+	private static int unzigzag(int n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	// Write an unsigned int 7 bits a byte, low bits first, with the high bit set on all but the last byte
+	private static void writeVarint(OutputStream out, int n) {
+		try {
+			while ((n & ~0x7F) != 0) {
+				out.write((n & 0x7F) | 0x80);
+				n = n >>> 7;
+			}
+			out.write(n);
+		}
+		catch (IOException e) {
+			// Cannot happen for a ByteArrayOutputStream
+		}
+	}
+
+	// Read an unsigned varint, or return -1 at the end of the stream
+	private static int readVarint(InputStream in) throws IOException {
+		int n = 0;
+		int shift = 0;
+		int b = in.read();
+		if (b < 0) return -1;
+		while ((b & 0x80) != 0) {
+			n = n | ((b & 0x7F) << shift);
+			shift = shift + 7;
+			b = in.read();
+			if (b < 0) throw new IOException("Truncated ink archive");
+		}
+		return n | (b << shift);
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import android.graphics.Path;
+
+/**
+ * InkStroke holds the raw points of a stroke, as reported by the touch screen, in packed x and y arrays.
+ * It is used to archive the ink users write, after simplifying it with Ramer-Douglas-Peucker.
+ */
+public class InkStroke {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	public float x[];
+	public float y[];
+	public int numOfPoints = 0;
+
+	public InkStroke() {
+		this(INITIAL_CAPACITY);
+	} // End of InkStroke() constructor
+
+	public InkStroke(int capacity) {
+		x = new float[Math.max(capacity, 2)];
+		y = new float[Math.max(capacity, 2)];
+	} // End of InkStroke(capacity) constructor
+
+	// Copy of the points of a stroke
+	public InkStroke(InkStroke inkStroke) {
+		this(inkStroke.numOfPoints);
+		System.arraycopy(inkStroke.x, 0, x, 0, inkStroke.numOfPoints);
+		System.arraycopy(inkStroke.y, 0, y, 0, inkStroke.numOfPoints);
+		numOfPoints = inkStroke.numOfPoints;
+	} // End of InkStroke() copy constructor
+
+	public void reset() {
+		numOfPoints = 0;
+	}
+
+	public void addPoint(float px, float py) {
+		if (numOfPoints == x.length) {
+			float newX[] = new float[2 * x.length];
+			float newY[] = new float[2 * y.length];
+			System.arraycopy(x, 0, newX, 0, numOfPoints);
+			System.arraycopy(y, 0, newY, 0, numOfPoints);
+			x = newX;
+			y = newY;
+		}
+		x[numOfPoints] = px;
+		y[numOfPoints] = py;
+		numOfPoints++;
+	} // End of addPoint() method
+
+	/**
+	 * Gets the stroke as a path of straight lines joining its points
+	 * @return the path
+	 */
+	public Path toPath() {
+		Path path = new Path();
+		if (numOfPoints > 0) {
+			path.moveTo(x[0], y[0]);
+			for (int i = 1; i < numOfPoints; i++) {
+				path.lineTo(x[i], y[i]);
+			}
+			// A single point is drawn as a line of 1 pixel, as in WritingArea
+			if (numOfPoints == 1) {
+				path.lineTo(x[0], y[0] + 1);
+			}
+		}
+		return path;
+	} // End of toPath() method
+
+	/**
+	 * Simplifies the stroke with the Ramer-Douglas-Peucker algorithm: keeps the end points and, recursively,
+	 * the point farthest from the line joining the points kept on either side of it, until every point
+	 * dropped is within the tolerance of the simplified stroke
+	 * @param tolerance - max distance (in pixels) of a dropped point from the simplified stroke
+	 * @return the simplified stroke
+	 */
+	public InkStroke simplify(float tolerance) {
+		InkStroke simplified = new InkStroke(numOfPoints);
+		if (numOfPoints < 3) {
+			for (int i = 0; i < numOfPoints; i++) {
+				simplified.addPoint(x[i], y[i]);
+			}
+			return simplified;
+		}
+
+		// Use an explicit stack of index ranges rather than recursion, since strokes can have many points
+		boolean keep[] = new boolean[numOfPoints];
+		int stack[] = new int[2 * numOfPoints];
+		int top = 0;
+		keep[0] = true;
+		keep[numOfPoints - 1] = true;
+		stack[top++] = 0;
+		stack[top++] = numOfPoints - 1;
+		float toleranceSquared = tolerance * tolerance;
+		while (top > 0) {
+			int endIndex = stack[--top];
+			int startIndex = stack[--top];
+			int farthestIndex = -1;
+			float farthestDistanceSquared = toleranceSquared;
+			for (int i = startIndex + 1; i < endIndex; i++) {
+				float d = distanceSquaredToLine(x[i], y[i], x[startIndex], y[startIndex], x[endIndex], y[endIndex]);
+				if (d > farthestDistanceSquared) {
+					farthestDistanceSquared = d;
+					farthestIndex = i;
+				}
+			}
+			if (farthestIndex > 0) {
+				keep[farthestIndex] = true;
+				stack[top++] = startIndex;
+				stack[top++] = farthestIndex;
+				stack[top++] = farthestIndex;
+				stack[top++] = endIndex;
+			}
+		}
+
+		for (int i = 0; i < numOfPoints; i++) {
+			if (keep[i]) simplified.addPoint(x[i], y[i]);
+		}
+		return simplified;
+	} // End of simplify() method
+
+	// Squared distance of point (px, py) from the line segment joining (x0, y0) and (x1, y1)
+	private static float distanceSquaredToLine(float px, float py, float x0, float y0, float x1, float y1) {
+		float dx = x1 - x0;
+		float dy = y1 - y0;
+		float lengthSquared = dx * dx + dy * dy;
+		float t = (lengthSquared > 0) ? ((px - x0) * dx + (py - y0) * dy)/lengthSquared : 0.0F;
+		t = Math.max(0.0F, Math.min(1.0F, t));
+		float ex = px - (x0 + t * dx);
+		float ey = py - (y0 + t * dy);
+		return ex * ex + ey * ey;
+	}
+
+}
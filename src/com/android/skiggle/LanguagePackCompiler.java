@@ -0,0 +1,235 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import com.android.skiggle.chinese.SegmentBitSetCn;
+import com.android.skiggle.english.SegmentBitSetEn;
+
+/**
+ * LanguagePackCompiler turns the definition of a language (its characters, the bit sets of the characters
+ * with each primitive and the primitive signatures of the characters) into a language pack: a flat binary
+ * image of all the tables recognition reads, including the candidate table, laid out as described in
+ * LanguageTables.  The pack is read in place, so loading one costs the same whatever the size of the alphabet.
+ * Alphabets of more than MAX_DENSE_WORDS_PER_MASK * 64 characters (e.g., CJK) get sparse masks, since most of
+ * their candidate masks have only a few bits set.
+ *
+ * Run main() with a directory (e.g., assets/languages) to write the packs of the built-in languages there.
+ */
+public class LanguagePackCompiler {
+
+	// File name extension of language packs
+	public static final String PACK_FILE_EXTENSION = ".pack";
+
+	// Masks of more words than this are stored sparse
+	public static final int MAX_DENSE_WORDS_PER_MASK = 4;
+
+	/**
+	 * Compiles the definition of a language into a language pack
+	 * @param language - Skiggle.ENGLISH_MODE or Skiggle.CHINESE_MODE
+	 * @param allCharactersString - all the characters of the language, in the order of the bits of the bit sets;
+	 * characters outside the Basic Multilingual Plane are surrogate pairs, one bit each
+	 * @param primitiveBitsets - characters with each primitive, indexed by PenSegment.getPrimitiveIndex()
+	 * @param characterSignatures - primitive signature of each character, in the order of allCharactersString;
+	 * space-separated variants, each listing the primitive of every segment, and empty if never a candidate
+	 * @return the pack, in a heap buffer
+	 */
+	public static ByteBuffer compile(String language, String allCharactersString, SegmentBitSet primitiveBitsets[],
+			String characterSignatures[]) {
+		int numOfCharacters = allCharactersString.codePointCount(0, allCharactersString.length());
+		int codePoints[] = new int[numOfCharacters];
+		for (int i = 0, c = 0; c < numOfCharacters; c++) {
+			codePoints[c] = allCharactersString.codePointAt(i);
+			i = i + Character.charCount(codePoints[c]);
+		}
+		int wordsPerMask = SegmentMask.getNumOfWords(numOfCharacters);
+
+		// Primitive count masks of each signature variant, kept apart so that the counts of one variant are
+		// not matched with the counts of another
+		int numOfVariants = 0;
+		String variants[][] = new String[characterSignatures.length][];
+		for (int c = 0; c < characterSignatures.length; c++) {
+			variants[c] = characterSignatures[c].split(" ");
+			numOfVariants = Math.max(numOfVariants, variants[c].length);
+		}
+		int maxCount = LanguageTables.MAX_PRIMITIVE_COUNT;
+		SegmentMask countMasks[][][] = new SegmentMask[numOfVariants][PenSegment.NUM_OF_PRIMITIVES][maxCount + 1];
+		for (int v = 0; v < numOfVariants; v++) {
+			for (int p = 0; p < PenSegment.NUM_OF_PRIMITIVES; p++) {
+				for (int k = 0; k <= maxCount; k++) {
+					countMasks[v][p][k] = new SegmentMask(numOfCharacters);
+				}
+			}
+		}
+		int counts[] = new int[PenSegment.NUM_OF_PRIMITIVES];
+		for (int c = 0; c < Math.min(characterSignatures.length, numOfCharacters); c++) {
+			for (int v = 0; v < variants[c].length; v++) {
+				if (variants[c][v].length() == 0) continue;
+
+				LanguageTables.getPrimitiveCounts(variants[c][v].toCharArray(), variants[c][v].length(), counts);
+				for (int p = 0; p < PenSegment.NUM_OF_PRIMITIVES; p++) {
+					countMasks[v][p][counts[p]].set(c);
+				}
+			}
+		}
+
+		boolean hasCompoundCharacters = false;
+		for (int p = 0; p < PenSegment.NUM_OF_PRIMITIVES; p++) {
+			if (SegmentBitSet.isCompoundSegmentChar(PenSegment.PRIMITIVE_CHARS.charAt(p)) &&
+					!primitiveBitsets[p].mSegmentMask.isEmpty()) {
+				hasCompoundCharacters = true;
+			}
+		}
+
+		// Header, language name and characters, with dense masks to build the candidate table in
+		int numOfMasks = LanguageTables.getNumOfMasks(numOfVariants);
+		int wordsStart = LanguageTables.getWordsStart(language.length(), numOfCharacters, 0);
+		ByteBuffer pack = ByteBuffer.allocate(wordsStart + 8 * numOfMasks * wordsPerMask);
+		writeHeader(pack, language, codePoints, numOfVariants, hasCompoundCharacters ? LanguageTables.FLAG_HAS_COMPOUND_CHARACTERS : 0);
+
+		// Primitive masks, then count masks, then the candidate table built from them
+		LanguageTables tables = new LanguageTables(pack);
+		for (int p = 0; p < PenSegment.NUM_OF_PRIMITIVES; p++) {
+			SegmentMask mask = new SegmentMask(numOfCharacters);
+			mask.or(primitiveBitsets[p].mSegmentMask);
+			tables.writeMask(p, mask);
+		}
+		for (int v = 0; v < numOfVariants; v++) {
+			for (int p = 0; p < PenSegment.NUM_OF_PRIMITIVES; p++) {
+				for (int k = 0; k <= maxCount; k++) {
+					tables.writeMask(LanguageTables.getCountMaskNumber(v, p, k), countMasks[v][p][k]);
+				}
+			}
+		}
+		CandidateTable.write(tables);
+
+		return (wordsPerMask > MAX_DENSE_WORDS_PER_MASK) ? toSparse(tables, codePoints) : pack;
+	} // End of compile() method
+
+	// Writes the header, language name, code points of the characters and their index by code point of a pack
+	private static void writeHeader(ByteBuffer pack, String language, int codePoints[], int numOfVariants, int flags) {
+		pack.position(0);
+		pack.putInt(LanguageTables.PACK_MAGIC);
+		pack.putInt(LanguageTables.PACK_VERSION);
+		pack.putInt(codePoints.length);
+		pack.putInt(PenSegment.NUM_OF_PRIMITIVES);
+		pack.putInt(numOfVariants);
+		pack.putInt(LanguageTables.MAX_PRIMITIVE_COUNT);
+		pack.putInt(CandidateTable.MAX_NUM_OF_SEGMENTS);
+		pack.putInt(flags);
+		pack.putInt(language.length());
+		for (int i = 0; i < language.length(); i++) {
+			pack.putChar(language.charAt(i));
+		}
+
+		// Each character index goes with its code point in the low half of a long so that sorting sorts by code point
+		long sortedCodePoints[] = new long[codePoints.length];
+		for (int c = 0; c < codePoints.length; c++) {
+			sortedCodePoints[c] = ((long) codePoints[c] << 32) | c;
+		}
+		Arrays.sort(sortedCodePoints);
+		pack.position(LanguageTables.getCodePointsStart(language.length()));
+		for (int c = 0; c < codePoints.length; c++) {
+			pack.putInt(codePoints[c]);
+		}
+		for (int c = 0; c < codePoints.length; c++) {
+			pack.putInt((int) sortedCodePoints[c]);
+		}
+		pack.position(0);
+	} // End of writeHeader() method
+
+	// Copies a pack of dense masks into one of sparse masks
+	private static ByteBuffer toSparse(LanguageTables denseTables, int codePoints[]) {
+		String language = denseTables.getLanguage();
+		int numOfMasks = LanguageTables.getNumOfMasks(denseTables.getNumOfVariants());
+		SegmentMask mask = new SegmentMask(codePoints.length);
+		int numOfWords = 0;
+		for (int m = 0; m < numOfMasks; m++) {
+			denseTables.copyMask(m, mask);
+			numOfWords = numOfWords + mask.getNumOfSparseWords();
+		}
+
+		int wordsStart = LanguageTables.getWordsStart(language.length(), codePoints.length, numOfMasks);
+		ByteBuffer pack = ByteBuffer.allocate(wordsStart + 8 * numOfWords);
+		writeHeader(pack, language, codePoints, denseTables.getNumOfVariants(), LanguageTables.FLAG_SPARSE_MASKS |
+				(denseTables.hasCompoundCharacters() ? LanguageTables.FLAG_HAS_COMPOUND_CHARACTERS : 0));
+		pack.position(LanguageTables.getCodePointsStart(language.length()) + 8 * codePoints.length);
+		IntBuffer directory = pack.slice().asIntBuffer();
+		pack.position(wordsStart);
+		LongBuffer words = pack.slice().asLongBuffer();
+		pack.position(0);
+		int offset = 0;
+		for (int m = 0; m < numOfMasks; m++) {
+			denseTables.copyMask(m, mask);
+			directory.put(m, offset);
+			mask.writeSparse(words, offset);
+			offset = offset + mask.getNumOfSparseWords();
+		}
+		return pack;
+	} // End of toSparse() method
+
+	// Writes a language pack to a stream
+	public static void write(LanguageTables tables, OutputStream out) throws IOException {
+		ByteBuffer pack = tables.getPack();
+		byte buffer[] = new byte[4096];
+		pack.position(0);
+		while (pack.hasRemaining()) {
+			int length = Math.min(buffer.length, pack.remaining());
+			pack.get(buffer, 0, length);
+			out.write(buffer, 0, length);
+		}
+	}
+
+	// Name of the language pack file of a language, e.g., "english.pack"
+	public static String getPackFileName(String language) {
+		return language.toLowerCase(Locale.ENGLISH) + PACK_FILE_EXTENSION;
+	}
+
+	/**
+	 * Writes the language packs of the built-in languages
+	 * @param args - directory to write the packs to
+	 */
+	public static void main(String args[]) throws IOException {
+		File directory = new File((args.length > 0) ? args[0] : ".");
+		LanguageTables languages[] = {new LanguageTables(SegmentBitSetEn.getLanguagePack()),
+				new LanguageTables(SegmentBitSetCn.getLanguagePack())};
+		for (int i = 0; i < languages.length; i++) {
+			File file = new File(directory, getPackFileName(languages[i].getLanguage()));
+			FileOutputStream out = new FileOutputStream(file);
+			try {
+				write(languages[i], out);
+			}
+			finally {
+				out.close();
+			}
+			System.out.println("Wrote " + file + " (" + languages[i].getPack().capacity() + " bytes)");
+		}
+	} // End of main() method
+
+}
@@ -0,0 +1,165 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+/**
+ * LanguagePackLoader loads the language packs written by LanguagePackCompiler.  Packs are memory-mapped
+ * where possible so that only the pages of the masks actually looked up are read.
+ */
+public class LanguagePackLoader {
+
+	// TAG for logging debugging info
+	private static final String TAG = "SkiggleLanguagePack";
+
+	// Directory of the language packs in the app's assets
+	public static final String ASSET_DIRECTORY = "languages/";
+
+	private static boolean sAssetsLoaded = false;
+
+	/**
+	 * Memory-maps a language pack file
+	 * @param file - language pack file
+	 * @throws IOException if the file cannot be read or is not a language pack
+	 */
+	public static LanguageTables map(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			return map(in.getChannel(), 0, file.length());
+		}
+		finally {
+			in.close(); // The mapping stays valid after the channel is closed
+		}
+	}
+
+	private static LanguageTables map(FileChannel channel, long offset, long length) throws IOException {
+		try {
+			return new LanguageTables(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads a language pack into memory, e.g., from a compressed asset that cannot be mapped
+	 * @throws IOException if the stream cannot be read or is not a language pack
+	 */
+	public static LanguageTables read(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte buffer[] = new byte[4096];
+		int length;
+		while ((length = in.read(buffer)) > 0) {
+			bytes.write(buffer, 0, length);
+		}
+		try {
+			return new LanguageTables(ByteBuffer.wrap(bytes.toByteArray()));
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Loads a language pack from the app's assets.  The asset is mapped through its file descriptor if it
+	 * is stored uncompressed in the APK, and read into memory otherwise.
+	 * @param assetName - name of the asset, e.g., "languages/english.pack"
+	 * @throws FileNotFoundException if there is no such asset
+	 */
+	public static LanguageTables loadAsset(Context context, String assetName) throws IOException {
+		AssetManager assets = context.getAssets();
+		AssetFileDescriptor fd = null;
+		try {
+			fd = assets.openFd(assetName);
+		}
+		catch (FileNotFoundException e) {
+			// Either no such asset or it is compressed, which open() below tells apart
+		}
+
+		if (fd != null) {
+			try {
+				FileInputStream in = fd.createInputStream();
+				return map(in.getChannel(), fd.getStartOffset(), fd.getLength());
+			}
+			finally {
+				fd.close();
+			}
+		}
+
+		InputStream in = assets.open(assetName);
+		try {
+			return read(in);
+		}
+		finally {
+			in.close();
+		}
+	} // End of loadAsset() method
+
+	/**
+	 * Registers the language packs found in the app's assets (see LanguagePackCompiler.main()) in place of
+	 * the built-in definitions, once.  Languages without a pack keep using the built-in definitions, and packs
+	 * of other languages (e.g., Greek or Cyrillic) add those languages.
+	 */
+	public static synchronized void loadAssetPacks(Context context) {
+		if (sAssetsLoaded || (context == null)) return;
+		sAssetsLoaded = true;
+
+		String packNames[] = null;
+		try {
+			packNames = context.getAssets().list(ASSET_DIRECTORY.substring(0, ASSET_DIRECTORY.length() - 1));
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Cannot list language packs", e);
+		}
+		if (packNames == null) return;
+
+		for (int i = 0; i < packNames.length; i++) {
+			if (!packNames[i].endsWith(LanguagePackCompiler.PACK_FILE_EXTENSION)) continue;
+
+			String assetName = ASSET_DIRECTORY + packNames[i];
+			try {
+				LanguageTables tables = loadAsset(context, assetName);
+				if (packNames[i].equals(LanguagePackCompiler.getPackFileName(tables.getLanguage()))) {
+					LanguageTables.setLanguageTables(tables);
+				}
+				else {
+					Log.w(TAG, assetName + " is a pack for " + tables.getLanguage());
+				}
+			}
+			catch (IOException e) {
+				Log.w(TAG, "Cannot load language pack " + assetName, e);
+			}
+		}
+	} // End of loadAssetPacks() method
+
+}
@@ -0,0 +1,451 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.HashMap;
+
+import com.android.skiggle.chinese.SegmentBitSetCn;
+import com.android.skiggle.english.SegmentBitSetEn;
+
+/**
+ * LanguageTables holds the recognition tables of one language: its characters, the masks of the
+ * characters with each primitive, the primitive count masks of the character signatures and the
+ * candidate table built from them.  Characters are Unicode code points, so scripts beyond the Basic
+ * Multilingual Plane fit, and they are found by binary search of the pack's index of code points.  The tables are read in place from a language pack (see
+ * LanguagePackCompiler), which is either compiled in memory from the built-in definitions or
+ * memory-mapped by LanguagePackLoader, so only the header is read up front and the masks are read
+ * as they are looked up.  The tables are never changed, so one LanguageTables can be shared by any
+ * number of RecognitionContext objects on any number of threads.
+ */
+public class LanguageTables {
+
+	// Counts of a primitive from this number up share one count mask
+	public static final int MAX_PRIMITIVE_COUNT = 7;
+
+	// Alternative interpretations of a character are looked up for at most this many of its most ambiguous segments
+	public static final int MAX_NUM_OF_AMBIGUOUS_SEGMENTS = 3;
+	// Interpretations whose score (the product of the scores of their alternative primitives) is lower are not looked up
+	public static final float MIN_INTERPRETATION_SCORE = 0.1F;
+
+	// Language pack header, a big-endian int each, followed by the language name (two bytes per char), then,
+	// 4-byte aligned, the code point of each character and the character indices in the order of their code
+	// points, then the word index of each mask if they are sparse and then, 8-byte aligned, the masks as longs.
+	// Masks are numbered in the order they are laid out: primitive masks, count masks, candidate table.
+	public static final int PACK_MAGIC = 0x534B4C50; // "SKLP"
+	public static final int PACK_VERSION = 2;
+	static final int HEADER_MAGIC = 0;
+	static final int HEADER_VERSION = 1;
+	static final int HEADER_NUM_OF_CHARACTERS = 2;
+	static final int HEADER_NUM_OF_PRIMITIVES = 3;
+	static final int HEADER_NUM_OF_VARIANTS = 4;
+	static final int HEADER_MAX_PRIMITIVE_COUNT = 5;
+	static final int HEADER_MAX_NUM_OF_SEGMENTS = 6;
+	static final int HEADER_FLAGS = 7;
+	static final int HEADER_LANGUAGE_NAME_LENGTH = 8;
+	static final int HEADER_SIZE = 9 * 4; // In bytes
+	static final int FLAG_HAS_COMPOUND_CHARACTERS = 1;
+	static final int FLAG_SPARSE_MASKS = 2; // Masks are stored sparse (see SegmentMask.writeSparse())
+
+	// Tables registered for each language, e.g., loaded from a language pack, and built-in ones built on first use
+	private static final HashMap<String, LanguageTables> sTables = new HashMap<String, LanguageTables>();
+
+	private final ByteBuffer mPack;
+	private final String mLanguage; // E.g., Skiggle.ENGLISH_MODE or Skiggle.CHINESE_MODE
+	private final int mNumOfCharacters;
+	private final IntBuffer mCodePoints; // Code point of each character
+	private final IntBuffer mCodePointIndex; // Character indices sorted by code point
+	private final LongBuffer mWords; // All the masks, laid out as below
+	private final IntBuffer mMaskDirectory; // Word index of each mask if they are sparse, or null if dense
+	private final int mWordsPerMask;
+	private final int mNumOfVariants;
+	private final boolean mHasCompoundCharacters;
+
+	// Candidate characters for every multiset of primitives, built from the count masks
+	private final CandidateTable mCandidateTable;
+
+	/**
+	 * Reads the header of a language pack.  The pack is not copied and must not be changed afterwards.
+	 * @param pack - language pack from LanguagePackCompiler
+	 * @throws IllegalArgumentException if the pack is not a language pack of this version
+	 */
+	public LanguageTables(ByteBuffer pack) {
+		mPack = pack.duplicate();
+		if ((mPack.getInt(4 * HEADER_MAGIC) != PACK_MAGIC) || (mPack.getInt(4 * HEADER_VERSION) != PACK_VERSION)) {
+			throw new IllegalArgumentException("Not a Skiggle language pack of version " + PACK_VERSION);
+		}
+		if ((mPack.getInt(4 * HEADER_NUM_OF_PRIMITIVES) != PenSegment.NUM_OF_PRIMITIVES) ||
+				(mPack.getInt(4 * HEADER_MAX_PRIMITIVE_COUNT) != MAX_PRIMITIVE_COUNT) ||
+				(mPack.getInt(4 * HEADER_MAX_NUM_OF_SEGMENTS) != CandidateTable.MAX_NUM_OF_SEGMENTS)) {
+			throw new IllegalArgumentException("Language pack compiled for other primitives");
+		}
+
+		mNumOfCharacters = mPack.getInt(4 * HEADER_NUM_OF_CHARACTERS);
+		mNumOfVariants = mPack.getInt(4 * HEADER_NUM_OF_VARIANTS);
+		int flags = mPack.getInt(4 * HEADER_FLAGS);
+		mHasCompoundCharacters = (flags & FLAG_HAS_COMPOUND_CHARACTERS) != 0;
+		boolean isSparse = (flags & FLAG_SPARSE_MASKS) != 0;
+		int languageNameLength = mPack.getInt(4 * HEADER_LANGUAGE_NAME_LENGTH);
+
+		mPack.position(HEADER_SIZE);
+		CharBuffer chars = mPack.slice().asCharBuffer();
+		StringBuilder language = new StringBuilder(languageNameLength);
+		for (int i = 0; i < languageNameLength; i++) {
+			language.append(chars.get(i));
+		}
+		mLanguage = language.toString();
+
+		mPack.position(getCodePointsStart(languageNameLength));
+		IntBuffer ints = mPack.slice().asIntBuffer();
+		mCodePoints = ints.duplicate();
+		ints.position(mNumOfCharacters);
+		mCodePointIndex = ints.slice();
+		int numOfMasks = getNumOfMasks(mNumOfVariants);
+		if (isSparse) {
+			ints.position(2 * mNumOfCharacters);
+			mMaskDirectory = ints.slice();
+		}
+		else {
+			mMaskDirectory = null;
+		}
+
+		mPack.position(getWordsStart(languageNameLength, mNumOfCharacters, isSparse ? numOfMasks : 0));
+		mWords = mPack.slice().asLongBuffer();
+		mPack.position(0);
+		mWordsPerMask = SegmentMask.getNumOfWords(mNumOfCharacters);
+		mCandidateTable = new CandidateTable(this, getCandidatesMaskNumber(mNumOfVariants));
+	} // End of LanguageTables() constructor
+
+	// Byte offset of the code points of the characters in a pack
+	static int getCodePointsStart(int languageNameLength) {
+		int nameEnd = HEADER_SIZE + 2 * languageNameLength;
+		return (nameEnd + 3) & ~3;
+	}
+
+	// Byte offset of the masks in a pack
+	static int getWordsStart(int languageNameLength, int numOfCharacters, int numOfMaskDirectoryEntries) {
+		int directoryEnd = getCodePointsStart(languageNameLength) + 4 * (2 * numOfCharacters + numOfMaskDirectoryEntries);
+		return (directoryEnd + 7) & ~7;
+	}
+
+	// Number of the first mask of the candidate table, after the primitive masks and the count masks
+	static int getCandidatesMaskNumber(int numOfVariants) {
+		return PenSegment.NUM_OF_PRIMITIVES + numOfVariants * PenSegment.NUM_OF_PRIMITIVES * (MAX_PRIMITIVE_COUNT + 1);
+	}
+
+	// Number of masks of a pack
+	static int getNumOfMasks(int numOfVariants) {
+		return getCandidatesMaskNumber(numOfVariants) + CandidateTable.getNumOfMasks();
+	}
+
+	// Number of the count mask of a variant, primitive and count
+	static int getCountMaskNumber(int variant, int primitive, int count) {
+		return PenSegment.NUM_OF_PRIMITIVES + (variant * PenSegment.NUM_OF_PRIMITIVES + primitive) * (MAX_PRIMITIVE_COUNT + 1)
+			+ count;
+	}
+
+	// Makes a mask a copy of a mask of the pack
+	void copyMask(int maskNumber, SegmentMask mask) {
+		if (mMaskDirectory == null) {
+			mask.copy(mWords, maskNumber * mWordsPerMask);
+		}
+		else {
+			mask.copySparse(mWords, mMaskDirectory.get(maskNumber));
+		}
+	}
+
+	// ANDs a mask of the pack into a mask, in place
+	void andMask(int maskNumber, SegmentMask mask) {
+		if (mMaskDirectory == null) {
+			mask.and(mWords, maskNumber * mWordsPerMask);
+		}
+		else {
+			mask.andSparse(mWords, mMaskDirectory.get(maskNumber));
+		}
+	}
+
+	// Stores a mask in a pack of dense masks being compiled.  Used by LanguagePackCompiler and CandidateTable only.
+	void writeMask(int maskNumber, SegmentMask mask) {
+		mask.write(mWords, maskNumber * mWordsPerMask);
+	}
+
+	boolean hasSparseMasks() {
+		return mMaskDirectory != null;
+	}
+
+	int getNumOfVariants() {
+		return mNumOfVariants;
+	}
+
+	/**
+	 * Gets the tables of a language: the ones registered for it if any, or else the built-in ones,
+	 * compiled the first time
+	 * @param language - Skiggle.ENGLISH_MODE (default) or Skiggle.CHINESE_MODE; compared by value so
+	 * a language name read back from the preferences works too
+	 */
+	public static synchronized LanguageTables getLanguageTables(String language) {
+		LanguageTables tables = (language == null) ? null : sTables.get(language);
+		if (tables != null) return tables;
+
+		if (Skiggle.CHINESE_MODE.equals(language)) {
+			tables = new LanguageTables(SegmentBitSetCn.getLanguagePack());
+		}
+		else {
+			// Languages with neither a pack nor a built-in definition are written in English
+			tables = sTables.get(Skiggle.ENGLISH_MODE);
+			if (tables != null) return tables;
+			tables = new LanguageTables(SegmentBitSetEn.getLanguagePack());
+		}
+		sTables.put(tables.getLanguage(), tables);
+		return tables;
+	}
+
+	/**
+	 * Registers the tables of their language, e.g., ones loaded from a language pack, in place of the built-in
+	 * ones if any.  Languages without built-in definitions, e.g., Greek, are recognized from their candidates only.
+	 */
+	public static synchronized void setLanguageTables(LanguageTables tables) {
+		sTables.put(tables.getLanguage(), tables);
+	}
+
+	CandidateTable getCandidateTable() {
+		return mCandidateTable;
+	}
+
+	// Read-only view of the whole language pack, e.g., for writing it to a file
+	public ByteBuffer getPack() {
+		return mPack.asReadOnlyBuffer();
+	}
+
+	public String getLanguage() {
+		return mLanguage;
+	}
+
+	// Number of characters of the language
+	public int getNumOfCharacters() {
+		return mNumOfCharacters;
+	}
+
+	// Code point of the character of the language at a mask bit index
+	public int getCodePoint(int index) {
+		return mCodePoints.get(index);
+	}
+
+	// Character of the language at a mask bit index, for characters of the Basic Multilingual Plane such as the
+	// ones the matchers take; use getCodePoint() for the others
+	public char getCharacter(int index) {
+		return (char) mCodePoints.get(index);
+	}
+
+	// Mask bit index of a code point of the language, or -1 if it is not one of its characters
+	public int getCodePointIndex(int codePoint) {
+		int low = 0;
+		int high = mNumOfCharacters - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int index = mCodePointIndex.get(middle);
+			int middleCodePoint = mCodePoints.get(index);
+			if (middleCodePoint < codePoint) {
+				low = middle + 1;
+			}
+			else if (middleCodePoint > codePoint) {
+				high = middle - 1;
+			}
+			else {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	// Mask bit index of a character of the language, or -1 if it is not one
+	public int getCharacterIndex(char c) {
+		return getCodePointIndex(c);
+	}
+
+	// Mask of the characters of the language in a string; characters not in the language are left out
+	public void getMask(String characters, SegmentMask mask) {
+		mask.clear();
+		for (int i = 0; i < characters.length(); i = i + Character.charCount(characters.codePointAt(i))) {
+			int index = getCodePointIndex(characters.codePointAt(i));
+			if (index >= 0) {
+				mask.set(index);
+			}
+		}
+	}
+
+	// Characters of the language whose bits are set in the mask
+	public String getCharacters(SegmentMask mask) {
+		StringBuilder characters = new StringBuilder(mask.cardinality());
+		for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+			characters.appendCodePoint(getCodePoint(i));
+		}
+		return characters.toString();
+	}
+
+	/**
+	 * Gets the characters with a primitive
+	 * @param primitiveChar - primitive character, e.g., PenSegment.VLINE_CHAR
+	 * @param mask - mask of getNumOfCharacters() bits set to the characters; cleared if not a primitive
+	 */
+	public void getPrimitiveMask(char primitiveChar, SegmentMask mask) {
+		int index = PenSegment.getPrimitiveIndex(primitiveChar);
+		if (index < 0) {
+			mask.clear();
+		}
+		else {
+			copyMask(index, mask);
+		}
+	}
+
+	// Characters with a primitive as a string, e.g. for debugging
+	public String getCharactersForPrimitive(char primitiveChar) {
+		SegmentMask mask = new SegmentMask(mNumOfCharacters);
+		getPrimitiveMask(primitiveChar, mask);
+		return getCharacters(mask);
+	}
+
+	// Check to see if any character of the language is made with a compound primitive
+	public boolean hasCompoundCharacters() {
+		return mHasCompoundCharacters;
+	}
+
+	/**
+	 * Counts the segments of each primitive, clamped to MAX_PRIMITIVE_COUNT
+	 * @param primitives - primitive character of each segment
+	 * @param numOfSegments - number of segments
+	 * @param counts - count of each primitive, indexed by PenSegment.getPrimitiveIndex()
+	 * @return false if a segment is not a primitive
+	 */
+	public static boolean getPrimitiveCounts(char primitives[], int numOfSegments, int counts[]) {
+		for (int p = 0; p < PenSegment.NUM_OF_PRIMITIVES; p++) {
+			counts[p] = 0;
+		}
+		for (int i = 0; i < numOfSegments; i++) {
+			int index = PenSegment.getPrimitiveIndex(primitives[i]);
+			if (index < 0) return false;
+			if (counts[index] < MAX_PRIMITIVE_COUNT) {
+				counts[index]++;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Filters the characters by the primitive counts of their signatures, so that only the characters with
+	 * a signature variant of the same counts of every primitive are left.  Works for any number of segments.
+	 * @param counts - count of each primitive, from getPrimitiveCounts()
+	 * @param candidates - mask of getNumOfCharacters() bits set to the candidates
+	 * @param variantCandidates - scratch mask of getNumOfCharacters() bits for the candidates of one variant
+	 */
+	public void filterCandidates(int counts[], SegmentMask candidates, SegmentMask variantCandidates) {
+		candidates.clear();
+		for (int v = 0; v < mNumOfVariants; v++) {
+			copyMask(getCountMaskNumber(v, 0, counts[0]), variantCandidates);
+			for (int p = 1; p < PenSegment.NUM_OF_PRIMITIVES; p++) {
+				andMask(getCountMaskNumber(v, p, counts[p]), variantCandidates);
+			}
+			candidates.or(variantCandidates);
+		}
+	}
+
+	/**
+	 * Gets the mask of candidate characters for the segments of a character from the candidate table.
+	 * The mask is the context's and only good until its next lookup; go through it with nextSetBit()
+	 * and getCharacter().
+	 * @param primitives - primitive character of each segment
+	 * @param numOfSegments - number of segments
+	 * @param context - recognition context whose scratch space is used for the lookup
+	 */
+	public SegmentMask getCandidates(char primitives[], int numOfSegments, RecognitionContext context) {
+		return mCandidateTable.getCandidates(primitives, numOfSegments, context);
+	}
+
+	/**
+	 * Gets the candidates of the other interpretations of a character, where some of its ambiguous segments are
+	 * taken to be their alternative primitives.  Each interpretation is one lookup, as in getCandidates(), and
+	 * its score is the product of the scores of the alternatives taken.  The candidates are the union over the
+	 * interpretations, each scored by the best interpretation it is a candidate of.  The mask and scores are the
+	 * context's and only good until its next lookup.
+	 * @param primitives - primitive character of each segment
+	 * @param alternatives - alternative primitive of each segment, or 0 if none
+	 * @param alternativeScores - score of each alternative, from 0 to 1
+	 * @param numOfSegments - number of segments
+	 * @param context - recognition context whose scratch space is used; its mCandidateScores are set
+	 */
+	public SegmentMask getAlternativeCandidates(char primitives[], char alternatives[], float alternativeScores[],
+			int numOfSegments, RecognitionContext context) {
+		SegmentMask union = context.mAlternativeCandidates;
+		float scores[] = context.mCandidateScores;
+		union.clear();
+
+		// The most ambiguous segments, highest score first
+		int ambiguousSegments[] = context.mAmbiguousSegments;
+		int numOfAmbiguousSegments = 0;
+		for (int i = 0; i < numOfSegments; i++) {
+			if ((alternatives[i] == 0) || (alternativeScores[i] < MIN_INTERPRETATION_SCORE)) continue;
+			int j = Math.min(numOfAmbiguousSegments, MAX_NUM_OF_AMBIGUOUS_SEGMENTS - 1);
+			if ((j == numOfAmbiguousSegments) || (alternativeScores[i] > alternativeScores[ambiguousSegments[j]])) {
+				while ((j > 0) && (alternativeScores[i] > alternativeScores[ambiguousSegments[j - 1]])) {
+					ambiguousSegments[j] = ambiguousSegments[j - 1];
+					j--;
+				}
+				ambiguousSegments[j] = i;
+				numOfAmbiguousSegments = Math.min(numOfAmbiguousSegments + 1, MAX_NUM_OF_AMBIGUOUS_SEGMENTS);
+			}
+		}
+		if (numOfAmbiguousSegments == 0) return union;
+
+		if (context.mInterpretation.length < numOfSegments) {
+			context.mInterpretation = new char[numOfSegments];
+		}
+		char interpretation[] = context.mInterpretation;
+		System.arraycopy(primitives, 0, interpretation, 0, numOfSegments);
+
+		// Each non-empty subset of the ambiguous segments taken as their alternatives
+		for (int subset = 1; subset < (1 << numOfAmbiguousSegments); subset++) {
+			float score = 1.0F;
+			for (int k = 0; k < numOfAmbiguousSegments; k++) {
+				int i = ambiguousSegments[k];
+				if ((subset & (1 << k)) != 0) {
+					interpretation[i] = alternatives[i];
+					score = score * alternativeScores[i];
+				}
+				else {
+					interpretation[i] = primitives[i];
+				}
+			}
+			if (score < MIN_INTERPRETATION_SCORE) continue;
+
+			SegmentMask candidates = getCandidates(interpretation, numOfSegments, context);
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+				if (!union.get(i) || (scores[i] < score)) {
+					union.set(i);
+					scores[i] = score;
+				}
+			}
+		}
+		return union;
+	} // End of getAlternativeCandidates() method
+
+}
@@ -0,0 +1,58 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * Centered moving average over 2 * halfWindow + 1 points.  The window shrinks symmetrically near the ends
+ * of the stroke so that the end points are left where they are.
+ */
+public class MovingAverageFilter implements StrokeFilter {
+
+	private int mHalfWindow;
+	private float mHistory[]; // Original (unfiltered) values of the last halfWindow points already overwritten
+
+	public MovingAverageFilter(int halfWindow) {
+		mHalfWindow = halfWindow;
+		mHistory = new float[halfWindow + 1];
+	} // End of MovingAverageFilter() constructor
+
+	public void filter(float x[], float y[], int numOfPoints) {
+		filterValues(x, numOfPoints);
+		filterValues(y, numOfPoints);
+	} // End of filter() method
+
+	private void filterValues(float values[], int numOfPoints) {
+		int historySize = mHalfWindow + 1;
+		for (int i = 0; i < numOfPoints; i++) {
+			int w = Math.min(mHalfWindow, Math.min(i, numOfPoints - 1 - i));
+			float sum = 0.0F;
+			// Points before i have been overwritten so read their original values from the history
+			for (int j = i - w; j < i; j++) {
+				sum = sum + mHistory[j % historySize];
+			}
+			for (int j = i; j <= i + w; j++) {
+				sum = sum + values[j];
+			}
+			mHistory[i % historySize] = values[i];
+			values[i] = sum/(2 * w + 1);
+		}
+	} // End of filterValues() method
+
+}
@@ -0,0 +1,67 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * One-euro filter (Casiez, Roussel and Vogel, CHI 2012): an exponential low pass filter whose cutoff rises
+ * with the speed of the pen, so slow jitter is smoothed heavily while fast, deliberate movement lags little.
+ * The points are taken to be evenly spaced along the stroke, so the sample rate is one point per unit time
+ * and the cutoffs are in cycles per point (at most .5).  As it only looks back along the stroke, the first
+ * point is left where it is but the others, the last one included, lag behind the pen.
+ */
+public class OneEuroFilter implements StrokeFilter {
+
+	private float mMinCutoff; // Cutoff when the pen is still
+	private float mBeta; // Increase in cutoff per unit of speed
+	private float mDerivativeCutoff; // Cutoff for smoothing the speed
+
+	public OneEuroFilter(float minCutoff, float beta, float derivativeCutoff) {
+		mMinCutoff = minCutoff;
+		mBeta = beta;
+		mDerivativeCutoff = derivativeCutoff;
+	} // End of OneEuroFilter() constructor
+
+	// Smoothing factor of the exponential filter for the given cutoff at one sample per unit time
+	private static float getAlpha(float cutoff) {
+		float tau = (float) (1.0/(2 * Math.PI * cutoff));
+		return 1.0F/(1.0F + tau);
+	}
+
+	public void filter(float x[], float y[], int numOfPoints) {
+		filterValues(x, numOfPoints);
+		filterValues(y, numOfPoints);
+	} // End of filter() method
+
+	private void filterValues(float values[], int numOfPoints) {
+		if (numOfPoints < 2) return;
+
+		float derivativeAlpha = getAlpha(mDerivativeCutoff);
+		float prevValue = values[0];
+		float prevDerivative = 0.0F;
+		for (int i = 1; i < numOfPoints; i++) {
+			float derivative = derivativeAlpha * (values[i] - prevValue) + (1 - derivativeAlpha) * prevDerivative;
+			float alpha = getAlpha(mMinCutoff + mBeta * Math.abs(derivative));
+			values[i] = alpha * values[i] + (1 - alpha) * prevValue;
+			prevValue = values[i];
+			prevDerivative = derivative;
+		}
+	} // End of filterValues() method
+
+}
@@ -0,0 +1,161 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ParallelMatcher runs the matchers of many candidates (e.g., of Chinese characters) on a small pool of threads,
+ * one per core, with the calling thread as one of them.  The threads take the candidates in order, so those scored
+ * are always the first ones, and stop taking more once enough of them match outright.  Each thread runs the
+ * matchers on its own view of the character (see PenCharacter.newMatcherView()), as matchers set its matchedChar.
+ */
+public class ParallelMatcher {
+
+	// Fewest candidates whose matchers are run in parallel; fewer are run serially, as handing them out costs more
+	public static final int DEFAULT_MIN_CANDIDATES = 24;
+
+	private static final int NUM_OF_THREADS = Runtime.getRuntime().availableProcessors();
+	private static ExecutorService sExecutor = null; // Threads besides the calling one, started when first needed
+
+	// One run of the matchers of a list of candidates, taken in order by each thread that runs it
+	private static class Job implements Runnable {
+		private final PenCharacter mPenCharacter;
+		private final char mCandidates[];
+		private final int mNumOfCandidates;
+		private final int mNumOfMatches; // Matches outright after which no more candidates are taken
+		private final float mScores[];
+		private final Character mMatchedChars[];
+		private final long mNanos[];
+		private final AtomicInteger mNextCandidate = new AtomicInteger(0);
+		private final AtomicInteger mMatchCount = new AtomicInteger(0);
+		private final CountDownLatch mDone;
+
+		Job(PenCharacter pChar, char candidates[], int numOfCandidates, int numOfMatches, float scores[],
+				Character matchedChars[], long nanos[], int numOfThreads) {
+			mPenCharacter = pChar;
+			mCandidates = candidates;
+			mNumOfCandidates = numOfCandidates;
+			mNumOfMatches = numOfMatches;
+			mScores = scores;
+			mMatchedChars = matchedChars;
+			mNanos = nanos;
+			mDone = new CountDownLatch(numOfThreads);
+		}
+
+		public void run() {
+			try {
+				PenCharacter view = mPenCharacter.newMatcherView();
+				while (mMatchCount.get() < mNumOfMatches) {
+					int i = mNextCandidate.getAndIncrement();
+					if (i >= mNumOfCandidates) break;
+					long startTime = System.nanoTime();
+					float score;
+					try {
+						score = view.scoreMatcher(mCandidates[i]);
+					}
+					catch (RuntimeException e) {
+						break; // Left unscored, so the caller runs it again and gets the exception itself
+					}
+					mMatchedChars[i] = (score == 1.0F) ? view.matchedChar : null;
+					mNanos[i] = System.nanoTime() - startTime;
+					mScores[i] = score;
+					if (score == 1.0F) {
+						mMatchCount.incrementAndGet();
+					}
+				}
+			}
+			finally {
+				mDone.countDown();
+			}
+		} // End of run() method
+
+		// Number of candidates taken, all of which are done once every thread is
+		int getNumOfTaken() {
+			return Math.min(mNextCandidate.get(), mNumOfCandidates);
+		}
+	} // End of Job class
+
+	// Number of threads, the calling one included, that the matchers are run on
+	public static int getNumOfThreads() {
+		return NUM_OF_THREADS;
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (sExecutor == null) {
+			sExecutor = Executors.newFixedThreadPool(NUM_OF_THREADS - 1, new ThreadFactory() {
+				private int mNumOfThreads = 0;
+
+				public synchronized Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "SkiggleMatcher-" + (++mNumOfThreads));
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sExecutor;
+	} // End of getExecutor() method
+
+	/**
+	 * Scores the candidates of a character on all the threads.  The matchers only read the character, so its
+	 * features and points must be computed (see PenCharacter.prepareMatcherViews()) before they start.
+	 * @param pChar - character to match, not changed
+	 * @param candidates - candidates in the order to take them
+	 * @param numOfCandidates - number of candidates
+	 * @param numOfMatches - number of candidates that match outright (score 1) after which no more are taken
+	 * @param scores - filled with the score of each candidate taken, left as it is for the others
+	 * @param matchedChars - filled with the character matched by each candidate that scored 1, null for the others
+	 * @param nanos - filled with the time the matcher of each candidate taken took
+	 * @return number of candidates taken, the first ones, all scored unless their matchers threw
+	 */
+	public static int scoreCandidates(PenCharacter pChar, char candidates[], int numOfCandidates, int numOfMatches,
+			float scores[], Character matchedChars[], long nanos[]) {
+		int numOfThreads = Math.min(NUM_OF_THREADS, numOfCandidates);
+		Job job = new Job(pChar, candidates, numOfCandidates, numOfMatches, scores, matchedChars, nanos, numOfThreads);
+		if (numOfThreads > 1) {
+			ExecutorService executor = getExecutor();
+			for (int i = 1; i < numOfThreads; i++) {
+				executor.execute(job);
+			}
+		}
+		job.run();
+
+		// Wait for the others, as they fill in the arrays, even if interrupted
+		boolean isInterrupted = false;
+		while (true) {
+			try {
+				job.mDone.await();
+				break;
+			}
+			catch (InterruptedException e) {
+				isInterrupted = true;
+			}
+		}
+		if (isInterrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return job.getNumOfTaken();
+	} // End of scoreCandidates() method
+
+}
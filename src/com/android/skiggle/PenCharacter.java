@@ -32,8 +32,10 @@ import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.RectF;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Vector;
 
 /**
  * Represents the character written
@@ -48,24 +50,112 @@ public class PenCharacter {
 	
 	protected static int DEFAULT_PENCHARACTER_STROKE_WIDTH = 4;
 
-	protected Vector<PenStroke> mPenStrokes;
+	private static final HashMap<String, CharacterEngine[]> sEngines = new HashMap<String, CharacterEngine[]>(); // See getEngines()
+
+	protected ArrayList<PenStroke> mPenStrokes;
 	public float penStrokesMinX = Skiggle.sDefaultWritePadWidth; //x-coord of left edge of rectangle bounding all strokes
 	public float penStrokesMaxX = 0.0F; //x-coord of right edge of rectangle bounding all strokes
 	public float penStrokesMinY = Skiggle.sDefaultWritePadHeight; //y-coord of top edge of rectangle bounding all strokes
 	public float penStrokesMaxY = 0.0F; //y-coord of bottom edge of rectangle bounding all strokes
 
-	public Vector<PenSegment> penSegments;
+	public ArrayList<PenSegment> penSegments;
+	public SegmentStore segmentStore; // Features of penSegments, read by the matchers
+	private CharacterFeatures mFeatures = null; // Geometry of the segments and their pairs, read by the matchers
+	private PointCloud mPointCloud = null; // Points of the strokes, read by the template engines
+	private boolean mIsMatcherView = false; // Made by newMatcherView(), so its features are shared and only read
 
 	public Character matchedChar = null; // Character matched so far
-	public String penCharacterCandidates = "";
+	public SegmentMask penCharacterCandidates = null; // Candidates found by findMatchingCharacter(), copied from the context
+	protected LanguageTables mLanguageTables = null; // Tables of the language the candidates were found for
+	private int mCandidateOrder[] = null; // Character indices in the order of the user's prior, if any
+	private SegmentMask mMatcherCandidates = null; // Candidates left by the prefilter, whose matchers are run
+	private SegmentMask mAlternativeCandidates = null; // Candidates of other interpretations of ambiguous segments only
+	private SegmentMask mShapeCandidates = null; // Characters matched by shape that aren't candidates of the segments
+	private float mAlternativeScores[] = null; // Score of each of mAlternativeCandidates, from 0 to 1
+	private float mRankedScores[] = null; // Scratch space for getRankedCandidates()
+
+	// Candidates with the best scores from their matchers, best first, from findMatchingCharacter()
+	private int mScoredCandidates[] = null; // Character indices of the candidates
+	private float mScoredScores[] = null; // Their scores, from 0 (exclusive) to 1
+	private Character mScoredChars[] = null; // Characters they matched if their scores are 1, e.g., 'k' for 'K'
+	private int mNumOfScored = 0;
+	private int mMaxNumOfScored = 0; // Candidates ranked by score, from RecognitionContext.getNumOfScoredCandidates()
+	private float mBounds[] = null; // Scratch space for findMatchingCharacter(), bounds of the scores by rank
+
+	// Scratch space for scoreInParallel()
+	private SegmentMask mParallelCandidates = null;
+	private int mParallelIndices[] = null;
+	private char mParallelChars[] = null;
+	private float mParallelScores[] = null;
+	private Character mParallelMatchedChars[] = null;
+	private long mParallelNanos[] = null;
+
+	// Outcomes of the matchers run on the segments as they are, reused until the segments or the language change
+	private float mMemoScores[] = null; // Score of each candidate whose matcher was run, or NaN if it was not
+	private Character mMemoChars[] = null; // Characters matched by those that scored 1
+	private CharacterEngine mEngines[] = null; // Engines of the language of the candidates, for scoreMatcher()
+	private LanguageTables mMemoTables = null; // Language of the outcomes
+	private int mMemoNumOfSegments = -1; // Number of segments of the outcomes
+	private int mMemoNumOfClears = -1; // segmentStore.getNumOfClears() of the outcomes
+	private SegmentMask mMemoKeptCandidates = null; // Candidates whose outcomes were kept from an earlier recognition
 	protected float mFontSize = Skiggle.sDefaultFontSize;
 
 	public PenCharacter () {
-		mPenStrokes = new Vector<PenStroke>();
-		penSegments = new Vector<PenSegment>();
+		mPenStrokes = new ArrayList<PenStroke>();
+		penSegments = new ArrayList<PenSegment>();
+		segmentStore = new SegmentStore();
 		//		mPenStrokes = new Vector<PenSegment>();
 	} // End of PenCharacter() constructor
 
+	// Copy of the character with the strokes and segments written so far; the strokes and segments themselves are
+	// shared, and the features of the segments are copied so that only those of segments added to the copy are computed
+	public PenCharacter (PenCharacter pChar) {
+		mPenStrokes = new ArrayList<PenStroke>(pChar.mPenStrokes);
+		penSegments = new ArrayList<PenSegment>(pChar.penSegments);
+		segmentStore = new SegmentStore(pChar.segmentStore);
+		if (pChar.mFeatures != null) {
+			mFeatures = new CharacterFeatures(pChar.mFeatures, segmentStore);
+		}
+		mPointCloud = pChar.mPointCloud;
+		penStrokesMinX = pChar.penStrokesMinX;
+		penStrokesMaxX = pChar.penStrokesMaxX;
+		penStrokesMinY = pChar.penStrokesMinY;
+		penStrokesMaxY = pChar.penStrokesMaxY;
+	} // End of PenCharacter() copy constructor
+
+	// Computes the features and points that matcher views share, which must be done before any view is made
+	void prepareMatcherViews() {
+		getFeatures();
+		getPointCloud();
+	} // End of prepareMatcherViews() method
+
+	// View of the character for running matchers on another thread.  It shares the segments and their features,
+	// which the matchers only read, so that only matchedChar is its own.  The features are never updated through
+	// a view, so they must have been computed by prepareMatcherViews(), and no segments added since.
+	PenCharacter newMatcherView() {
+		if ((mFeatures == null) || !mFeatures.isUpdated(segmentStore) || (mPointCloud == null)) {
+			throw new IllegalStateException("Matcher view of a character not prepared for it");
+		}
+		PenCharacter view = new PenCharacter(mPenStrokes, penSegments, segmentStore, mFeatures);
+		view.mIsMatcherView = true;
+		view.mLanguageTables = mLanguageTables;
+		view.mEngines = mEngines;
+		view.mPointCloud = mPointCloud;
+		view.penStrokesMinX = penStrokesMinX;
+		view.penStrokesMaxX = penStrokesMaxX;
+		view.penStrokesMinY = penStrokesMinY;
+		view.penStrokesMaxY = penStrokesMaxY;
+		return view;
+	} // End of newMatcherView() method
+
+	private PenCharacter (ArrayList<PenStroke> penStrokes, ArrayList<PenSegment> pSegments, SegmentStore store,
+			CharacterFeatures features) {
+		mPenStrokes = penStrokes;
+		penSegments = pSegments;
+		segmentStore = store;
+		mFeatures = features;
+	} // End of PenCharacter() constructor
+
 	public void addStroke (PenStroke penStroke) {
 
 		// Update the x, y coordinates of the rectangle bounding all the strokes for the character
@@ -75,21 +165,57 @@ public class PenCharacter {
 		penStrokesMaxY = Math.max(penStrokesMaxY, penStroke.boundingRectF.bottom);
 
 		mPenStrokes.add(penStroke);
+		mPointCloud = null;
 	} // End of addStroke() method
 
 	// Break up stroke into one or more segments
-	public void addSegments (PenStroke penStroke, Canvas canvas, Paint textPaint) {
+	public void addSegments (PenStroke penStroke, Canvas canvas, Paint textPaint, RecognitionContext context) {
 
-		penSegments.addAll(penStroke.segmentStroke(canvas, textPaint));
+		addSegments(penStroke.segmentStroke(canvas, textPaint, context));
 		
-		printSegmentCharacters(penSegments.elementAt(0).boundingRectF, canvas, textPaint);
+		printSegmentCharacters(penSegments.get(0).boundingRectF, canvas, textPaint);
+	} // End of addSegments() method
+
+	// Add segments already found for a stroke
+	public void addSegments (ArrayList<PenSegment> pSegments) {
+
+		penSegments.addAll(pSegments);
+		segmentStore.addAll(pSegments);
 	} // End of addSegments() method
 
+	/**
+	 * Gets the geometry of the segments written so far (ends, mid-points, gaps between pairs, etc.), computed for
+	 * each segment once, the first time it is asked for after the segment is added
+	 */
+	public CharacterFeatures getFeatures() {
+		if (mIsMatcherView) {
+			// Shared with the other threads, so only read
+			if (!mFeatures.isUpdated(segmentStore)) {
+				throw new IllegalStateException("Segments added to a character while its matchers were running");
+			}
+			return mFeatures;
+		}
+		if (mFeatures == null) {
+			mFeatures = new CharacterFeatures();
+		}
+		mFeatures.update(segmentStore);
+		return mFeatures;
+	} // End of getFeatures() method
+
+	// Gets the points of the strokes written so far, computed the first time they are asked for after a stroke is added
+	public PointCloud getPointCloud() {
+		if (mPointCloud == null) {
+			mPointCloud = new PointCloud(mPenStrokes);
+		}
+		return mPointCloud;
+	} // End of getPointCloud() method
+
 	// Reset mPenStrokes
 	public void resetStrokes() {
 		for (Iterator<PenStroke> i = mPenStrokes.iterator(); i.hasNext();) {
 			i.next().reset();
 		}
+		mPointCloud = null;
 	} // End of resetStrokes() method
 
 	// Reset penSegments
@@ -99,128 +225,397 @@ public class PenCharacter {
 		}
 	} // End of resetSegments() method
 	
-	// Method for getting candidate characters
-	// Get candidates for 1-stroke character
-	private String get1SegmentCharacterCandidates() {
-		char strokeChar0 = penSegments.elementAt(0).penSegmentCharacter;
-		SegmentBitSet sBitSet0 = SegmentBitSet.getSegmentBitSetForChar(strokeChar0);
-		sBitSet0.mSegmentBitSet.and(SegmentBitSet.sOneSegmentBitset.mSegmentBitSet);
-//		pChar.penCharacterCandidates = sBitSet0.getCharacters();
-		return sBitSet0.getCharacters();
-	} // End of get1SegmentCharacterCandidates() method
-
-	// Get candidates for 2-stroke character
-	private String get2SegmentCharacterCandidates() {
-		char strokeChar0 = penSegments.elementAt(0).penSegmentCharacter;
-		char strokeChar1 = penSegments.elementAt(1).penSegmentCharacter;
-		SegmentBitSet sBitSet0 = SegmentBitSet.getSegmentBitSetForChar(strokeChar0);
-		SegmentBitSet sBitSet1 = SegmentBitSet.getSegmentBitSetForChar(strokeChar1);
-		SegmentBitSet s2SegmentsBitSet = new SegmentBitSet();
-		s2SegmentsBitSet.copy(SegmentBitSet.sTwoSegmentsBitset);
-
-		sBitSet0.mSegmentBitSet.and(sBitSet1.mSegmentBitSet);
-
-		sBitSet0.mSegmentBitSet.and(s2SegmentsBitSet.mSegmentBitSet);
-
-//		pChar.penCharacterCandidates = sBitSet0.getCharacters();
-		return sBitSet0.getCharacters();
-
-	} // End of get2SegmentCharacterCandidates() method
-
-	// Get candidates for 3-stroke character
-	private String get3SegmentCharacterCandidates() {
-		char strokeChar0 = penSegments.elementAt(0).penSegmentCharacter;
-		char strokeChar1 = penSegments.elementAt(1).penSegmentCharacter;
-		char strokeChar2 = penSegments.elementAt(2).penSegmentCharacter;
-		SegmentBitSet sBitSet0 = SegmentBitSet.getSegmentBitSetForChar(strokeChar0);
-		SegmentBitSet sBitSet1 = SegmentBitSet.getSegmentBitSetForChar(strokeChar1);
-		SegmentBitSet sBitSet2 = SegmentBitSet.getSegmentBitSetForChar(strokeChar2);
-		SegmentBitSet s3SegmentsBitSet = new SegmentBitSet();
-		s3SegmentsBitSet.copy(SegmentBitSet.sThreeSegmentsBitset);
-
-		sBitSet0.mSegmentBitSet.and(sBitSet1.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(sBitSet2.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(s3SegmentsBitSet.mSegmentBitSet);
-
-//		pChar.penCharacterCandidates = sBitSet0.getCharacters();
-		return sBitSet0.getCharacters();
-		
-	} // End of get3SegmentCharacterCandidates() method
-
-	// Get candidates for 4-stroke character
-	private String get4SegmentCharacterCandidates() {
-		char strokeChar0 = penSegments.elementAt(0).penSegmentCharacter;
-		char strokeChar1 = penSegments.elementAt(1).penSegmentCharacter;
-		char strokeChar2 = penSegments.elementAt(2).penSegmentCharacter;
-		char strokeChar3 = penSegments.elementAt(3).penSegmentCharacter;
-
-		SegmentBitSet sBitSet0 = SegmentBitSet.getSegmentBitSetForChar(strokeChar0);
-		SegmentBitSet sBitSet1 = SegmentBitSet.getSegmentBitSetForChar(strokeChar1);
-		SegmentBitSet sBitSet2 = SegmentBitSet.getSegmentBitSetForChar(strokeChar2);
-		SegmentBitSet sBitSet3 = SegmentBitSet.getSegmentBitSetForChar(strokeChar3);
-		SegmentBitSet s4SegmentsBitSet = new SegmentBitSet();
-		s4SegmentsBitSet.copy(SegmentBitSet.sFourSegmentsBitset);
-
-		sBitSet0.mSegmentBitSet.and(sBitSet1.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(sBitSet2.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(sBitSet3.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(s4SegmentsBitSet.mSegmentBitSet);
-
-//		pChar.penCharacterCandidates = sBitSet0.getCharacters();
-		return sBitSet0.getCharacters();
-	} // End of get4SegmentCharacterCandidates() method
-	
 	/**
 	 * Gets the candidate characters
-	 * @param pChar: PenCharacter object with the strokes (as the character is being built up)
+	 * The candidates are looked up in the candidate table of the language by the primitives of the segments
 	 */	
-	public String getCharacterCandidates() {
-		String str = "";
-		switch (penSegments.size()) {
-		case 1: 
-			str = get1SegmentCharacterCandidates();
-			break;
-		case 2: 
-			str = get2SegmentCharacterCandidates();
-			break;
-		case 3: 
-			str = get3SegmentCharacterCandidates();
-			break;
-		case 4: 
-			str = get4SegmentCharacterCandidates();
-			break;
-		default:
-			str = "???";
-		}
-		return str;
+	public SegmentMask getCharacterCandidates(RecognitionContext context) {
+		return context.getCandidates(segmentStore.primitives, segmentStore.numOfSegments);
 	} // ENd of getCharacterCandidates() method
+
+	/**
+	 * Gets the index of the next candidate at or after fromIndex, for going through the candidates with
+	 * for (int i = pChar.nextCandidateIndex(0); i >= 0; i = pChar.nextCandidateIndex(i + 1))
+	 * @return index of the candidate in the language's characters (see LanguageTables.getCharacter()), or -1 if no more
+	 */
+	public int nextCandidateIndex(int fromIndex) {
+		return (penCharacterCandidates == null) ? -1 : penCharacterCandidates.nextSetBit(fromIndex);
+	}
 	
-	public boolean matcher(char c) {
-		boolean flag = false;
-		if (Skiggle.sLanguage == Skiggle.ENGLISH_MODE) {
-			flag = PenCharacterEn.matchCharacter(c, this);			
+	/**
+	 * Gets the engines that match the characters of a language, in the order they are tried
+	 * @param language - e.g., Skiggle.ENGLISH_MODE
+	 */
+	public static synchronized CharacterEngine[] getEngines(String language) {
+		CharacterEngine engines[] = sEngines.get(language);
+		if (engines == null) {
+			if (Skiggle.ENGLISH_MODE.equals(language)) {
+				engines = new CharacterEngine[] {PenCharacterEn.ENGINE, PenCharacterEn.getPointCloudEngine()};
+			}
+			else if (Skiggle.CHINESE_MODE.equals(language)) {
+				engines = new CharacterEngine[] {PenCharacterCn.ENGINE};
+			}
+			else {
+				engines = new CharacterEngine[0];
+			}
+			sEngines.put(language, engines);
 		}
-		else if (Skiggle.sLanguage == Skiggle.CHINESE_MODE) {
-			flag = PenCharacterCn.matchCharacter(c, this);
+		return engines;
+	} // End of getEngines() method
+
+	// Adds an engine to a language, tried after the others, e.g., one of templates learned from the user's writing
+	public static synchronized void addEngine(String language, CharacterEngine engine) {
+		CharacterEngine engines[] = getEngines(language);
+		CharacterEngine newEngines[] = new CharacterEngine[engines.length + 1];
+		System.arraycopy(engines, 0, newEngines, 0, engines.length);
+		newEngines[engines.length] = engine;
+		sEngines.put(language, newEngines);
+	} // End of addEngine() method
+
+	private CharacterEngine[] getEngines() {
+		if (mEngines == null) {
+			mEngines = getEngines(mLanguageTables.getLanguage());
 		}
-		return flag;
+		return mEngines;
+	}
+
+	public boolean matcher(char c) {
+		return (scoreMatcher(c) == 1.0F);
 	} // End of matchCharacter() method
+
+	// Scores how well the segments match a character, from 0 to 1, by the best of the engines with a matcher for it;
+	// 1 is a match and sets matchedChar
+	public float scoreMatcher(char c) {
+		CharacterEngine engines[] = getEngines();
+		float score = 0.0F;
+		for (int i = 0; (i < engines.length) && (score < 1.0F); i++) {
+			if (engines[i].hasMatcher(c)) {
+				score = Math.max(score, engines[i].score(c, this));
+			}
+		}
+		return score;
+	} // End of scoreMatcher() method
+
+	// Gets a bound on the score of a character's matchers, found without running them
+	public float getMatcherUpperBound(char c) {
+		CharacterEngine engines[] = getEngines();
+		float bound = 0.0F;
+		for (int i = 0; (i < engines.length) && (bound < 1.0F); i++) {
+			if (engines[i].hasMatcher(c)) {
+				bound = Math.max(bound, engines[i].getUpperBound(c, this));
+			}
+		}
+		return bound;
+	} // End of getMatcherUpperBound() method
 	
-	public void findMatchingCharacter (Canvas canvas, Paint textPaint, String lang) {
+	public void findMatchingCharacter (Canvas canvas, Paint textPaint, RecognitionContext context) {
+
+		mLanguageTables = context.getLanguageTables();
+		mEngines = getEngines(mLanguageTables.getLanguage());
+		CharacterPrior prior = context.getCharacterPrior();
+		mCandidateOrder = (prior == null) ? null : prior.getOrder();
+		if (penCharacterCandidates == null) {
+			penCharacterCandidates = new SegmentMask(0);
+		}
+		penCharacterCandidates.copy(getCharacterCandidates(context)); // The context's mask is reused by its next lookup
 
-		penCharacterCandidates = getCharacterCandidates();
+		// Candidates of taking ambiguous segments as their next most likely primitives, offered after the others
+		if (mAlternativeCandidates == null) {
+			mAlternativeCandidates = new SegmentMask(0);
+		}
+		mAlternativeCandidates.copy(context.getAlternativeCandidates(segmentStore));
+		mAlternativeCandidates.andNot(penCharacterCandidates);
+		if ((mAlternativeScores == null) || (mAlternativeScores.length != mAlternativeCandidates.size())) {
+			mAlternativeScores = new float[mAlternativeCandidates.size()];
+		}
+		for (int i = mAlternativeCandidates.nextSetBit(0); i >= 0; i = mAlternativeCandidates.nextSetBit(i + 1)) {
+			mAlternativeScores[i] = context.getCandidateScore(i);
+		}
 
-		int len = penCharacterCandidates.length();
-		
-		for (int i = 0; i < len; i++) {
-			if (matcher(penCharacterCandidates.charAt(i))) {
-				break;
-			} // Found matching character so exit the for loop
+		// Run the matchers only on the candidates the geometry of the strokes allows, those the user writes most first
+		CharacterPrefilter prefilter = context.getCharacterPrefilter();
+		if (mMatcherCandidates == null) {
+			mMatcherCandidates = new SegmentMask(0);
+		}
+		prefilter.filter(this, penCharacterCandidates, mMatcherCandidates);
+		RecognitionStats stats = RecognitionStats.isEnabled() ? RecognitionStats.getRecognitionStats(mLanguageTables) : null;
+		int numOfSurvivors = (stats == null) ? 0 : mMatcherCandidates.cardinality();
+		startMatcherMemo();
+
+		// Bound the score of each survivor, then the best score of those at or after each, so that the matchers stop
+		// as soon as none left can beat the k-th best
+		int numOfRanks = (mCandidateOrder == null) ? mLanguageTables.getNumOfCharacters() : mCandidateOrder.length;
+		if ((mBounds == null) || (mBounds.length < numOfRanks + 1)) {
+			mBounds = new float[numOfRanks + 1];
+		}
+		mBounds[numOfRanks] = 0.0F;
+		for (int r = numOfRanks - 1; r >= 0; r--) {
+			mBounds[r] = mBounds[r + 1];
+			int index = getRankedCandidateIndex(r);
+			if (mMatcherCandidates.get(index)) {
+				float bound = Float.isNaN(mMemoScores[index]) ? getMatcherUpperBound(mLanguageTables.getCharacter(index)) :
+					mMemoScores[index];
+				mBounds[r] = Math.max(mBounds[r], bound);
+			}
+		}
 
+		int numOfMemoHits = 0;
+		int numOfScored = context.getNumOfScoredCandidates();
+		if ((mScoredCandidates == null) || (mScoredCandidates.length < numOfScored)) {
+			mScoredCandidates = new int[numOfScored];
+			mScoredScores = new float[numOfScored];
+			mScoredChars = new Character[numOfScored];
+		}
+		mMaxNumOfScored = numOfScored;
+		int numOfMatchersRun = scoreInParallel(context, prefilter, numOfScored, stats);
+
+		mNumOfScored = 0;
+		for (int r = nextCandidateRank(mMatcherCandidates, 0); r >= 0; r = nextCandidateRank(mMatcherCandidates, r + 1)) {
+			if ((mNumOfScored == numOfScored) && (mScoredScores[numOfScored - 1] >= mBounds[r])) break;
+			int index = getRankedCandidateIndex(r);
+			if (scoreCandidate(index, stats)) {
+				numOfMatchersRun++;
+			}
+			else if (mMemoKeptCandidates.get(index)) {
+				numOfMemoHits++;
+			}
+			insertScored(index, mMemoScores[index]);
+			prefilter.clearSharedMatcher(index, mMatcherCandidates);
+		}
+		boolean isMatched = (mNumOfScored > 0) && (mScoredScores[0] == 1.0F);
+
+		// Characters matched by their shape whatever the primitives (e.g., templates of a '6' segmented as a 'U'),
+		// tried only if none of the candidates of the segments match
+		if (!isMatched) {
+			if (mShapeCandidates == null) {
+				mShapeCandidates = new SegmentMask(0);
+			}
+			mShapeCandidates.copy(context.getShapeCandidates());
+			mShapeCandidates.andNot(penCharacterCandidates);
+			for (int i = mShapeCandidates.nextSetBit(0); (i >= 0) && !isMatched; i = mShapeCandidates.nextSetBit(i + 1)) {
+				if (scoreCandidate(i, stats)) {
+					numOfMatchersRun++;
+				}
+				else if (mMemoKeptCandidates.get(i)) {
+					numOfMemoHits++;
+				}
+				if (mMemoScores[i] == 1.0F) {
+					insertScored(i, 1.0F); // Goes first, as none of the others scored 1
+					penCharacterCandidates.set(i);
+					mAlternativeCandidates.clear(i);
+					isMatched = true;
+				}
+			}
+		}
+		if (!penCharacterCandidates.isEmpty()) {
+			matchedChar = isMatched ? mScoredChars[0] : null;
+		}
+		if (stats != null) {
+			stats.recordLookup(segmentStore.primitives, segmentStore.numOfSegments, penCharacterCandidates.cardinality(),
+					numOfSurvivors, numOfMatchersRun, numOfMemoHits, isMatched);
 		}
 
 	} // End of findMatchingCharacter() method
 
+	/**
+	 * Scores the candidates not yet scored on these segments on all the cores, if they are many, in the order the
+	 * loop of findMatchingCharacter() takes them, so that it finds their scores in the memo.  Those taken stop once
+	 * numOfMatches of them match outright, as the loop would stop there.
+	 * @return number of matchers run
+	 */
+	private int scoreInParallel(RecognitionContext context, CharacterPrefilter prefilter, int numOfMatches,
+			RecognitionStats stats) {
+		if ((ParallelMatcher.getNumOfThreads() < 2) ||
+				(mMatcherCandidates.cardinality() < context.getMinParallelCandidates())) return 0;
+
+		// List the candidates as the loop takes them, one of those sharing a matcher
+		int numOfCharacters = mLanguageTables.getNumOfCharacters();
+		if ((mParallelCandidates == null) || (mParallelCandidates.size() != numOfCharacters)) {
+			mParallelCandidates = new SegmentMask(numOfCharacters);
+			mParallelIndices = new int[numOfCharacters];
+			mParallelChars = new char[numOfCharacters];
+			mParallelScores = new float[numOfCharacters];
+			mParallelMatchedChars = new Character[numOfCharacters];
+			mParallelNanos = new long[numOfCharacters];
+		}
+		mParallelCandidates.copy(mMatcherCandidates);
+		int numOfCandidates = 0;
+		for (int r = nextCandidateRank(mParallelCandidates, 0); r >= 0; r = nextCandidateRank(mParallelCandidates, r + 1)) {
+			int index = getRankedCandidateIndex(r);
+			if (Float.isNaN(mMemoScores[index])) {
+				mParallelIndices[numOfCandidates] = index;
+				mParallelChars[numOfCandidates] = mLanguageTables.getCharacter(index);
+				mParallelScores[numOfCandidates] = Float.NaN;
+				numOfCandidates++;
+			}
+			prefilter.clearSharedMatcher(index, mParallelCandidates);
+		}
+		if (numOfCandidates < context.getMinParallelCandidates()) return 0;
+
+		prepareMatcherViews();
+		int numOfTaken = ParallelMatcher.scoreCandidates(this, mParallelChars, numOfCandidates, numOfMatches,
+				mParallelScores, mParallelMatchedChars, mParallelNanos);
+		int numOfMatchersRun = 0;
+		for (int i = 0; i < numOfTaken; i++) {
+			if (Float.isNaN(mParallelScores[i])) continue; // Its matcher threw, so it is run again by the loop
+			int index = mParallelIndices[i];
+			mMemoScores[index] = mParallelScores[i];
+			mMemoChars[index] = mParallelMatchedChars[i];
+			numOfMatchersRun++;
+			if (stats != null) {
+				stats.recordMatcher(index, mParallelScores[i] == 1.0F, mParallelNanos[i]);
+			}
+		}
+		return numOfMatchersRun;
+	} // End of scoreInParallel() method
+
+	// Runs the matcher of a candidate unless it has been run on these segments, keeping its score and the character it
+	// matched in the memo; returns whether it was run
+	private boolean scoreCandidate(int index, RecognitionStats stats) {
+		if (!Float.isNaN(mMemoScores[index])) return false;
+
+		long startTime = (stats == null) ? 0 : System.nanoTime();
+		mMemoScores[index] = scoreMatcher(mLanguageTables.getCharacter(index));
+		mMemoChars[index] = (mMemoScores[index] == 1.0F) ? matchedChar : null;
+		if (stats != null) {
+			stats.recordMatcher(index, mMemoScores[index] == 1.0F, System.nanoTime() - startTime);
+		}
+		return true;
+	} // End of scoreCandidate() method
+
+	// Adds a candidate to those with the best scores if it scores above 0 and beats the worst of them, after those
+	// with the same score as it (the ones of earlier ranks)
+	private void insertScored(int index, float score) {
+		if ((score <= 0.0F) || ((mNumOfScored == mMaxNumOfScored) && (score <= mScoredScores[mMaxNumOfScored - 1]))) return;
+
+		int j = Math.min(mNumOfScored, mMaxNumOfScored - 1);
+		while ((j > 0) && (mScoredScores[j - 1] < score)) {
+			mScoredCandidates[j] = mScoredCandidates[j - 1];
+			mScoredScores[j] = mScoredScores[j - 1];
+			mScoredChars[j] = mScoredChars[j - 1];
+			j--;
+		}
+		mScoredCandidates[j] = index;
+		mScoredScores[j] = score;
+		mScoredChars[j] = mMemoChars[index];
+		mNumOfScored = Math.min(mNumOfScored + 1, mMaxNumOfScored);
+	} // End of insertScored() method
+
+	// Keeps the outcomes of the matchers if the segments and the language are the ones they were run on, or else
+	// forgets them.  Segments are only ever added, so the same number of segments since the last clear means the same ones.
+	// The scores depend on nothing else, so those kept still hold when the field profile or the prior has changed the
+	// candidates (see WritingArea.setFieldProfile()).
+	private void startMatcherMemo() {
+		int numOfCharacters = mLanguageTables.getNumOfCharacters();
+		if ((mMemoKeptCandidates == null) || (mMemoKeptCandidates.size() != numOfCharacters)) {
+			mMemoKeptCandidates = new SegmentMask(numOfCharacters);
+		}
+		mMemoKeptCandidates.clear();
+		if ((mMemoTables != mLanguageTables) || (mMemoNumOfSegments != segmentStore.numOfSegments) ||
+				(mMemoNumOfClears != segmentStore.getNumOfClears())) {
+			if ((mMemoScores == null) || (mMemoScores.length != numOfCharacters)) {
+				mMemoScores = new float[numOfCharacters];
+				mMemoChars = new Character[mMemoScores.length];
+			}
+			Arrays.fill(mMemoScores, Float.NaN);
+			Arrays.fill(mMemoChars, null);
+			mMemoTables = mLanguageTables;
+			mMemoNumOfSegments = segmentStore.numOfSegments;
+			mMemoNumOfClears = segmentStore.getNumOfClears();
+		}
+		else {
+			for (int i = 0; i < numOfCharacters; i++) {
+				if (!Float.isNaN(mMemoScores[i])) {
+					mMemoKeptCandidates.set(i);
+				}
+			}
+		}
+	} // End of startMatcherMemo() method
+
+	/**
+	 * Gets the rank of the next candidate in a mask at or after fromRank in the order of the user's prior, or of the
+	 * language's characters if there is no prior
+	 * @return rank of the candidate, for getRankedCandidateIndex(), or -1 if no more
+	 */
+	private int nextCandidateRank(SegmentMask candidates, int fromRank) {
+		if (candidates == null) return -1;
+		if (mCandidateOrder == null) return candidates.nextSetBit(fromRank);
+		for (int r = fromRank; r < mCandidateOrder.length; r++) {
+			if (candidates.get(mCandidateOrder[r])) return r;
+		}
+		return -1;
+	}
+
+	private int getRankedCandidateIndex(int rank) {
+		return (mCandidateOrder == null) ? rank : mCandidateOrder[rank];
+	}
+
+	private char getRankedCandidate(int rank) {
+		return mLanguageTables.getCharacter(getRankedCandidateIndex(rank));
+	}
+
+	/**
+	 * Gets the candidates with the best scores from their matchers first, best first and with the characters matched
+	 * by those that scored 1, then the rest in the order of the user's prior and then those of other interpretations
+	 * of ambiguous segments, most likely first
+	 * @param buffer - buffer to fill with the candidates, with room for LanguageTables.getNumOfCharacters() + 1 characters
+	 * @return the number of candidates put in the buffer
+	 */
+	public int getRankedCandidates(char buffer[]) {
+		int numOfCandidates = 0;
+		for (int i = 0; i < mNumOfScored; i++) {
+			char c = (mScoredChars[i] != null) ? mScoredChars[i].charValue() :
+				mLanguageTables.getCharacter(mScoredCandidates[i]);
+			if (indexOf(buffer, numOfCandidates, c) < 0) {
+				buffer[numOfCandidates++] = c;
+			}
+		}
+		int numOfFirst = numOfCandidates;
+		for (int r = nextCandidateRank(penCharacterCandidates, 0); r >= 0; r = nextCandidateRank(penCharacterCandidates, r + 1)) {
+			char c = getRankedCandidate(r);
+			if (indexOf(buffer, numOfFirst, c) < 0) {
+				buffer[numOfCandidates++] = c;
+			}
+		}
+
+		// Insert each alternative after those with the same or higher scores, so ties keep the order of the prior
+		int firstAlternative = numOfCandidates;
+		if ((mRankedScores == null) || (mRankedScores.length < buffer.length)) {
+			mRankedScores = new float[buffer.length];
+		}
+		for (int r = nextCandidateRank(mAlternativeCandidates, 0); r >= 0; r = nextCandidateRank(mAlternativeCandidates, r + 1)) {
+			char c = getRankedCandidate(r);
+			if (indexOf(buffer, numOfFirst, c) >= 0) continue;
+			float score = mAlternativeScores[getRankedCandidateIndex(r)];
+			int j = numOfCandidates;
+			while ((j > firstAlternative) && (mRankedScores[j - 1] < score)) {
+				buffer[j] = buffer[j - 1];
+				mRankedScores[j] = mRankedScores[j - 1];
+				j--;
+			}
+			buffer[j] = c;
+			mRankedScores[j] = score;
+			numOfCandidates++;
+		}
+		return numOfCandidates;
+	} // End of getRankedCandidates() method
+
+	private static int indexOf(char array[], int length, char c) {
+		for (int i = 0; i < length; i++) {
+			if (array[i] == c) return i;
+		}
+		return -1;
+	}
+
+	// Gets the candidates in the order of the language's characters as a string, e.g. for printing
+	public String getCandidatesString() {
+		StringBuilder str = new StringBuilder();
+		for (int i = nextCandidateIndex(0); i >= 0; i = nextCandidateIndex(i + 1)) {
+			str.appendCodePoint(mLanguageTables.getCodePoint(i));
+		}
+		return str.toString();
+	} // End of getCandidatesString() method
+
 /*	
 	// Not used - 12/16/2011
 	// Methods for printing PenCharacterEn
@@ -252,7 +647,7 @@ public class PenCharacter {
 
 		if (penCharacterCandidates != null) {
 //			printString(penCharacterCandidates, canvas, x, y, paint);
-			PenUtil.printString(penCharacterCandidates, x, y, canvas, paint);
+			PenUtil.printString(getCandidatesString(), x, y, canvas, paint);
 		}
 	} // End of printPenCharacter() method
 	
@@ -263,7 +658,7 @@ public class PenCharacter {
 		PenSegment segment;
 		String str = "Len:" + Integer.toString(numOfSegments);
 		for (int i =0; i < numOfSegments; i++) {
-			segment = penSegments.elementAt(i);
+			segment = penSegments.get(i);
 			str = str + ", " + segment.penSegmentCharacter;
 			//Log.i(PenCharacterEn.TAG, "Segment " + i);
 			//segment.printSegmentPointsData();
@@ -285,7 +680,7 @@ public class PenCharacter {
 		PenSegment segment;
 
 		for (int i =0; i < numOfSegments; i++) {
-			segment = penSegments.elementAt(i);			
+			segment = penSegments.get(i);			
 		}
 	} // End of printCharacters() method
 	
@@ -20,7 +20,7 @@
 package com.android.skiggle;
 
 
-import java.util.Vector;
+import java.util.ArrayList;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -46,6 +46,16 @@ public class PenSegment extends Path {
 	public static final char DOT_CHAR = '.'; // Dot or period segment
 	public static final char U_CHAR = 'U'; // U segment
 
+	// Compound primitives, each made of two or three of the primitives above drawn in one motion
+	public static final char HOOK_CHAR = 'J'; // Line going down that curls up to the left at the bottom, as in 'J' and 'j'
+	public static final char ZIGZAG_CHAR = 'Z'; // Line (or BC) going right, FSLASH going down and left, then line going right, as in 'Z' and '2'
+	public static final char SCURVE_CHAR = 'S'; // FC followed by BC, as in 'S'
+	public static final char CHECK_CHAR = 'V'; // Line going down followed by a line going up, as in 'V'
+
+	// All the primitives above; the position of a primitive in the string is its primitive index
+	public static final String PRIMITIVE_CHARS = "|-/\\(O).UJZSV";
+	public static final int NUM_OF_PRIMITIVES = PRIMITIVE_CHARS.length();
+
 	private static final float MAX_CURVATURE_FOR_STRAIGHTLINE = 0.005F; // Maximum curvature (kappa) for a stroke to be a straight line
 
 	private static final float VLINE_ANGLE = 90.0F; // Line goes from N to S
@@ -62,6 +72,21 @@ public class PenSegment extends Path {
 
 	private static final int NUM_OF_POINTS_ON_STROKE = 20;
 
+	private static final int MIN_POINTS_PER_SPLIT = 2; // Min number of sampled points on each side of a split (.1 the stroke)
+	private static final float MAX_SPLIT_FIT_ERROR_RATIO = 0.5F; // Max ratio of the fit error after a split to that before it
+	private static final float MIN_FIT_RESIDUAL_FOR_SPLIT = 1.0F; // Min RMS fit residual (in pixels) of a segment worth splitting
+
+	private static final float MAX_LINE_FIT_RESIDUAL_RATIO = 0.05F; // Max ratio of the line fit residual to the length of a straight piece
+	private static final float MAX_CIRCLE_FIT_RESIDUAL_RATIO = 0.05F; // Max ratio of the circle fit residual to the length of a curved piece
+	private static final float MAX_COMPOUND_FIT_ERROR_RATIO = 0.5F; // Max ratio of the fit error of a 3-piece compound to that of the best 2 pieces
+	private static final float MIN_HOOK_CURL_RATIO = 0.15F; // Min distance, relative to the line, that a hook must curl back to the left
+	private static final float MIN_CHECK_ARM_RISE_RATIO = 0.3F; // Min height, relative to the whole check mark, of each end above the vertex
+
+	// Ambiguous segments get the next most likely primitive as an alternative, scored from 0 (at the limit) to 1 (as likely)
+	private static final float ALTERNATIVE_ANGLE_MARGIN = 10.0F; // Max angle (in degrees) of a line from the angle range of another line
+	private static final float ALTERNATIVE_KAPPA_RATIO = 2.0F; // Max ratio of the curvature of a segment to MAX_CURVATURE_FOR_STRAIGHTLINE, or its inverse
+	private static final float ALTERNATIVE_CLOSED_GAP_RATIO = 0.2F; // Max ratio of the gap between the ends of an open curve to its length
+
 	// Members
 	public Path penSegmentPath;
 	public PathMeasure penStrokeMeasure;
@@ -86,6 +111,10 @@ public class PenSegment extends Path {
 	public float tempMaxAbsKappaDiff = 0.0F; // temp
 	private String mTempHistBucketsStr = ""; // temp
 	public Character penSegmentCharacter;
+	public Character alternativeCharacter = null; // Next most likely primitive of an ambiguous segment, or null
+	public float alternativeScore = 0.0F; // How likely alternativeCharacter is next to penSegmentCharacter, from 0 to 1
+	public boolean hasCurvedStart = false; // For compound primitives, whether the first piece is curved (e.g. the top of a '2')
+	private SegmentMoments mMoments = new SegmentMoments(NUM_OF_POINTS_ON_STROKE); // Prefix sums over the sampled points
 
 	// Twenty element arrays
 	public float pointsX[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
@@ -117,6 +146,11 @@ public class PenSegment extends Path {
 		boundingRectWidth = Math.abs(boundingRectF.left - boundingRectF.right);
 	}
 
+	// Get the primitive index (position in PRIMITIVE_CHARS) of a primitive character, or -1 if it is not a primitive
+	public static int getPrimitiveIndex(char primitiveChar) {
+		return PRIMITIVE_CHARS.indexOf(primitiveChar);
+	}
+
 	public void addPath(Path srcPath) {
 
 		super.addPath(srcPath);		
@@ -148,12 +182,6 @@ public class PenSegment extends Path {
 		return (tempMaxAbsKappaDiff > MAX_ABS_KAPPA_DIFF_THRESHOLD) & (tempMaxAbsKappaDiff > 5.0 * Math.abs(avgKappa));
 	}
 
-	// Check to see if the segment length is at least .1 the total length
-	private boolean minSegmentLengthCheck(float segLength, float pathLength)
-	{
-		return (Math.min(pathLength - segLength, segLength) > .1 * pathLength);
-	}
-
 	private boolean checkLineAngle (double lineAngle, double angleThreshold) {
 
 		return 		
@@ -280,8 +308,8 @@ public class PenSegment extends Path {
 
 	}
 
-	// Compute the curvature at various points of the stroke
-	public void getCurvaturePoints(Canvas canvas, Paint textPaint) {
+	// Compute the curvature at various points of the stroke, smoothing the points with the filter chain first
+	public void getCurvaturePoints(Canvas canvas, Paint textPaint, StrokeFilterChain filterChain) {
 
 		int numOfSegments = NUM_OF_POINTS_ON_STROKE;
 		float posStart[] = {0.0F, 0.0F};
@@ -298,64 +326,57 @@ public class PenSegment extends Path {
 				0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F}; // array of curvature
 		float kappaDiff[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
 				0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F}; // array of difference of curvature
-		float sumAngle = 0.0F;
-		float sumKappa = 0.0F;
-		float sumX = 0.0F;
-		float sumY = 0.0F;
 		float maxAbsKappa = 0.0F;
 		float maxAbsKappaDiff = 0.0F;
 		float segmentLength = penStrokeLength/numOfSegments;
 		for (int i = 0; i < numOfSegments; i++) {
-
 			penStrokeMeasure.getPosTan(i * segmentLength, posStart, tanStart);
 			posX[i] = posStart[0];
 			posY[i] = posStart[1];
-			sumX = sumX + posX[i];
-			sumY = sumY + posY[i];
 			tanAngle[i] = (float) PenUtil.getAbsAngle(tanStart[1], tanStart[0]);
+		}
 
-			if (i > 0) {
+		// Smooth out the jitter before computing the curvature, which is very sensitive to it
+		filterChain.filter(posX, posY, numOfSegments);
 
-				sumAngle = sumAngle + tanAngle[i]; 
+		for (int i = 2; i < numOfSegments - 1; i++) {
 
-				if ((i > 1) && (i < numOfSegments - 1)) {
-					// need 3 points to compute kappa so ignore start and end points
-					kappa[i-1] = PenUtil.computeCurvatureM2003(posX[i-2], posY[i-2], posX[i-1], posY[i-1], posX[i], posY[i]);
-					// kappa[i-1] = computeCurvatureHK2003(posX[i-2], posY[i-2], posX[i-1], posY[i-1], posX[i], posY[i]);
-					sumKappa = sumKappa + kappa[i-1];
-					if (Math.abs(kappa[i-1])> maxAbsKappa) {
+			// need 3 points to compute kappa so ignore start and end points
+			kappa[i-1] = PenUtil.computeCurvatureM2003(posX[i-2], posY[i-2], posX[i-1], posY[i-1], posX[i], posY[i]);
+			// kappa[i-1] = computeCurvatureHK2003(posX[i-2], posY[i-2], posX[i-1], posY[i-1], posX[i], posY[i]);
+			if (Math.abs(kappa[i-1])> maxAbsKappa) {
 
-						// Update the x,y coordinates and max absolute kappa value
-						mMaxAbsKappaX = posX[i-1];
-						mMaxAbsKappaY = posY[i-1];
-						maxAbsKappa = Math.abs(kappa[i-1]);
-					}
+				// Update the x,y coordinates and max absolute kappa value
+				mMaxAbsKappaX = posX[i-1];
+				mMaxAbsKappaY = posY[i-1];
+				maxAbsKappa = Math.abs(kappa[i-1]);
+			}
 
-					kappaDiff[i-2] = kappa[i-1] - kappa[i-2]; // get difference in kappa of point and its next neighbor
-					if (Math.abs(kappaDiff[i-2])> maxAbsKappaDiff) {
+			kappaDiff[i-2] = kappa[i-1] - kappa[i-2]; // get difference in kappa of point and its next neighbor
+			if (Math.abs(kappaDiff[i-2])> maxAbsKappaDiff) {
 
-						// Update the x,y coordinates, index, and max absolute kappa difference accordingly
-						mMaxAbsKappaDiffX = posX[i-2];
-						mMaxAbsKappaDiffY = posY[i-2];
-						maxAbsKappaDiffIndex = i-2;
-						maxAbsKappaDiff = Math.abs(kappaDiff[i-2]);
-					}
-				}
+				// Update the x,y coordinates, index, and max absolute kappa difference accordingly
+				mMaxAbsKappaDiffX = posX[i-2];
+				mMaxAbsKappaDiffY = posY[i-2];
+				maxAbsKappaDiffIndex = i-2;
+				maxAbsKappaDiff = Math.abs(kappaDiff[i-2]);
 			}
-
-			avgX = sumX/numOfSegments;
-			avgY = sumY/numOfSegments;
-			mAvgAngle = sumAngle/(numOfSegments - 1);
-			avgKappa = sumKappa/(numOfSegments - 2);
-			mMaxAbsKappa = maxAbsKappa;
-			tempMaxAbsKappaDiff = maxAbsKappaDiff;
-
-			pointsX = posX;
-			pointsY = posY;
-			mTanAngle = tanAngle;
-			mKappa = kappa;
-			mKappaDiff = kappaDiff; 
 		}
+
+		// Build the prefix sums once so that the averages of this segment (and of any range of its points) are O(1)
+		mMoments.build(posX, posY, tanAngle, kappa, numOfSegments);
+		avgX = mMoments.getCentroidX(0, numOfSegments);
+		avgY = mMoments.getCentroidY(0, numOfSegments);
+		mAvgAngle = mMoments.getSumAngle(1, numOfSegments)/(numOfSegments - 1); // angle of the first point is not used
+		avgKappa = mMoments.getSumKappa(0, numOfSegments)/(numOfSegments - 2);
+		mMaxAbsKappa = maxAbsKappa;
+		tempMaxAbsKappaDiff = maxAbsKappaDiff;
+
+		pointsX = posX;
+		pointsY = posY;
+		mTanAngle = tanAngle;
+		mKappa = kappa;
+		mKappaDiff = kappaDiff; 
 		//printSegmentEndPoints(boundingRectF, posX, posY, tanAngle, kappa, canvas, textPaint);
 
 		int histBuckets[] = PenUtil.histogram(kappaDiff);
@@ -365,58 +386,191 @@ public class PenSegment extends Path {
 
 	}
 
-	public Vector<PenSegment> getStrokeSegments(Canvas canvas, Paint textPaint) {
+	/**
+	 * Finds the sampled point at which to split the segment into two by trying every candidate split point
+	 * (at least MIN_POINTS_PER_SPLIT points from either end) and picking the one where the two pieces fit
+	 * a line or a circle best.  Each try costs O(1) from the prefix sums.
+	 * @return - index of the first point of the second piece, or -1 if no split fits sufficiently better
+	 *           than the unsplit segment
+	 */
+	public int findBestSplitIndex() {
 
-		Vector<PenSegment> pSegments = new Vector<PenSegment>();
+		int bestSplitIndex = findBestSplitIndex(0, NUM_OF_POINTS_ON_STROKE);
+		float bestFitError = getSplitFitError(0, bestSplitIndex, NUM_OF_POINTS_ON_STROKE);
 
-		getCurvaturePoints(canvas, textPaint); // Get the curvature of each point of the segment
+		// Only split if the whole segment fits neither a line nor a circle and the two pieces fit markedly better
+		float wholeFitError = mMoments.getPrimitiveFitError(0, NUM_OF_POINTS_ON_STROKE);
+		if ((wholeFitError < MIN_FIT_RESIDUAL_FOR_SPLIT * NUM_OF_POINTS_ON_STROKE) ||
+				(bestFitError > MAX_SPLIT_FIT_ERROR_RATIO * wholeFitError))
+			bestSplitIndex = -1;
+		return bestSplitIndex;
+	}
 
+	// Find the index that splits the points in the range into the two pieces that best fit a line or a circle
+	private int findBestSplitIndex(int startIndex, int endIndex) {
 
-		if (hasMultipleSegments()) {
+		int bestSplitIndex = -1;
+		float bestFitError = Float.MAX_VALUE;
+		for (int i = startIndex + MIN_POINTS_PER_SPLIT; i <= endIndex - MIN_POINTS_PER_SPLIT; i++) {
+			float fitError = getSplitFitError(startIndex, i, endIndex);
+			if (fitError < bestFitError) {
+				bestFitError = fitError;
+				bestSplitIndex = i;
+			}
+		}
+		return bestSplitIndex;
+	}
 
-			int offSet = 5;
-
-			float pathLength1 = penStrokeMeasure.getLength();
-			float headLength1 = Math.max(0, maxAbsKappaDiffIndex + 1 - offSet) * (pathLength1/NUM_OF_POINTS_ON_STROKE);
-			float tailLength1 = Math.min(pathLength1, maxAbsKappaDiffIndex + offSet) * (pathLength1/NUM_OF_POINTS_ON_STROKE);
-			Path path2 = new Path();
-
-			if (penStrokeMeasure.getSegment(headLength1, tailLength1, path2, true)) {
-				PenSegment pSegment2 = new PenSegment(path2);
-				pSegment2.getCurvaturePoints(canvas, textPaint);
-
-				float pathLength2 = pSegment2.penStrokeMeasure.getLength();
-				// Set length of the head (first segment) to a default value - start of path to the first max abs kappa diff point
-				float headLength2 = Math.max(0, maxAbsKappaDiffIndex) * (pathLength1/NUM_OF_POINTS_ON_STROKE);
-
-				// See if the max abs kappa diff of the new shorter segment is more than that of the longer segment
-				if (pSegment2.tempMaxAbsKappaDiff > tempMaxAbsKappaDiff)
-					headLength2 = Math.max(0, pSegment2.maxAbsKappaDiffIndex) * (pathLength2/NUM_OF_POINTS_ON_STROKE);
-				// float tailLength2 = Math.min(pathLength1, pSegment2.mMaxAbsKappaDiffIndex + offSet) * (pathLength1/NUM_OF_POINTS_ON_STROKE);
-
-				if (minSegmentLengthCheck(headLength2, pathLength1)) {
-					Path path3 = new Path();
-					Path path4 = new Path();
-					if (penStrokeMeasure.getSegment(0, headLength1 + headLength2, path3, true)
-							&& penStrokeMeasure.getSegment(headLength1 + headLength2 + 1, tailLength1, path4, true)) {
-						PenSegment pSegment3 = new PenSegment(path3);
-						PenSegment pSegment4 = new PenSegment(path4);
-
-						if (Skiggle.sDebugOn) {
-							PenUtil.printString(String.format(".(%1$3.1f,%2$3.1f), k:%2$3.1f", pSegment3.posEnd[0], pSegment3.posEnd[1], pSegment3.mKappa),
-									pSegment3.posEnd[0], pSegment3.posEnd[1], canvas, textPaint);
-
-
-						//				PenUtil.printString(String.format("!!%1$3.1f, %2$3.1f, %3$3.1f, %4$3.1f, %5$3.1f", tempMaxAbsKappaDiff, pSegment2.mMaxAbsKappa, tailLength1 - headLength1, pSegment2.mPenStrokeLength, penStrokeLength), 100, 420, boundingRectF, canvas, textPaint);
-						pSegment2.printSegmentStats(canvas, textPaint);
-						}
-						pSegments.addAll(pSegment3.getStrokeSegments(canvas, textPaint));
-						pSegments.addAll(pSegment4.getStrokeSegments(canvas, textPaint));						
-						return pSegments;
-					}
+	private float getSplitFitError(int startIndex, int splitIndex, int endIndex) {
+
+		return mMoments.getPrimitiveFitError(startIndex, splitIndex) + mMoments.getPrimitiveFitError(splitIndex, endIndex);
+	}
+
+	// Check to see if the points in the range [startIndex, endIndex) lie on a straight line
+	private boolean isStraightPiece(int startIndex, int endIndex) {
+
+		float pieceLength = PenUtil.distanceBetween2Points(pointsX[startIndex], pointsY[startIndex],
+				pointsX[endIndex - 1], pointsY[endIndex - 1]);
+		return (mMoments.getLineFitResidual(startIndex, endIndex) <= MAX_LINE_FIT_RESIDUAL_RATIO * pieceLength);
+	}
+
+	// Check to see if the points in the range [startIndex, endIndex) lie on a smooth curve (and not on two lines meeting at a corner)
+	private boolean isCurvedPiece(int startIndex, int endIndex) {
 
+		float pieceLength = PenUtil.distanceBetween2Points(pointsX[startIndex], pointsY[startIndex],
+				pointsX[endIndex - 1], pointsY[endIndex - 1]);
+		return !isStraightPiece(startIndex, endIndex) && isCurved(mMoments.getMeanKappa(startIndex, endIndex)) &&
+			(mMoments.getCircleFitResidual(startIndex, endIndex) <= MAX_CIRCLE_FIT_RESIDUAL_RATIO * pieceLength);
+	}
+
+	/**
+	 * Checks to see if the whole segment is one of the compound primitives (hook, zig-zag, S-curve or check mark)
+	 * using the range fits of the sampled points, so the segment does not have to be split and resampled
+	 * @return the compound primitive character, or null if the segment is not a compound primitive
+	 */
+	public Character findCompoundCharacter() {
+
+		int n = NUM_OF_POINTS_ON_STROKE;
+		int split = findBestSplitIndex(0, n);
+		if (split < 0) return null;
+
+		float startX = pointsX[0];
+		float startY = pointsY[0];
+		float splitX = pointsX[split];
+		float splitY = pointsY[split];
+		float endX = pointsX[n - 1];
+		float endY = pointsY[n - 1];
+
+		boolean isStraightHead = isStraightPiece(0, split + 1);
+		boolean isStraightTail = isStraightPiece(split, n);
+		hasCurvedStart = false;
+
+		// Check mark - two lines meeting at the bottom with both ends well above the vertex
+		if (isStraightHead && isStraightTail && (splitY > startY) && (splitY > endY)) {
+			float minRise = MIN_CHECK_ARM_RISE_RATIO * boundingRectHeight;
+			if ((splitY - startY > minRise) && (splitY - endY > minRise) &&
+					(Math.abs(splitY - boundingRectF.bottom) < minRise))
+				return Character.valueOf(CHECK_CHAR);
+		}
+
+		// Zig-zag - three pieces going right, down to the left, and right again
+		float bestFitError = Float.MAX_VALUE;
+		int bestSplit1 = -1;
+		int bestSplit2 = -1;
+		for (int i = MIN_POINTS_PER_SPLIT; i <= n - 2 * MIN_POINTS_PER_SPLIT; i++) {
+			for (int j = i + MIN_POINTS_PER_SPLIT; j <= n - MIN_POINTS_PER_SPLIT; j++) {
+				float fitError = mMoments.getPrimitiveFitError(0, i) + getSplitFitError(i, j, n);
+				if (fitError < bestFitError) {
+					bestFitError = fitError;
+					bestSplit1 = i;
+					bestSplit2 = j;
 				}
+			}
+		}
+		if ((bestSplit1 > 0) && (bestFitError < MAX_COMPOUND_FIT_ERROR_RATIO * getSplitFitError(0, split, n))) {
+			float corner1X = pointsX[bestSplit1];
+			float corner1Y = pointsY[bestSplit1];
+			float corner2X = pointsX[bestSplit2];
+			float corner2Y = pointsY[bestSplit2];
+			boolean isCurvedTop = isCurvedPiece(0, bestSplit1 + 1);
+			if ((isStraightPiece(0, bestSplit1 + 1) || isCurvedTop) &&
+					isStraightPiece(bestSplit1, bestSplit2 + 1) && isStraightPiece(bestSplit2, n) &&
+					(corner1X > startX) && (corner2X < corner1X) && (corner2Y > corner1Y) &&
+					(endX - corner2X > Math.abs(endY - corner2Y))) {
+				hasCurvedStart = isCurvedTop;
+				return Character.valueOf(ZIGZAG_CHAR);
+			}
+		}
+
+		// Hook - a line going down and then curling up to the left at the bottom
+		if (isStraightHead && isCurvedPiece(split, n) && (splitY - startY > Math.abs(splitX - startX))) {
+			float lineLength = PenUtil.distanceBetween2Points(startX, startY, splitX, splitY);
+			if ((splitX - endX > MIN_HOOK_CURL_RATIO * lineLength) && (endY < boundingRectF.bottom))
+				return Character.valueOf(HOOK_CHAR);
+		}
+
+		// S-curve - a forward C followed by a backward C, that is, the curvature changes sign
+		if (isCurvedPiece(0, split + 1) && isCurvedPiece(split, n) && (splitY > startY) && (endY > splitY) &&
+				(mMoments.getSumKappa(0, split + 1) < 0) && (mMoments.getSumKappa(split, n) > 0))
+			return Character.valueOf(SCURVE_CHAR);
+
+		return null;
+	} // End of findCompoundCharacter() method
+
+	public ArrayList<PenSegment> getStrokeSegments(Canvas canvas, Paint textPaint, StrokeFilterChain filterChain) {
+
+		return getStrokeSegments(canvas, textPaint, filterChain, true);
+	}
+
+	// Compound primitives are only looked for if the language of the context has characters made with them
+	public ArrayList<PenSegment> getStrokeSegments(Canvas canvas, Paint textPaint, RecognitionContext context) {
+
+		return getStrokeSegments(canvas, textPaint, context.getStrokeFilterChain(),
+				context.getLanguageTables().hasCompoundCharacters());
+	}
+
+	// Compound primitives are only looked for in the whole stroke, not in the pieces it is split into
+	private ArrayList<PenSegment> getStrokeSegments(Canvas canvas, Paint textPaint, StrokeFilterChain filterChain,
+			boolean checkForCompound) {
 
+		ArrayList<PenSegment> pSegments = new ArrayList<PenSegment>();
+
+		getCurvaturePoints(canvas, textPaint, filterChain); // Get the curvature of each point of the segment
+
+
+		// Compound primitives can join their pieces smoothly (e.g. an 'S') so check for them whether or not
+		// the curvature shows a break
+		if (checkForCompound) {
+			Character compoundChar = findCompoundCharacter();
+			if (compoundChar != null) {
+				penSegmentCharacter = compoundChar;
+				pSegments.add(this);
+				return pSegments;
+			}
+		}
+
+		if (hasMultipleSegments()) {
+
+			int splitIndex = findBestSplitIndex();
+
+			if (splitIndex > 0) {
+				float splitLength = splitIndex * (penStrokeLength/NUM_OF_POINTS_ON_STROKE);
+				Path path3 = new Path();
+				Path path4 = new Path();
+				if (penStrokeMeasure.getSegment(0, splitLength, path3, true)
+						&& penStrokeMeasure.getSegment(splitLength, penStrokeLength, path4, true)) {
+					PenSegment pSegment3 = new PenSegment(path3);
+					PenSegment pSegment4 = new PenSegment(path4);
+
+					if (Skiggle.sDebugOn) {
+						PenUtil.printString(String.format(".(%1$3.1f,%2$3.1f), k:%2$3.1f", pSegment3.posEnd[0], pSegment3.posEnd[1], pSegment3.mKappa),
+								pSegment3.posEnd[0], pSegment3.posEnd[1], canvas, textPaint);
+						printSegmentStats(canvas, textPaint);
+					}
+					pSegments.addAll(pSegment3.getStrokeSegments(canvas, textPaint, filterChain, false));
+					pSegments.addAll(pSegment4.getStrokeSegments(canvas, textPaint, filterChain, false));
+					return pSegments;
+				}
 			}
 
 			getExtremaPoint();
@@ -454,8 +608,100 @@ public class PenSegment extends Path {
 			penSegmentCharacter = U_CHAR;
 		else 
 			penSegmentCharacter = new Character('?');
+
+		findAlternativeCharacter();
+	}
+
+	// Orientation of the segment in degrees, from 0 (inclusive) to 180 (exclusive)
+	private float getOrientation() {
+		float orientation = mAvgAngle % 180;
+		return (orientation < 0) ? orientation + 180 : orientation;
+	}
+
+	// Line primitive of an orientation, from the angle ranges of isHLine(), isBSlash(), isVLine() and isFSlash()
+	private static char getLineCharacter(float orientation) {
+		if ((orientation < HLINE_ANGLE + HLINE_MAX_ANGLE_SPREAD) || (orientation > 180 - HLINE_MAX_ANGLE_SPREAD))
+			return HLINE_CHAR;
+		else if (orientation < VLINE_ANGLE - VLINE_MAX_ANGLE_SPREAD)
+			return BSLASH_CHAR;
+		else if (orientation <= VLINE_ANGLE + VLINE_MAX_ANGLE_SPREAD)
+			return VLINE_CHAR;
+		else
+			return FSLASH_CHAR;
 	}
 
+	// Curved primitive the segment would be if it were curved enough, in the order of findMatchingCharacter(), or null
+	private Character getCurvedCharacter() {
+		if (isCOGRightOfEndLine())
+			return BC_CHAR;
+		else if (isCOGLeftOfEndLine())
+			return FC_CHAR;
+		else if (isClosedStroke())
+			return CIRCLE_CHAR;
+		else if (isCOGBelowEndLine())
+			return U_CHAR;
+		return null;
+	}
+
+	// Sets the alternative primitive of a segment close to the limits of its primitive, if any:
+	// a line close to the angle range of another line, a line nearly curved enough (or a curve nearly straight),
+	// or an open curve whose ends are nearly close enough for a circle
+	private void findAlternativeCharacter() {
+		alternativeCharacter = null;
+		alternativeScore = 0.0F;
+
+		char c = penSegmentCharacter.charValue();
+		boolean isLine = (c == HLINE_CHAR) || (c == BSLASH_CHAR) || (c == VLINE_CHAR) || (c == FSLASH_CHAR);
+		boolean isCurve = (c == BC_CHAR) || (c == FC_CHAR) || (c == CIRCLE_CHAR) || (c == U_CHAR);
+		float kappaRatio = Math.abs(avgKappa)/MAX_CURVATURE_FOR_STRAIGHTLINE;
+
+		if (isLine) {
+			// Nearest end of the angle ranges of the lines, going around at 180 degrees
+			float orientation = getOrientation();
+			float ends[] = {HLINE_ANGLE + HLINE_MAX_ANGLE_SPREAD, VLINE_ANGLE - VLINE_MAX_ANGLE_SPREAD,
+					VLINE_ANGLE + VLINE_MAX_ANGLE_SPREAD, 180 - HLINE_MAX_ANGLE_SPREAD};
+			for (int i = 0; i < ends.length; i++) {
+				float gap = Math.abs(orientation - ends[i]);
+				gap = Math.min(gap, 180 - gap);
+				float score = 1 - gap/ALTERNATIVE_ANGLE_MARGIN;
+				if (score > alternativeScore) {
+					// Line on the other side of the end of the range
+					float mirrored = (2 * ends[i] - orientation + 360) % 180;
+					char other = getLineCharacter(mirrored);
+					if (other != c) {
+						alternativeCharacter = other;
+						alternativeScore = score;
+					}
+				}
+			}
+
+			float score = (kappaRatio - 1/ALTERNATIVE_KAPPA_RATIO)/(1 - 1/ALTERNATIVE_KAPPA_RATIO);
+			if (score > alternativeScore) {
+				Character curved = getCurvedCharacter();
+				if (curved != null) {
+					alternativeCharacter = curved;
+					alternativeScore = Math.min(score, 1.0F);
+				}
+			}
+		}
+		else if (isCurve) {
+			float score = (ALTERNATIVE_KAPPA_RATIO - kappaRatio)/(ALTERNATIVE_KAPPA_RATIO - 1);
+			if (score > alternativeScore) {
+				alternativeCharacter = getLineCharacter(getOrientation());
+				alternativeScore = Math.min(score, 1.0F);
+			}
+
+			if (c != CIRCLE_CHAR) {
+				float gapRatio = PenUtil.distanceBetween2Points(posStart[0], posStart[1], posEnd[0], posEnd[1])/penStrokeLength;
+				score = (ALTERNATIVE_CLOSED_GAP_RATIO - gapRatio)/(ALTERNATIVE_CLOSED_GAP_RATIO - .1F); // .1 as in isClosedStroke()
+				if (score > alternativeScore) {
+					alternativeCharacter = CIRCLE_CHAR;
+					alternativeScore = Math.min(score, 1.0F);
+				}
+			}
+		}
+	} // End of findAlternativeCharacter() method
+
 	public void printSegmentStats(Canvas canvas, Paint textPaint) {
 
 		/*
@@ -25,7 +25,7 @@ import android.graphics.RectF;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 
-import java.util.Vector;
+import java.util.ArrayList;
 
 //PenStroke is a continuous path (between pen down and pen up) drawn by the pen.
 public class PenStroke extends Path {
@@ -76,10 +76,16 @@ public class PenStroke extends Path {
 
 	}
 
-	public Vector<PenSegment> segmentStroke(Canvas canvas, Paint textPaint) {
+	public ArrayList<PenSegment> segmentStroke(Canvas canvas, Paint textPaint, StrokeFilterChain filterChain) {
 		// Vector<PenSegment> pSegments = new Vector<PenSegment>();
 		PenSegment pSegment1 = new PenSegment(this.penStrokePath);
-		return pSegment1.getStrokeSegments(canvas, textPaint);
+		return pSegment1.getStrokeSegments(canvas, textPaint, filterChain);
+	}
+
+	// Segments of the stroke for the language and filter chain of the context
+	public ArrayList<PenSegment> segmentStroke(Canvas canvas, Paint textPaint, RecognitionContext context) {
+		PenSegment pSegment1 = new PenSegment(this.penStrokePath);
+		return pSegment1.getStrokeSegments(canvas, textPaint, context);
 	}
 	
 
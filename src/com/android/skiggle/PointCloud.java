@@ -0,0 +1,163 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.util.List;
+
+import android.graphics.Path;
+import android.graphics.PathMeasure;
+
+/**
+ * PointCloud is the strokes of a character as $P compares them: NUM_OF_POINTS points spaced evenly along the
+ * strokes, scaled so that the larger side of their bounding box is 1 and moved so that their centroid is the
+ * origin.  The order and direction of the strokes are left only in the order of the points.
+ *
+ * It also has, for each cell of a grid over the points, the distance from the center of the cell to the nearest
+ * point.  PointCloudEngine bounds the distance from any point in a cell to this cloud by it, without comparing
+ * the point to all of the cloud's.  A cloud is not changed once made, so it can be shared by threads.
+ */
+public class PointCloud {
+
+	public static final int NUM_OF_POINTS = 32;
+
+	// Grid over the square (-1, -1) to (1, 1), which holds the points of any cloud
+	private static final int GRID_SIZE = 32; // Cells on each side
+	private static final float CELL_SIZE = 2.0F/GRID_SIZE;
+	private static final float CELL_RADIUS = (float) (CELL_SIZE * Math.sqrt(0.5)); // Center to corner of a cell
+
+	public final float x[] = new float[NUM_OF_POINTS];
+	public final float y[] = new float[NUM_OF_POINTS];
+	private final float mNearestDistances[] = new float[GRID_SIZE * GRID_SIZE]; // From the center of each cell
+
+	// Cloud of the strokes of a character written
+	public PointCloud(List<PenStroke> penStrokes) {
+		PathMeasure measures[] = new PathMeasure[penStrokes.size()];
+		for (int i = 0; i < measures.length; i++) {
+			measures[i] = penStrokes.get(i).penStrokeMeasure;
+		}
+		resample(measures);
+		normalize();
+		computeNearestDistances();
+	} // End of PointCloud() constructor
+
+	/**
+	 * Cloud of strokes given as points, e.g., of a template
+	 * @param strokes - points of each stroke as {x0, y0, x1, y1, ...}
+	 */
+	public PointCloud(float strokes[][]) {
+		PathMeasure measures[] = new PathMeasure[strokes.length];
+		for (int i = 0; i < strokes.length; i++) {
+			Path path = new Path();
+			path.moveTo(strokes[i][0], strokes[i][1]);
+			for (int j = 2; j < strokes[i].length; j += 2) {
+				path.lineTo(strokes[i][j], strokes[i][j + 1]);
+			}
+			measures[i] = new PathMeasure(path, false);
+		}
+		resample(measures);
+		normalize();
+		computeNearestDistances();
+	} // End of PointCloud(strokes) constructor
+
+	// Takes the points at even steps along the strokes, as if they were one path, starting at its start and ending at its end
+	private void resample(PathMeasure measures[]) {
+		float lengths[] = new float[measures.length];
+		float totalLength = 0.0F;
+		for (int i = 0; i < measures.length; i++) {
+			lengths[i] = measures[i].getLength();
+			totalLength = totalLength + lengths[i];
+		}
+
+		float pos[] = new float[2];
+		float step = totalLength/(NUM_OF_POINTS - 1);
+		int stroke = 0;
+		float strokeStart = 0.0F; // Distance along the strokes to the start of the stroke
+		for (int i = 0; i < NUM_OF_POINTS; i++) {
+			float distance = (i == NUM_OF_POINTS - 1) ? totalLength : i * step;
+			while ((stroke < measures.length - 1) && (distance > strokeStart + lengths[stroke])) {
+				strokeStart = strokeStart + lengths[stroke];
+				stroke++;
+			}
+			measures[stroke].getPosTan(Math.min(distance - strokeStart, lengths[stroke]), pos, null);
+			x[i] = pos[0];
+			y[i] = pos[1];
+		}
+	} // End of resample() method
+
+	private void normalize() {
+		float minX = x[0];
+		float maxX = x[0];
+		float minY = y[0];
+		float maxY = y[0];
+		float centroidX = 0.0F;
+		float centroidY = 0.0F;
+		for (int i = 0; i < NUM_OF_POINTS; i++) {
+			minX = Math.min(minX, x[i]);
+			maxX = Math.max(maxX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxY = Math.max(maxY, y[i]);
+			centroidX = centroidX + x[i];
+			centroidY = centroidY + y[i];
+		}
+		centroidX = centroidX/NUM_OF_POINTS;
+		centroidY = centroidY/NUM_OF_POINTS;
+		float scale = Math.max(maxX - minX, maxY - minY);
+		if (scale == 0.0F) {
+			scale = 1.0F; // A dot
+		}
+		for (int i = 0; i < NUM_OF_POINTS; i++) {
+			x[i] = (x[i] - centroidX)/scale;
+			y[i] = (y[i] - centroidY)/scale;
+		}
+	} // End of normalize() method
+
+	private void computeNearestDistances() {
+		for (int row = 0; row < GRID_SIZE; row++) {
+			float centerY = -1.0F + (row + 0.5F) * CELL_SIZE;
+			for (int column = 0; column < GRID_SIZE; column++) {
+				float centerX = -1.0F + (column + 0.5F) * CELL_SIZE;
+				float minSquared = Float.MAX_VALUE;
+				for (int i = 0; i < NUM_OF_POINTS; i++) {
+					float dx = x[i] - centerX;
+					float dy = y[i] - centerY;
+					minSquared = Math.min(minSquared, dx * dx + dy * dy);
+				}
+				mNearestDistances[row * GRID_SIZE + column] = (float) Math.sqrt(minSquared);
+			}
+		}
+	} // End of computeNearestDistances() method
+
+	private static int getCell(float coord) {
+		return Math.max(0, Math.min(GRID_SIZE - 1, (int) ((coord + 1.0F)/CELL_SIZE)));
+	}
+
+	/**
+	 * Gets, for each point of another cloud, a bound on its distance to the nearest point of this one
+	 * @param cloud - the other cloud
+	 * @param bounds - filled with the bound of each of its points, no more than the distance
+	 */
+	public void getNearestDistanceBounds(PointCloud cloud, float bounds[]) {
+		for (int i = 0; i < NUM_OF_POINTS; i++) {
+			float distance = mNearestDistances[getCell(cloud.y[i]) * GRID_SIZE + getCell(cloud.x[i])];
+			bounds[i] = Math.max(0.0F, distance - CELL_RADIUS);
+		}
+	} // End of getNearestDistanceBounds() method
+
+}
@@ -0,0 +1,308 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.util.HashMap;
+
+/**
+ * PointCloudEngine matches characters to templates, each a PointCloud of a way to write one, by the greedy
+ * point cloud distance of $P (Vatavu, Anthony and Wobbrock, 2012).  Characters are added as templates instead of as
+ * matchers written for them, e.g., those without checks in PenCharacterEn.matchCharacter().
+ *
+ * Comparing two clouds takes NUM_OF_POINTS squared steps for each start point tried, so each template is first
+ * bounded from the nearest-point grids of the clouds (see PointCloud.getNearestDistanceBounds()), which takes
+ * NUM_OF_POINTS steps.  Templates are compared in the order of their bounds, and those whose bounds are no better
+ * than the best distance found are never compared.  Comparisons that pass it stop early too.
+ */
+public class PointCloudEngine implements CharacterEngine {
+
+	// Distance up to which a template matches, and at which the score of a character falls to 0
+	public static final float MATCH_DISTANCE = 1.1F;
+	public static final float MAX_DISTANCE = 3.0F;
+
+	private static final int NUM_OF_POINTS = PointCloud.NUM_OF_POINTS;
+	private static final int START_STEP = (int) Math.sqrt(NUM_OF_POINTS); // Points between the start points tried
+
+	// Weights of the matches by the order they are made in, from 1 for the first down to 1/NUM_OF_POINTS for the last
+	private static final float WEIGHTS[] = new float[NUM_OF_POINTS];
+	static {
+		for (int i = 0; i < NUM_OF_POINTS; i++) {
+			WEIGHTS[i] = 1.0F - i/(float) NUM_OF_POINTS;
+		}
+	}
+
+	// Templates, replaced instead of changed as templates are added so that threads matching them are not affected
+	private static class Templates {
+		PointCloud clouds[] = new PointCloud[0];
+		char characters[] = new char[0];
+		HashMap<Character, int[]> indices = new HashMap<Character, int[]>(); // Indices of the templates of each character
+	}
+
+	private volatile Templates mTemplates = new Templates();
+
+	// Scratch space of one thread, and the bounds and distances of the templates for the last cloud it matched
+	private static class Search {
+		Templates templates = null;
+		PointCloud cloud = null;
+		float bounds[] = new float[0]; // Bound on the distance of each template, or NaN if not yet found
+		float distances[] = new float[0]; // Distance of each template, or NaN if not yet found
+		int order[] = new int[0]; // Templates in the order of their bounds
+		float cloudBounds[] = new float[NUM_OF_POINTS]; // Bounds of the cloud's points to a template's nearest
+		float templateBounds[] = new float[NUM_OF_POINTS]; // Bounds of a template's points to the cloud's nearest
+		boolean matched[] = new boolean[NUM_OF_POINTS];
+	}
+
+	private final ThreadLocal<Search> mSearches = new ThreadLocal<Search>() {
+		@Override
+		protected Search initialValue() {
+			return new Search();
+		}
+	};
+
+	/**
+	 * Adds a template of a character
+	 * @param c - character
+	 * @param strokes - points of each stroke of a way to write it, as {x0, y0, x1, y1, ...}, in any units
+	 */
+	public void addTemplate(char c, float strokes[][]) {
+		addTemplate(c, new PointCloud(strokes));
+	}
+
+	// Adds a character as written, e.g., to learn the user's way of writing it
+	public void addTemplate(char c, PenCharacter pChar) {
+		addTemplate(c, pChar.getPointCloud());
+	}
+
+	private synchronized void addTemplate(char c, PointCloud cloud) {
+		Templates templates = new Templates();
+		int numOfTemplates = mTemplates.clouds.length;
+		templates.clouds = new PointCloud[numOfTemplates + 1];
+		templates.characters = new char[numOfTemplates + 1];
+		System.arraycopy(mTemplates.clouds, 0, templates.clouds, 0, numOfTemplates);
+		System.arraycopy(mTemplates.characters, 0, templates.characters, 0, numOfTemplates);
+		templates.clouds[numOfTemplates] = cloud;
+		templates.characters[numOfTemplates] = c;
+
+		templates.indices.putAll(mTemplates.indices);
+		int indices[] = templates.indices.get(Character.valueOf(c));
+		int newIndices[] = new int[(indices == null) ? 1 : indices.length + 1];
+		if (indices != null) {
+			System.arraycopy(indices, 0, newIndices, 0, indices.length);
+		}
+		newIndices[newIndices.length - 1] = numOfTemplates;
+		templates.indices.put(Character.valueOf(c), newIndices);
+		mTemplates = templates;
+	} // End of addTemplate() method
+
+	public int getNumOfTemplates() {
+		return mTemplates.clouds.length;
+	}
+
+	public boolean hasMatcher(char c) {
+		return mTemplates.indices.containsKey(Character.valueOf(c));
+	}
+
+	public boolean matchesByShape() {
+		return true;
+	}
+
+	public float score(char c, PenCharacter pChar) {
+		Search search = getSearch(pChar);
+		int indices[] = search.templates.indices.get(Character.valueOf(c));
+		int nearest = -1;
+		if (indices != null) {
+			System.arraycopy(indices, 0, search.order, 0, indices.length);
+			nearest = getNearestTemplate(search, search.order, indices.length, MAX_DISTANCE);
+		}
+		float score = (nearest < 0) ? 0.0F : getScore(search.distances[nearest]);
+		pChar.matchedChar = (score == 1.0F) ? Character.valueOf(c) : null;
+		return score;
+	} // End of score() method
+
+	public float getUpperBound(char c, PenCharacter pChar) {
+		Search search = getSearch(pChar);
+		int indices[] = search.templates.indices.get(Character.valueOf(c));
+		if (indices == null) return 0.0F;
+		float bound = Float.MAX_VALUE;
+		for (int i = 0; i < indices.length; i++) {
+			bound = Math.min(bound, getBound(search, indices[i]));
+		}
+		return getScore(bound);
+	} // End of getUpperBound() method
+
+	/**
+	 * Gets the character of the template nearest to what is written, of all the templates
+	 * @return the character, or null if no template is within MATCH_DISTANCE
+	 */
+	public Character getNearestCharacter(PenCharacter pChar) {
+		Search search = getSearch(pChar);
+		int numOfTemplates = search.templates.clouds.length;
+		for (int i = 0; i < numOfTemplates; i++) {
+			search.order[i] = i;
+		}
+		int nearest = getNearestTemplate(search, search.order, numOfTemplates, MATCH_DISTANCE);
+		return (nearest < 0) ? null : Character.valueOf(search.templates.characters[nearest]);
+	} // End of getNearestCharacter() method
+
+	// Score of a distance: 1 up to MATCH_DISTANCE, then falling from MAX_FAILED_SCORE to 0 at MAX_DISTANCE
+	private static float getScore(float distance) {
+		if (distance <= MATCH_DISTANCE) return 1.0F;
+		return MAX_FAILED_SCORE * Math.max(0.0F, (MAX_DISTANCE - distance)/(MAX_DISTANCE - MATCH_DISTANCE));
+	}
+
+	// Gets the scratch space of the thread, forgetting the bounds and distances if the cloud or the templates changed
+	private Search getSearch(PenCharacter pChar) {
+		Search search = mSearches.get();
+		PointCloud cloud = pChar.getPointCloud();
+		Templates templates = mTemplates;
+		if ((search.cloud != cloud) || (search.templates != templates)) {
+			int numOfTemplates = templates.clouds.length;
+			if (search.bounds.length < numOfTemplates) {
+				search.bounds = new float[numOfTemplates];
+				search.distances = new float[numOfTemplates];
+				search.order = new int[numOfTemplates];
+			}
+			for (int i = 0; i < numOfTemplates; i++) {
+				search.bounds[i] = Float.NaN;
+				search.distances[i] = Float.NaN;
+			}
+			search.cloud = cloud;
+			search.templates = templates;
+		}
+		return search;
+	} // End of getSearch() method
+
+	/**
+	 * Gets the nearest of some templates, comparing them in the order of their bounds until the rest are bounded by
+	 * no less than the distance of the nearest found
+	 * @param indices - indices of the templates; sorted by their bounds
+	 * @param numOfIndices - number of templates
+	 * @param limit - distance the nearest template must be within
+	 * @return index of the nearest template, whose distance is then in search.distances, or -1 if none is within limit
+	 */
+	private static int getNearestTemplate(Search search, int indices[], int numOfIndices, float limit) {
+		// Insertion sort, as the templates are mostly those of one character, which are few
+		for (int i = 0; i < numOfIndices; i++) {
+			int index = indices[i];
+			float bound = getBound(search, index);
+			int j = i;
+			while ((j > 0) && (search.bounds[indices[j - 1]] > bound)) {
+				indices[j] = indices[j - 1];
+				j--;
+			}
+			indices[j] = index;
+		}
+
+		int nearest = -1;
+		float nearestDistance = limit;
+		for (int i = 0; (i < numOfIndices) && (search.bounds[indices[i]] < nearestDistance); i++) {
+			float distance = getDistance(search, indices[i], nearestDistance);
+			if (distance < nearestDistance) {
+				nearest = indices[i];
+				nearestDistance = distance;
+			}
+		}
+		return nearest;
+	} // End of getNearestTemplate() method
+
+	// Gets a bound on the distance of a template, as getDistance() would find it for every start point
+	private static float getBound(Search search, int index) {
+		if (Float.isNaN(search.bounds[index])) {
+			PointCloud template = search.templates.clouds[index];
+			template.getNearestDistanceBounds(search.cloud, search.cloudBounds);
+			search.cloud.getNearestDistanceBounds(template, search.templateBounds);
+			float bound = Float.MAX_VALUE;
+			for (int start = 0; start < NUM_OF_POINTS; start += START_STEP) {
+				bound = Math.min(bound, getWeightedSum(search.cloudBounds, start));
+				bound = Math.min(bound, getWeightedSum(search.templateBounds, start));
+			}
+			search.bounds[index] = bound;
+		}
+		return search.bounds[index];
+	} // End of getBound() method
+
+	// Sum of the distances of the points from a start point on, each weighted by the order it is matched in
+	private static float getWeightedSum(float distances[], int start) {
+		float sum = 0.0F;
+		for (int i = 0; i < NUM_OF_POINTS; i++) {
+			sum = sum + WEIGHTS[i] * distances[(start + i) % NUM_OF_POINTS];
+		}
+		return sum;
+	}
+
+	/**
+	 * Gets the $P distance of a template: the least weighted sum of the distances of greedy matches of the points of
+	 * either cloud to those of the other, from every START_STEP-th start point
+	 * @param limit - distance beyond which the exact distance is not needed
+	 * @return the distance, or a distance no less than limit if it is beyond it
+	 */
+	private static float getDistance(Search search, int index, float limit) {
+		if (Float.isNaN(search.distances[index])) {
+			PointCloud template = search.templates.clouds[index];
+			template.getNearestDistanceBounds(search.cloud, search.cloudBounds);
+			search.cloud.getNearestDistanceBounds(template, search.templateBounds);
+			float distance = Float.MAX_VALUE;
+			for (int start = 0; start < NUM_OF_POINTS; start += START_STEP) {
+				float best = Math.min(distance, limit);
+				if (getWeightedSum(search.cloudBounds, start) < best) {
+					distance = Math.min(distance, getCloudDistance(search.cloud, template, start, best, search.matched));
+				}
+				best = Math.min(distance, limit);
+				if (getWeightedSum(search.templateBounds, start) < best) {
+					distance = Math.min(distance, getCloudDistance(template, search.cloud, start, best, search.matched));
+				}
+			}
+			if (distance < limit) {
+				search.distances[index] = distance; // Only exact distances are kept
+			}
+			return distance;
+		}
+		return search.distances[index];
+	} // End of getDistance() method
+
+	// Weighted sum of the distances of the points of cloud1, from a start point on, to their greedy matches in cloud2,
+	// or a sum no less than limit once it reaches it
+	private static float getCloudDistance(PointCloud cloud1, PointCloud cloud2, int start, float limit, boolean matched[]) {
+		for (int j = 0; j < NUM_OF_POINTS; j++) {
+			matched[j] = false;
+		}
+		float sum = 0.0F;
+		for (int k = 0; k < NUM_OF_POINTS; k++) {
+			int i = (start + k) % NUM_OF_POINTS;
+			float minSquared = Float.MAX_VALUE;
+			int nearest = -1;
+			for (int j = 0; j < NUM_OF_POINTS; j++) {
+				if (matched[j]) continue;
+				float dx = cloud1.x[i] - cloud2.x[j];
+				float dy = cloud1.y[i] - cloud2.y[j];
+				float squared = dx * dx + dy * dy;
+				if (squared < minSquared) {
+					minSquared = squared;
+					nearest = j;
+				}
+			}
+			matched[nearest] = true;
+			sum = sum + WEIGHTS[k] * (float) Math.sqrt(minSquared);
+			if (sum >= limit) break;
+		}
+		return sum;
+	} // End of getCloudDistance() method
+
+}
@@ -0,0 +1,195 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * RecognitionContext is what one recognizer (e.g., a writing area or a batch job thread) needs to
+ * recognize characters: the tables of its current language and scratch space for looking up candidates.
+ * The tables are shared and never changed, so switching the language just swaps the reference, and
+ * each context can run on its own thread alongside contexts of other languages.  A context must not
+ * be used by more than one thread at a time.
+ */
+public class RecognitionContext {
+
+	// Number of candidates ranked by the scores of their matchers, first in the candidate bar.  The English matchers
+	// score 0 or 1, so more than 1 runs the matchers on after the first match just to fill the bar.
+	public static final int DEFAULT_NUM_OF_SCORED_CANDIDATES = 1;
+
+	private LanguageTables mLanguageTables;
+	private CharacterPrefilter mCharacterPrefilter; // Drops candidates that cannot match before their matchers run
+	private CharacterPrior mCharacterPrior = null; // Order to try the candidates in; none tries them in the language's order
+	private FieldProfile mFieldProfile = FieldProfile.ALL_CHARACTERS; // Characters of the field written in
+	private SegmentMask mAlphabet = null; // Mask of the field's characters in the language, or null for all of them
+	private int mNumOfScoredCandidates = DEFAULT_NUM_OF_SCORED_CANDIDATES;
+	private int mMinParallelCandidates = ParallelMatcher.DEFAULT_MIN_CANDIDATES; // See ParallelMatcher
+	private StrokeFilterChain mStrokeFilterChain = // Smoothing of the strokes; its filters keep scratch space of their own
+		StrokeFilterChain.getChainForDeviceClass(StrokeFilterChain.DEFAULT_DEVICE_CLASS);
+
+	// Scratch space for CandidateTable.getCandidates()
+	int mMultiset[] = new int[CandidateTable.MAX_NUM_OF_SEGMENTS]; // Sorted primitive indices of the last lookup
+	int mPrimitiveCounts[] = new int[PenSegment.NUM_OF_PRIMITIVES];
+	SegmentMask mCandidates = new SegmentMask(0); // Candidates of the last lookup from the candidate table
+	SegmentMask mManySegmentCandidates = new SegmentMask(0); // Candidates of the last lookup of more than four segments
+	SegmentMask mVariantCandidates = new SegmentMask(0);
+	SegmentMask mAlphabetCandidates = new SegmentMask(0); // Candidates of the last lookup in the field's alphabet
+	SegmentMask mShapeCandidates = new SegmentMask(0); // Characters matched by shape in the field's alphabet
+
+	// Scratch space for LanguageTables.getAlternativeCandidates()
+	int mAmbiguousSegments[] = new int[LanguageTables.MAX_NUM_OF_AMBIGUOUS_SEGMENTS];
+	char mInterpretation[] = new char[CandidateTable.MAX_NUM_OF_SEGMENTS]; // Primitives of one interpretation
+	SegmentMask mAlternativeCandidates = new SegmentMask(0); // Candidates of the last lookup of other interpretations
+	float mCandidateScores[] = new float[0]; // Score of each of mAlternativeCandidates
+
+	public RecognitionContext(LanguageTables tables) {
+		setLanguageTables(tables);
+	}
+
+	// Context for a language by name, e.g., Skiggle.ENGLISH_MODE
+	public RecognitionContext(String language) {
+		this(LanguageTables.getLanguageTables(language));
+	}
+
+	public LanguageTables getLanguageTables() {
+		return mLanguageTables;
+	}
+
+	public void setLanguageTables(LanguageTables tables) {
+		mLanguageTables = tables;
+		mCharacterPrefilter = CharacterPrefilter.getCharacterPrefilter(tables);
+		mAlphabet = mFieldProfile.getMask(tables);
+		if ((mCharacterPrior != null) && !mCharacterPrior.getLanguage().equals(tables.getLanguage())) {
+			mCharacterPrior = null;
+		}
+		if (mManySegmentCandidates.size() != tables.getNumOfCharacters()) {
+			mCandidates = new SegmentMask(tables.getNumOfCharacters());
+			mManySegmentCandidates = new SegmentMask(tables.getNumOfCharacters());
+			mVariantCandidates = new SegmentMask(tables.getNumOfCharacters());
+			mAlphabetCandidates = new SegmentMask(tables.getNumOfCharacters());
+			mAlternativeCandidates = new SegmentMask(tables.getNumOfCharacters());
+			mCandidateScores = new float[tables.getNumOfCharacters()];
+		}
+	}
+
+	public CharacterPrefilter getCharacterPrefilter() {
+		return mCharacterPrefilter;
+	}
+
+	public CharacterPrior getCharacterPrior() {
+		return mCharacterPrior;
+	}
+
+	// Sets the prior of the user for the current language, or null to try candidates in the language's order
+	public void setCharacterPrior(CharacterPrior prior) {
+		mCharacterPrior = prior;
+	}
+
+	public FieldProfile getFieldProfile() {
+		return mFieldProfile;
+	}
+
+	// Sets the profile of the field written in, e.g., FieldProfile.getFieldProfile(editorInfo.inputType)
+	public void setFieldProfile(FieldProfile profile) {
+		mFieldProfile = (profile == null) ? FieldProfile.ALL_CHARACTERS : profile;
+		mAlphabet = mFieldProfile.getMask(mLanguageTables);
+	}
+
+	public int getNumOfScoredCandidates() {
+		return mNumOfScoredCandidates;
+	}
+
+	// Sets the number of candidates ranked by the scores of their matchers; 1 stops at the first match, as it is found
+	public void setNumOfScoredCandidates(int numOfScoredCandidates) {
+		mNumOfScoredCandidates = Math.max(1, numOfScoredCandidates);
+	}
+
+	public int getMinParallelCandidates() {
+		return mMinParallelCandidates;
+	}
+
+	// Sets the fewest candidates whose matchers are run on all the cores; Integer.MAX_VALUE runs them all serially
+	public void setMinParallelCandidates(int minParallelCandidates) {
+		mMinParallelCandidates = Math.max(1, minParallelCandidates);
+	}
+
+	public StrokeFilterChain getStrokeFilterChain() {
+		return mStrokeFilterChain;
+	}
+
+	/**
+	 * Sets the smoothing filters run over the sampled points of each segment before the curvature is computed.
+	 * Like the rest of the context, the chain must not be used by more than one thread at a time.
+	 * @param chain - filter chain, usually from StrokeFilterChain.getChainForDeviceClass()
+	 */
+	public void setStrokeFilterChain(StrokeFilterChain chain) {
+		mStrokeFilterChain = chain;
+	}
+
+	public String getLanguage() {
+		return mLanguageTables.getLanguage();
+	}
+
+	/**
+	 * Gets the mask of candidate characters for the segments of a character.  The mask must not be
+	 * changed; it is only good until the next lookup with this context.
+	 * @param primitives - primitive character of each segment
+	 * @param numOfSegments - number of segments
+	 */
+	public SegmentMask getCandidates(char primitives[], int numOfSegments) {
+		SegmentMask candidates = mLanguageTables.getCandidates(primitives, numOfSegments, this);
+		if (mAlphabet == null) return candidates;
+
+		mAlphabetCandidates.copy(candidates); // The table's mask may be shared, so it is not changed
+		mAlphabetCandidates.and(mAlphabet);
+		return mAlphabetCandidates;
+	}
+
+	/**
+	 * Gets the mask of the characters matched by their shape whatever the primitives of the segments (see
+	 * CharacterEngine.matchesByShape()), in the field's alphabet.  The mask must not be changed.
+	 */
+	public SegmentMask getShapeCandidates() {
+		SegmentMask candidates = mCharacterPrefilter.getShapeCandidates();
+		if (mAlphabet == null) return candidates;
+
+		mShapeCandidates.copy(candidates);
+		mShapeCandidates.and(mAlphabet);
+		return mShapeCandidates;
+	}
+
+	/**
+	 * Gets the mask of candidate characters of the other interpretations of the ambiguous segments of a character
+	 * (see LanguageTables.getAlternativeCandidates()).  The mask must not be changed; it and the scores are only
+	 * good until the next lookup with this context.
+	 */
+	public SegmentMask getAlternativeCandidates(SegmentStore store) {
+		SegmentMask candidates = mLanguageTables.getAlternativeCandidates(store.primitives, store.alternatives,
+				store.alternativeScores, store.numOfSegments, this);
+		if (mAlphabet != null) {
+			candidates.and(mAlphabet); // The context's own mask
+		}
+		return candidates;
+	}
+
+	// Score, from 0 to 1, of a candidate of the last getAlternativeCandidates() lookup
+	public float getCandidateScore(int index) {
+		return mCandidateScores[index];
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * RecognitionStats counts, for each language, how often each multiset of primitives is written, how many
+ * candidates it has before and after the prefilter, how many matchers run before one matches or all fail, and how
+ * many outcomes are reused from an earlier recognition of the same segments instead.
+ * It also counts the runs, matches and time of the matcher of each character, which shows the matchers that
+ * never match (e.g., empty cases of matchCharacter()) and those worth trying sooner.
+ *
+ * Nothing is counted unless it is enabled, e.g., in debug mode.  Recognizers on several threads may share the
+ * counts of a language, so they are updated under its lock.
+ */
+public class RecognitionStats {
+
+	// TAG for logging the report
+	private static final String TAG = "SkiggleStats";
+
+	public static final String REPORT_FILENAME = "Skiggle_stats.txt";
+
+	private static volatile boolean sEnabled = false;
+	private static final HashMap<String, RecognitionStats> sStats = new HashMap<String, RecognitionStats>();
+
+	private final LanguageTables mLanguageTables;
+	private final HashMap<String, MultisetStats> mMultisets = new HashMap<String, MultisetStats>();
+	private final int mMatcherRuns[]; // Number of times the matcher of each character ran
+	private final int mMatcherMatches[]; // Number of times it matched
+	private final long mMatcherNanos[]; // Total time it took
+	private char mSortedPrimitives[] = new char[CandidateTable.MAX_NUM_OF_SEGMENTS];
+
+	// Counts of the characters written with one multiset of primitives
+	private static class MultisetStats {
+		String primitives;
+		int numOfLookups;
+		long numOfCandidates; // Summed over the lookups
+		long numOfSurvivors; // Candidates left by the prefilter, summed over the lookups
+		long numOfMatchersRun;
+		long numOfMemoHits; // Outcomes of matchers reused instead of run
+		int numOfMatches;
+	}
+
+	public RecognitionStats(LanguageTables tables) {
+		mLanguageTables = tables;
+		mMatcherRuns = new int[tables.getNumOfCharacters()];
+		mMatcherMatches = new int[tables.getNumOfCharacters()];
+		mMatcherNanos = new long[tables.getNumOfCharacters()];
+	} // End of RecognitionStats() constructor
+
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		sEnabled = enabled;
+	}
+
+	// Gets the counts of a language, started afresh if its tables have changed
+	public static synchronized RecognitionStats getRecognitionStats(LanguageTables tables) {
+		RecognitionStats stats = sStats.get(tables.getLanguage());
+		if ((stats == null) || (stats.mLanguageTables != tables)) {
+			stats = new RecognitionStats(tables);
+			sStats.put(tables.getLanguage(), stats);
+		}
+		return stats;
+	} // End of getRecognitionStats() method
+
+	// Clears the counts of all languages
+	public static synchronized void reset() {
+		sStats.clear();
+	}
+
+	/**
+	 * Counts one run of the matcher of a character
+	 * @param index - index of the character in the language's characters
+	 * @param isMatched - whether it matched
+	 * @param nanos - time it took
+	 */
+	public synchronized void recordMatcher(int index, boolean isMatched, long nanos) {
+		mMatcherRuns[index]++;
+		if (isMatched) {
+			mMatcherMatches[index]++;
+		}
+		mMatcherNanos[index] = mMatcherNanos[index] + nanos;
+	}
+
+	/**
+	 * Counts the recognition of one character
+	 * @param primitives - primitive character of each segment
+	 * @param numOfSegments - number of segments
+	 * @param numOfCandidates - number of candidates for the primitives
+	 * @param numOfSurvivors - number of candidates left by the prefilter
+	 * @param numOfMatchersRun - number of matchers run
+	 * @param numOfMemoHits - number of outcomes of matchers reused from an earlier recognition of the segments
+	 * @param isMatched - whether a matcher matched
+	 */
+	public synchronized void recordLookup(char primitives[], int numOfSegments, int numOfCandidates, int numOfSurvivors,
+			int numOfMatchersRun, int numOfMemoHits, boolean isMatched) {
+
+		// The candidates do not depend on the order the primitives were written in, so neither does the key
+		if (mSortedPrimitives.length < numOfSegments) {
+			mSortedPrimitives = new char[numOfSegments];
+		}
+		for (int i = 0; i < numOfSegments; i++) {
+			char c = primitives[i];
+			int j = i;
+			while ((j > 0) && (mSortedPrimitives[j - 1] > c)) {
+				mSortedPrimitives[j] = mSortedPrimitives[j - 1];
+				j--;
+			}
+			mSortedPrimitives[j] = c;
+		}
+		String key = new String(mSortedPrimitives, 0, numOfSegments);
+
+		MultisetStats multiset = mMultisets.get(key);
+		if (multiset == null) {
+			multiset = new MultisetStats();
+			multiset.primitives = key;
+			mMultisets.put(key, multiset);
+		}
+		multiset.numOfLookups++;
+		multiset.numOfCandidates = multiset.numOfCandidates + numOfCandidates;
+		multiset.numOfSurvivors = multiset.numOfSurvivors + numOfSurvivors;
+		multiset.numOfMatchersRun = multiset.numOfMatchersRun + numOfMatchersRun;
+		multiset.numOfMemoHits = multiset.numOfMemoHits + numOfMemoHits;
+		if (isMatched) {
+			multiset.numOfMatches++;
+		}
+	} // End of recordLookup() method
+
+	// Average of a sum over a count, to one decimal place
+	private static String getAverage(long sum, long count) {
+		if (count == 0) return "-";
+		long tenths = (sum * 10 + count / 2) / count;
+		return Long.toString(tenths / 10) + "." + Long.toString(tenths % 10);
+	}
+
+	/**
+	 * Gets the report of the counts: a line per multiset of primitives, most written first, then the share of the
+	 * outcomes of matchers that were reused, then a line per character whose matcher ran, most time taken first
+	 */
+	public synchronized String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append("Language: ").append(mLanguageTables.getLanguage()).append('\n');
+
+		ArrayList<MultisetStats> multisets = new ArrayList<MultisetStats>(mMultisets.values());
+		Collections.sort(multisets, new Comparator<MultisetStats>() {
+			public int compare(MultisetStats a, MultisetStats b) {
+				return b.numOfLookups - a.numOfLookups;
+			}
+		});
+		report.append("Primitives\tLookups\tCandidates\tSurvivors\tMatchers run\tMemo hits\tMatched\n");
+		long numOfMatchersRun = 0;
+		long numOfMemoHits = 0;
+		for (Iterator<MultisetStats> i = multisets.iterator(); i.hasNext();) {
+			MultisetStats multiset = i.next();
+			report.append(multiset.primitives).append('\t');
+			report.append(multiset.numOfLookups).append('\t');
+			report.append(getAverage(multiset.numOfCandidates, multiset.numOfLookups)).append('\t');
+			report.append(getAverage(multiset.numOfSurvivors, multiset.numOfLookups)).append('\t');
+			report.append(getAverage(multiset.numOfMatchersRun, multiset.numOfLookups)).append('\t');
+			report.append(getAverage(multiset.numOfMemoHits, multiset.numOfLookups)).append('\t');
+			report.append(multiset.numOfMatches).append('\n');
+			numOfMatchersRun = numOfMatchersRun + multiset.numOfMatchersRun;
+			numOfMemoHits = numOfMemoHits + multiset.numOfMemoHits;
+		}
+		report.append("Memo hit rate (%)\t").append(getAverage(numOfMemoHits * 100, numOfMemoHits + numOfMatchersRun));
+		report.append('\n');
+
+		ArrayList<Integer> characters = new ArrayList<Integer>();
+		for (int i = 0; i < mMatcherRuns.length; i++) {
+			if (mMatcherRuns[i] > 0) {
+				characters.add(Integer.valueOf(i));
+			}
+		}
+		Collections.sort(characters, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				long nanosA = mMatcherNanos[a.intValue()];
+				long nanosB = mMatcherNanos[b.intValue()];
+				return (nanosA < nanosB) ? 1 : ((nanosA > nanosB) ? -1 : 0);
+			}
+		});
+		report.append("Character\tRuns\tMatches\tMicroseconds per run\n");
+		for (Iterator<Integer> i = characters.iterator(); i.hasNext();) {
+			int index = i.next().intValue();
+			report.appendCodePoint(mLanguageTables.getCodePoint(index)).append('\t');
+			report.append(mMatcherRuns[index]).append('\t');
+			report.append(mMatcherMatches[index]).append('\t');
+			report.append(getAverage(mMatcherNanos[index] / 1000, mMatcherRuns[index])).append('\n');
+		}
+		return report.toString();
+	} // End of getReport() method
+
+	// Gets the reports of all the languages counted so far
+	public static synchronized String getReports() {
+		StringBuilder reports = new StringBuilder();
+		for (Iterator<RecognitionStats> i = sStats.values().iterator(); i.hasNext();) {
+			reports.append(i.next().getReport()).append('\n');
+		}
+		return reports.toString();
+	}
+
+	/**
+	 * Logs the reports of all the languages and writes them to a private file of the app, REPORT_FILENAME
+	 * @param context - context of the app
+	 */
+	public static void writeReports(Context context) {
+		String reports = getReports();
+		if (reports.length() == 0) return;
+
+		Log.i(TAG, reports);
+		OutputStream out = null;
+		try {
+			out = context.openFileOutput(REPORT_FILENAME, Context.MODE_PRIVATE);
+			out.write(reports.getBytes("UTF-8"));
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Cannot write report", e);
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				}
+				catch (IOException e) {
+					// Nothing more can be done
+				}
+			}
+		}
+	} // End of writeReports() method
+
+}
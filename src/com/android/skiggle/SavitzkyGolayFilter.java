@@ -0,0 +1,70 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * Savitzky-Golay (quadratic/cubic least-squares) smoothing over 5, 7 or 9 points.  Unlike the moving average
+ * it keeps the height of peaks, so corners and tight curves are not rounded off as much.  The window shrinks
+ * near the ends of the stroke and the two end points are left where they are.
+ */
+public class SavitzkyGolayFilter implements StrokeFilter {
+
+	// Convolution coefficients (centre first) and their normalizing factors for half windows of 2, 3 and 4
+	private static final float COEFFS[][] = {
+		{17.0F, 12.0F, -3.0F},
+		{7.0F, 6.0F, 3.0F, -2.0F},
+		{59.0F, 54.0F, 39.0F, 14.0F, -21.0F}};
+	private static final float NORMS[] = {35.0F, 21.0F, 231.0F};
+
+	public static final int MIN_HALF_WINDOW = 2;
+	public static final int MAX_HALF_WINDOW = 4;
+
+	private int mHalfWindow;
+	private float mHistory[]; // Original (unfiltered) values of the last halfWindow points already overwritten
+
+	public SavitzkyGolayFilter(int halfWindow) {
+		mHalfWindow = Math.max(MIN_HALF_WINDOW, Math.min(MAX_HALF_WINDOW, halfWindow));
+		mHistory = new float[mHalfWindow + 1];
+	} // End of SavitzkyGolayFilter() constructor
+
+	public void filter(float x[], float y[], int numOfPoints) {
+		filterValues(x, numOfPoints);
+		filterValues(y, numOfPoints);
+	} // End of filter() method
+
+	private void filterValues(float values[], int numOfPoints) {
+		int historySize = mHalfWindow + 1;
+		for (int i = 0; i < numOfPoints; i++) {
+			int w = Math.min(mHalfWindow, Math.min(i, numOfPoints - 1 - i));
+			float original = values[i];
+			if (w >= MIN_HALF_WINDOW) {
+				float coeffs[] = COEFFS[w - MIN_HALF_WINDOW];
+				float sum = coeffs[0] * values[i];
+				for (int k = 1; k <= w; k++) {
+					// Points before i have been overwritten so read their original values from the history
+					sum = sum + coeffs[k] * (mHistory[(i - k) % historySize] + values[i + k]);
+				}
+				values[i] = sum/NORMS[w - MIN_HALF_WINDOW];
+			}
+			mHistory[i % historySize] = original;
+		}
+	} // End of filterValues() method
+
+}
@@ -0,0 +1,157 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * SegmentGeometry is the geometry of segments shared by the matchers of all the languages: the ends of a segment
+ * in order, points along it, where two cross, and the shapes (caret, 'V', '+', circle) that several languages'
+ * characters are made of.  Results are put in arrays the caller owns, like those of CharacterFeatures, which
+ * computes each once per segment with these, so nothing is allocated per call.
+ */
+public class SegmentGeometry {
+
+	private SegmentGeometry() {}
+
+	/**
+	 * Gets the ends of a segment, top end first
+	 * @param coords - filled with the ends as {topX, topY, bottomX, bottomY}
+	 */
+	public static void getTopBottomCoords(SegmentStore store, int i, float coords[]) {
+		// Initially assume the start of the stroke is the top
+		coords[0] = store.startX[i];
+		coords[1] = store.startY[i];
+		coords[2] = store.endX[i];
+		coords[3] = store.endY[i];
+		// Swap the top and bottom ends of the stroke if necessary
+		if (coords[3] < coords[1]) {
+			coords[0] = store.endX[i];
+			coords[1] = store.endY[i];
+			coords[2] = store.startX[i];
+			coords[3] = store.startY[i];
+		}
+	} // End of getTopBottomCoords() method
+
+	/**
+	 * Gets the ends of a segment, left end first
+	 * @param coords - filled with the ends as {leftX, leftY, rightX, rightY}
+	 */
+	public static void getLeftRightCoords(SegmentStore store, int i, float coords[]) {
+		// Initially assume the start of the stroke is the left
+		coords[0] = store.startX[i];
+		coords[1] = store.startY[i];
+		coords[2] = store.endX[i];
+		coords[3] = store.endY[i];
+		// Swap the left and right ends of the stroke if necessary
+		if (coords[2] < coords[0]) {
+			coords[0] = store.endX[i];
+			coords[1] = store.endY[i];
+			coords[2] = store.startX[i];
+			coords[3] = store.startY[i];
+		}
+	} // End of getLeftRightCoords() method
+
+	// Points at 1/3 and 2/3 of the way from the first to the second point of coords, as {x1, y1, x2, y2}
+	public static void getPointsAt1stAnd2ndThirdMarks(float coords[], float thirds[]) {
+		float oneThirdX = (coords[2] - coords[0])/3; // one third the distance between the x-coords
+		float oneThirdY = (coords[3] - coords[1])/3; // one third the distance between the y-coords
+		thirds[0] = coords[0] + oneThirdX;
+		thirds[1] = coords[1] + oneThirdY;
+		thirds[2] = coords[0] + 2 * oneThirdX;
+		thirds[3] = coords[1] + 2 * oneThirdY;
+	}
+
+	/**
+	 * Gets the point where the lines through the ends of two segments cross; parallel ones are taken to cross
+	 * half way between their mid-points
+	 * @param coords1 - ends of the first segment, as {x1, y1, x2, y2}
+	 * @param coords2 - ends of the second segment
+	 * @param intersection - filled with the point, as {x, y}
+	 * @return true if the point is on both segments (between their ends)
+	 */
+	public static boolean getIntersection(float coords1[], float coords2[], float intersection[]) {
+		// Lines through the ends, as p1 + t * d1 and p2 + u * d2
+		float d1X = coords1[2] - coords1[0];
+		float d1Y = coords1[3] - coords1[1];
+		float d2X = coords2[2] - coords2[0];
+		float d2Y = coords2[3] - coords2[1];
+		float cross = d1X * d2Y - d1Y * d2X;
+		if (cross == 0) {
+			intersection[0] = ((coords1[0] + coords1[2])/2 + (coords2[0] + coords2[2])/2)/2;
+			intersection[1] = ((coords1[1] + coords1[3])/2 + (coords2[1] + coords2[3])/2)/2;
+			return false;
+		}
+		float t = ((coords2[0] - coords1[0]) * d2Y - (coords2[1] - coords1[1]) * d2X)/cross;
+		float u = ((coords2[0] - coords1[0]) * d1Y - (coords2[1] - coords1[1]) * d1X)/cross;
+		intersection[0] = coords1[0] + t * d1X;
+		intersection[1] = coords1[1] + t * d1Y;
+		return (t >= 0) && (t <= 1) && (u >= 0) && (u <= 1);
+	} // End of getIntersection() method
+
+	// Check to see if the gap between the top (bottom) of a caret ('/' and '\') or V ('\' or '/') are close enough
+	// That is, the gap between the tops for caret (or bottoms for 'V') of FSLASH and BSLASH are less than one
+	// quarter the distance between their bases
+	public static boolean isCaretShape(CharacterFeatures features, int i1, int i2) {
+		float gaps[] = features.getTopBottomGaps(i1, i2);
+		return (gaps[0] < 0.25 * gaps[1]);
+	}
+
+	public static boolean isVShape(CharacterFeatures features, int i1, int i2) {
+		float gaps[] = features.getTopBottomGaps(i1, i2);
+		return (gaps[1] < 0.25 * gaps[0]);
+	}
+
+	// Caret character (or inverted V) is made up of a forward slash ('/') and a back slash ('\')
+	public static boolean isCaret(PenCharacter pChar) {
+		// Caret has only two pen stroke characters.
+		return (pChar.segmentStore.numOfSegments == 2) && isCaretShape(pChar.getFeatures(), 0, 1);
+	}
+
+	// 'O', 'o' and the Chinese zero are made up of a single stroke, CIRCLE
+	public static boolean isOShape(PenCharacter pChar) {
+		return (pChar.segmentStore.numOfSegments == 1) && (pChar.segmentStore.primitives[0] == PenSegment.CIRCLE_CHAR);
+	}
+
+	// '+' is made up of an HLINE and a VLINE that cross near their mid-points
+	public static boolean isPlusSign(PenCharacter pChar) {
+		SegmentStore store = pChar.segmentStore;
+		if (store.numOfSegments != 2) return false;
+
+		int hLineIndex = -1;
+		int vLineIndex = -1;
+		for (int i = 0; i < store.numOfSegments; i++) {
+			if (store.primitives[i] == PenSegment.HLINE_CHAR) {
+				hLineIndex = i;
+			}
+			else if (store.primitives[i] == PenSegment.VLINE_CHAR) {
+				vLineIndex = i;
+			}
+		}
+		if ((hLineIndex < 0) || (vLineIndex < 0)) return false;
+
+		// Check to make sure HLINE and VLINE cross sufficiently to form the '+', i.e., the gap between their mid
+		// points is less than a quarter of the larger of the gaps between their tops and between their bottoms
+		CharacterFeatures features = pChar.getFeatures();
+		float gaps[] = features.getTopBottomGaps(vLineIndex, hLineIndex);
+		float midGap = PenUtil.distanceBetween2Points(features.getMidX(vLineIndex), features.getMidY(vLineIndex),
+				features.getMidX(hLineIndex), features.getMidY(hLineIndex));
+		return (midGap < (.25 * Math.max(gaps[0], gaps[1])));
+	} // End of isPlusSign() method
+
+}
@@ -0,0 +1,255 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.nio.LongBuffer;
+
+/**
+ * SegmentMask is a fixed-width set of bits, one for each character of the language's alphabet,
+ * backed by an array of longs (two for the 95 English characters).  Unlike java.util.BitSet the
+ * logical operations work in place on masks of the same width and copying reuses the array, so
+ * combining masks does not allocate.
+ *
+ * Masks stored in a language pack are either dense, every word in turn, or sparse, only the words
+ * that are not 0 with their indices, for alphabets of thousands of characters whose masks have few
+ * bits set (see copySparse()).
+ */
+public class SegmentMask {
+
+	private static final int BITS_PER_WORD = 64;
+	private static final int ADDRESS_BITS_PER_WORD = 6; // log2 of BITS_PER_WORD
+
+	private long mWords[];
+	private int mNumOfBits;
+
+	public SegmentMask(int numOfBits) {
+		mNumOfBits = numOfBits;
+		mWords = new long[getNumOfWords(numOfBits)];
+	} // End of SegmentMask() constructor
+
+	// Mask with bit i set if character i of the bit string is '1'
+	public SegmentMask(String bitString) {
+		this(bitString.length());
+		for (int i = 0; i < mNumOfBits; i++) {
+			if (bitString.charAt(i) == '1') {
+				set(i);
+			}
+		}
+	} // End of SegmentMask() constructor
+
+	public SegmentMask(SegmentMask mask) {
+		mNumOfBits = mask.mNumOfBits;
+		mWords = new long[mask.mWords.length];
+		System.arraycopy(mask.mWords, 0, mWords, 0, mWords.length);
+	} // End of SegmentMask() copy constructor
+
+	// Number of longs backing a mask of numOfBits bits, e.g., for laying masks out in a language pack
+	public static int getNumOfWords(int numOfBits) {
+		return (numOfBits + BITS_PER_WORD - 1) >> ADDRESS_BITS_PER_WORD;
+	}
+
+	// Number of bits in the mask (the size of the alphabet)
+	public int size() {
+		return mNumOfBits;
+	}
+
+	public void set(int bitIndex) {
+		mWords[bitIndex >> ADDRESS_BITS_PER_WORD] |= (1L << bitIndex);
+	}
+
+	public void clear(int bitIndex) {
+		mWords[bitIndex >> ADDRESS_BITS_PER_WORD] &= ~(1L << bitIndex);
+	}
+
+	public boolean get(int bitIndex) {
+		return (bitIndex < mNumOfBits) && ((mWords[bitIndex >> ADDRESS_BITS_PER_WORD] & (1L << bitIndex)) != 0);
+	}
+
+	// Clear all the bits
+	public void clear() {
+		for (int i = 0; i < mWords.length; i++) {
+			mWords[i] = 0L;
+		}
+	}
+
+	/**
+	 * Makes this mask a copy of another.  The array is only reallocated if the widths differ.
+	 * @param mask - mask to copy
+	 */
+	public void copy(SegmentMask mask) {
+		if (mWords.length != mask.mWords.length) {
+			mWords = new long[mask.mWords.length];
+		}
+		mNumOfBits = mask.mNumOfBits;
+		System.arraycopy(mask.mWords, 0, mWords, 0, mWords.length);
+	} // End of copy() method
+
+	// Makes this mask a copy of the mask stored in a buffer from word index offset.  Only absolute gets are
+	// used, so the buffer (e.g., of a memory-mapped language pack) can be shared by threads.
+	public void copy(LongBuffer words, int offset) {
+		for (int i = 0; i < mWords.length; i++) {
+			mWords[i] = words.get(offset + i);
+		}
+	}
+
+	// Bits of this mask AND those of the mask stored in a buffer from word index offset, in place
+	public void and(LongBuffer words, int offset) {
+		for (int i = 0; i < mWords.length; i++) {
+			mWords[i] &= words.get(offset + i);
+		}
+	}
+
+	// Stores this mask in a buffer from word index offset
+	public void write(LongBuffer words, int offset) {
+		for (int i = 0; i < mWords.length; i++) {
+			words.put(offset + i, mWords[i]);
+		}
+	}
+
+	/**
+	 * Makes this mask a copy of the sparse mask stored in a buffer from word index offset (see writeSparse()).
+	 * Only absolute gets are used, as in copy().
+	 */
+	public void copySparse(LongBuffer words, int offset) {
+		clear();
+		int numOfWords = (int) words.get(offset);
+		for (int k = 0; k < numOfWords; k++) {
+			int i = (int) words.get(offset + 1 + 2 * k);
+			mWords[i] = words.get(offset + 2 + 2 * k);
+		}
+	}
+
+	// Bits of this mask AND those of the sparse mask stored in a buffer from word index offset, in place
+	public void andSparse(LongBuffer words, int offset) {
+		int numOfWords = (int) words.get(offset);
+		int i = 0;
+		for (int k = 0; k < numOfWords; k++) {
+			int wordIndex = (int) words.get(offset + 1 + 2 * k);
+			while (i < wordIndex) {
+				mWords[i++] = 0L; // Words the sparse mask leaves out are all 0's
+			}
+			mWords[i] &= words.get(offset + 2 + 2 * k);
+			i++;
+		}
+		while (i < mWords.length) {
+			mWords[i++] = 0L;
+		}
+	} // End of andSparse() method
+
+	// Number of longs taken by this mask stored as a sparse mask: a count, then the index and value of each word not 0
+	public int getNumOfSparseWords() {
+		int numOfWords = 0;
+		for (int i = 0; i < mWords.length; i++) {
+			if (mWords[i] != 0L) {
+				numOfWords++;
+			}
+		}
+		return 1 + 2 * numOfWords;
+	}
+
+	// Stores this mask as a sparse mask in a buffer from word index offset, in getNumOfSparseWords() longs
+	public void writeSparse(LongBuffer words, int offset) {
+		int k = 0;
+		for (int i = 0; i < mWords.length; i++) {
+			if (mWords[i] != 0L) {
+				words.put(offset + 1 + 2 * k, i);
+				words.put(offset + 2 + 2 * k, mWords[i]);
+				k++;
+			}
+		}
+		words.put(offset, k);
+	}
+
+	// Bits of this mask AND those of another, in place.  Bits beyond the width of the other mask are cleared.
+	public void and(SegmentMask mask) {
+		int numOfCommonWords = Math.min(mWords.length, mask.mWords.length);
+		for (int i = 0; i < numOfCommonWords; i++) {
+			mWords[i] &= mask.mWords[i];
+		}
+		for (int i = numOfCommonWords; i < mWords.length; i++) {
+			mWords[i] = 0L;
+		}
+	} // End of and() method
+
+	// Bits of this mask OR those of another, in place.  Bits beyond the width of this mask are ignored.
+	public void or(SegmentMask mask) {
+		int numOfCommonWords = Math.min(mWords.length, mask.mWords.length);
+		for (int i = 0; i < numOfCommonWords; i++) {
+			mWords[i] |= mask.mWords[i];
+		}
+	} // End of or() method
+
+	// Clear the bits of this mask that are set in another, in place
+	public void andNot(SegmentMask mask) {
+		int numOfCommonWords = Math.min(mWords.length, mask.mWords.length);
+		for (int i = 0; i < numOfCommonWords; i++) {
+			mWords[i] &= ~mask.mWords[i];
+		}
+	} // End of andNot() method
+
+	public boolean isEmpty() {
+		for (int i = 0; i < mWords.length; i++) {
+			if (mWords[i] != 0L) return false;
+		}
+		return true;
+	}
+
+	// Number of bits set
+	public int cardinality() {
+		int count = 0;
+		for (int i = 0; i < mWords.length; i++) {
+			count = count + Long.bitCount(mWords[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the index of the first set bit at or after fromIndex, for going through the set bits with
+	 * for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1))
+	 * @param fromIndex - bit index to start from
+	 * @return index of the next set bit, or -1 if there is none
+	 */
+	public int nextSetBit(int fromIndex) {
+		if (fromIndex >= mNumOfBits) return -1;
+
+		int wordIndex = fromIndex >> ADDRESS_BITS_PER_WORD;
+		long word = mWords[wordIndex] & (-1L << fromIndex); // Drop the bits before fromIndex
+		while (true) {
+			if (word != 0L) {
+				return (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+			}
+			wordIndex++;
+			if (wordIndex == mWords.length) return -1;
+			word = mWords[wordIndex];
+		}
+	} // End of nextSetBit() method
+
+	// Same format as java.util.BitSet.toString(), e.g. "{0, 4, 17}"
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+			if (sb.length() > 1) sb.append(", ");
+			sb.append(i);
+		}
+		return sb.append('}').toString();
+	}
+
+}
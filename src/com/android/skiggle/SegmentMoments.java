@@ -0,0 +1,199 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * SegmentMoments holds prefix sums (moments) of the points sampled along a stroke so that the
+ * centroid, mean tangent angle, mean curvature, least-squares line fit and circle fit residuals of any
+ * index range [startIndex, endIndex) of the points can be computed in constant time.
+ *
+ * Element i of each prefix array is the sum over points 0 to i-1, so the sum over a range is
+ * the difference of two array elements.  Coordinates are taken relative to the first point to
+ * keep the higher moments well conditioned.
+ */
+public class SegmentMoments {
+
+	private float mOriginX = 0.0F; // x-coord of the first point, subtracted from all x-coords
+	private float mOriginY = 0.0F; // y-coord of the first point, subtracted from all y-coords
+
+	// Prefix sums, each with one more element than the number of points
+	private double mSumX[];
+	private double mSumY[];
+	private double mSumXX[];
+	private double mSumYY[];
+	private double mSumXY[];
+	private double mSumXXX[]; // Used for the circle fit only
+	private double mSumXXY[]; // Used for the circle fit only
+	private double mSumXYY[]; // Used for the circle fit only
+	private double mSumYYY[]; // Used for the circle fit only
+	private double mSumRR[]; // Sum of (x^2 + y^2)^2, used for the circle fit residual only
+	private double mSumAngle[];
+	private double mSumKappa[];
+
+	public SegmentMoments(int maxNumOfPoints) {
+		int size = maxNumOfPoints + 1;
+		mSumX = new double[size];
+		mSumY = new double[size];
+		mSumXX = new double[size];
+		mSumYY = new double[size];
+		mSumXY = new double[size];
+		mSumXXX = new double[size];
+		mSumXXY = new double[size];
+		mSumXYY = new double[size];
+		mSumYYY = new double[size];
+		mSumRR = new double[size];
+		mSumAngle = new double[size];
+		mSumKappa = new double[size];
+	} // End of SegmentMoments() constructor
+
+	/**
+	 * Builds the prefix sums for the first numOfPoints points.  The arrays are not copied.
+	 * @param x - x-coords of the points
+	 * @param y - y-coords of the points
+	 * @param angle - tangent angle (in degrees) at each point
+	 * @param kappa - curvature at each point
+	 * @param numOfPoints - number of points to use
+	 */
+	public void build(float x[], float y[], float angle[], float kappa[], int numOfPoints) {
+		mOriginX = (numOfPoints > 0) ? x[0] : 0.0F;
+		mOriginY = (numOfPoints > 0) ? y[0] : 0.0F;
+
+		for (int i = 0; i < numOfPoints; i++) {
+			double px = x[i] - mOriginX;
+			double py = y[i] - mOriginY;
+			double rr = px * px + py * py;
+
+			mSumX[i + 1] = mSumX[i] + px;
+			mSumY[i + 1] = mSumY[i] + py;
+			mSumXX[i + 1] = mSumXX[i] + px * px;
+			mSumYY[i + 1] = mSumYY[i] + py * py;
+			mSumXY[i + 1] = mSumXY[i] + px * py;
+			mSumXXX[i + 1] = mSumXXX[i] + px * px * px;
+			mSumXXY[i + 1] = mSumXXY[i] + px * px * py;
+			mSumXYY[i + 1] = mSumXYY[i] + px * py * py;
+			mSumYYY[i + 1] = mSumYYY[i] + py * py * py;
+			mSumRR[i + 1] = mSumRR[i] + rr * rr;
+			mSumAngle[i + 1] = mSumAngle[i] + angle[i];
+			mSumKappa[i + 1] = mSumKappa[i] + kappa[i];
+		}
+	} // End of build() method
+
+	// Centroid (average x-coord) of the points in the range
+	public float getCentroidX(int startIndex, int endIndex) {
+		int n = endIndex - startIndex;
+		return (n > 0) ? (float) ((mSumX[endIndex] - mSumX[startIndex]) / n) + mOriginX : mOriginX;
+	}
+
+	// Centroid (average y-coord) of the points in the range
+	public float getCentroidY(int startIndex, int endIndex) {
+		int n = endIndex - startIndex;
+		return (n > 0) ? (float) ((mSumY[endIndex] - mSumY[startIndex]) / n) + mOriginY : mOriginY;
+	}
+
+	// Sum of the tangent angles of the points in the range
+	public float getSumAngle(int startIndex, int endIndex) {
+		return (float) (mSumAngle[endIndex] - mSumAngle[startIndex]);
+	}
+
+	// Sum of the curvature of the points in the range
+	public float getSumKappa(int startIndex, int endIndex) {
+		return (float) (mSumKappa[endIndex] - mSumKappa[startIndex]);
+	}
+
+	// Mean curvature of the points in the range
+	public float getMeanKappa(int startIndex, int endIndex) {
+		int n = endIndex - startIndex;
+		return (n > 0) ? getSumKappa(startIndex, endIndex) / n : 0.0F;
+	}
+
+	// Second central moments of the points in the range as {sXX, sYY, sXY}, that is, n times the covariance
+	private void getCentralMoments(int startIndex, int endIndex, double moments[]) {
+		int n = endIndex - startIndex;
+		double sx = mSumX[endIndex] - mSumX[startIndex];
+		double sy = mSumY[endIndex] - mSumY[startIndex];
+		moments[0] = (mSumXX[endIndex] - mSumXX[startIndex]) - sx * sx / n;
+		moments[1] = (mSumYY[endIndex] - mSumYY[startIndex]) - sy * sy / n;
+		moments[2] = (mSumXY[endIndex] - mSumXY[startIndex]) - sx * sy / n;
+	}
+
+	/**
+	 * Gets the root mean square distance of the points in the range from their total least-squares line
+	 */
+	public float getLineFitResidual(int startIndex, int endIndex) {
+		int n = endIndex - startIndex;
+		if (n < 3) return 0.0F;
+		double m[] = {0.0D, 0.0D, 0.0D};
+		getCentralMoments(startIndex, endIndex, m);
+		double halfDiff = (m[0] - m[1]) / 2;
+		// Smallest eigenvalue of the scatter matrix is the sum of the squared distances from the line
+		double minEigenValue = (m[0] + m[1]) / 2 - Math.sqrt(halfDiff * halfDiff + m[2] * m[2]);
+		return (float) Math.sqrt(Math.max(0.0D, minEigenValue) / n);
+	}
+
+	/**
+	 * Gets the approximate root mean square distance of the points in the range from their
+	 * algebraic (Kasa) least-squares circle, or Float.MAX_VALUE if no circle fits (for example,
+	 * the points lie on a straight line)
+	 */
+	public float getCircleFitResidual(int startIndex, int endIndex) {
+		int n = endIndex - startIndex;
+		if (n < 4) return Float.MAX_VALUE;
+
+		double sx = mSumX[endIndex] - mSumX[startIndex];
+		double sy = mSumY[endIndex] - mSumY[startIndex];
+		double sxx = mSumXX[endIndex] - mSumXX[startIndex];
+		double syy = mSumYY[endIndex] - mSumYY[startIndex];
+		double sxy = mSumXY[endIndex] - mSumXY[startIndex];
+		double sz = sxx + syy; // z = x^2 + y^2
+		double szx = (mSumXXX[endIndex] - mSumXXX[startIndex]) + (mSumXYY[endIndex] - mSumXYY[startIndex]);
+		double szy = (mSumXXY[endIndex] - mSumXXY[startIndex]) + (mSumYYY[endIndex] - mSumYYY[startIndex]);
+		double szz = mSumRR[endIndex] - mSumRR[startIndex];
+
+		// Minimize sum of (z + D*x + E*y + F)^2 by solving the 3x3 normal equations with Cramer's rule
+		double det = sxx * (syy * n - sy * sy) - sxy * (sxy * n - sy * sx) + sx * (sxy * sy - syy * sx);
+		if (Math.abs(det) < 1e-9) return Float.MAX_VALUE;
+		double r1 = -szx;
+		double r2 = -szy;
+		double r3 = -sz;
+		double d = (r1 * (syy * n - sy * sy) - sxy * (r2 * n - sy * r3) + sx * (r2 * sy - syy * r3)) / det;
+		double e = (sxx * (r2 * n - r3 * sy) - r1 * (sxy * n - sy * sx) + sx * (sxy * r3 - r2 * sx)) / det;
+		double f = (sxx * (syy * r3 - sy * r2) - sxy * (sxy * r3 - r2 * sx) + r1 * (sxy * sy - syy * sx)) / det;
+
+		double radiusSquared = (d * d + e * e) / 4 - f;
+		if (radiusSquared <= 0) return Float.MAX_VALUE;
+
+		double algebraicResidual = szz + d * d * sxx + e * e * syy + n * f * f
+			+ 2 * d * szx + 2 * e * szy + 2 * f * sz
+			+ 2 * d * e * sxy + 2 * d * f * sx + 2 * e * f * sy;
+
+		// The algebraic distance of a point near the circle is about 2 * radius times its geometric distance
+		return (float) (Math.sqrt(Math.max(0.0D, algebraicResidual) / n) / (2 * Math.sqrt(radiusSquared)));
+	}
+
+	/**
+	 * Gets the fit error of the points in the range to a single primitive, the smaller of the
+	 * line and circle fit residuals, weighted by the number of points in the range
+	 */
+	public float getPrimitiveFitError(int startIndex, int endIndex) {
+		int n = endIndex - startIndex;
+		return n * Math.min(getLineFitResidual(startIndex, endIndex), getCircleFitResidual(startIndex, endIndex));
+	}
+
+}
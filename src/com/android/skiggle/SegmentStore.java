@@ -0,0 +1,191 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import java.util.List;
+
+/**
+ * SegmentStore holds the features of the segments of a character in parallel primitive arrays,
+ * one array per feature, so the character matchers can read them by segment index without
+ * going through the PenSegment (Path) objects.
+ */
+public class SegmentStore {
+
+	private static final int INITIAL_CAPACITY = 4; // Most characters have at most four segments
+
+	public int numOfSegments = 0;
+	private int mNumOfClears = 0; // Tells the features computed from the segments (see CharacterFeatures) they are gone
+
+	public char primitives[]; // Primitive label (e.g. PenSegment.VLINE_CHAR) of each segment
+	public char alternatives[]; // Next most likely primitive of each segment, or 0 if it is not ambiguous
+	public float alternativeScores[]; // How likely each alternative is next to the primitive, from 0 to 1
+	public boolean hasCurvedStart[];
+	public float startX[];
+	public float startY[];
+	public float endX[];
+	public float endY[];
+	public float left[]; // Bounding box of each segment
+	public float top[];
+	public float right[];
+	public float bottom[];
+	public float avgX[];
+	public float avgY[];
+	public float avgKappa[];
+
+	public SegmentStore() {
+		allocate(INITIAL_CAPACITY);
+	} // End of SegmentStore() constructor
+
+	// Copy of the store; the arrays are copied so that later additions to either store are not shared
+	public SegmentStore(SegmentStore store) {
+		allocate(Math.max(INITIAL_CAPACITY, store.numOfSegments));
+		numOfSegments = store.numOfSegments;
+		System.arraycopy(store.primitives, 0, primitives, 0, numOfSegments);
+		System.arraycopy(store.alternatives, 0, alternatives, 0, numOfSegments);
+		System.arraycopy(store.alternativeScores, 0, alternativeScores, 0, numOfSegments);
+		System.arraycopy(store.hasCurvedStart, 0, hasCurvedStart, 0, numOfSegments);
+		System.arraycopy(store.startX, 0, startX, 0, numOfSegments);
+		System.arraycopy(store.startY, 0, startY, 0, numOfSegments);
+		System.arraycopy(store.endX, 0, endX, 0, numOfSegments);
+		System.arraycopy(store.endY, 0, endY, 0, numOfSegments);
+		System.arraycopy(store.left, 0, left, 0, numOfSegments);
+		System.arraycopy(store.top, 0, top, 0, numOfSegments);
+		System.arraycopy(store.right, 0, right, 0, numOfSegments);
+		System.arraycopy(store.bottom, 0, bottom, 0, numOfSegments);
+		System.arraycopy(store.avgX, 0, avgX, 0, numOfSegments);
+		System.arraycopy(store.avgY, 0, avgY, 0, numOfSegments);
+		System.arraycopy(store.avgKappa, 0, avgKappa, 0, numOfSegments);
+	} // End of SegmentStore() copy constructor
+
+	private void allocate(int capacity) {
+		primitives = new char[capacity];
+		alternatives = new char[capacity];
+		alternativeScores = new float[capacity];
+		hasCurvedStart = new boolean[capacity];
+		startX = new float[capacity];
+		startY = new float[capacity];
+		endX = new float[capacity];
+		endY = new float[capacity];
+		left = new float[capacity];
+		top = new float[capacity];
+		right = new float[capacity];
+		bottom = new float[capacity];
+		avgX = new float[capacity];
+		avgY = new float[capacity];
+		avgKappa = new float[capacity];
+	} // End of allocate() method
+
+	private static float[] resize(float src[], int capacity) {
+		float dst[] = new float[capacity];
+		System.arraycopy(src, 0, dst, 0, Math.min(src.length, capacity));
+		return dst;
+	}
+
+	// Double the capacity of all the arrays
+	private void grow() {
+		int capacity = 2 * primitives.length;
+		char newPrimitives[] = new char[capacity];
+		System.arraycopy(primitives, 0, newPrimitives, 0, numOfSegments);
+		primitives = newPrimitives;
+		char newAlternatives[] = new char[capacity];
+		System.arraycopy(alternatives, 0, newAlternatives, 0, numOfSegments);
+		alternatives = newAlternatives;
+		alternativeScores = resize(alternativeScores, capacity);
+		boolean newHasCurvedStart[] = new boolean[capacity];
+		System.arraycopy(hasCurvedStart, 0, newHasCurvedStart, 0, numOfSegments);
+		hasCurvedStart = newHasCurvedStart;
+		startX = resize(startX, capacity);
+		startY = resize(startY, capacity);
+		endX = resize(endX, capacity);
+		endY = resize(endY, capacity);
+		left = resize(left, capacity);
+		top = resize(top, capacity);
+		right = resize(right, capacity);
+		bottom = resize(bottom, capacity);
+		avgX = resize(avgX, capacity);
+		avgY = resize(avgY, capacity);
+		avgKappa = resize(avgKappa, capacity);
+	} // End of grow() method
+
+	/**
+	 * Appends the features of a segment whose primitive label has been found
+	 * @param pSegment - segment from PenStroke.segmentStroke()
+	 */
+	public void add(PenSegment pSegment) {
+		if (numOfSegments == primitives.length) {
+			grow();
+		}
+		int i = numOfSegments;
+		primitives[i] = pSegment.penSegmentCharacter;
+		alternatives[i] = (pSegment.alternativeCharacter == null) ? 0 : pSegment.alternativeCharacter.charValue();
+		alternativeScores[i] = pSegment.alternativeScore;
+		hasCurvedStart[i] = pSegment.hasCurvedStart;
+		startX[i] = pSegment.posStart[0];
+		startY[i] = pSegment.posStart[1];
+		endX[i] = pSegment.posEnd[0];
+		endY[i] = pSegment.posEnd[1];
+		left[i] = pSegment.boundingRectF.left;
+		top[i] = pSegment.boundingRectF.top;
+		right[i] = pSegment.boundingRectF.right;
+		bottom[i] = pSegment.boundingRectF.bottom;
+		avgX[i] = pSegment.avgX;
+		avgY[i] = pSegment.avgY;
+		avgKappa[i] = pSegment.avgKappa;
+		numOfSegments++;
+	} // End of add() method
+
+	public void addAll(List<PenSegment> pSegments) {
+		int size = pSegments.size();
+		for (int i = 0; i < size; i++) {
+			add(pSegments.get(i));
+		}
+	} // End of addAll() method
+
+	public void clear() {
+		numOfSegments = 0;
+		mNumOfClears++;
+	}
+
+	// Number of times the store was cleared
+	public int getNumOfClears() {
+		return mNumOfClears;
+	}
+
+	// Height of the bounding box of segment i
+	public float getHeight(int i) {
+		return Math.abs(bottom[i] - top[i]);
+	}
+
+	// Width of the bounding box of segment i
+	public float getWidth(int i) {
+		return Math.abs(right[i] - left[i]);
+	}
+
+	// x-coord of the center of the bounding box of segment i
+	public float getCenterX(int i) {
+		return (left[i] + right[i]) / 2;
+	}
+
+	// y-coord of the center of the bounding box of segment i
+	public float getCenterY(int i) {
+		return (top[i] + bottom[i]) / 2;
+	}
+
+}
@@ -21,8 +21,6 @@ package com.android.skiggle;
 
 
 import com.android.skiggle.R;
-import com.android.skiggle.english.SegmentBitSetEn;
-import com.android.skiggle.chinese.SegmentBitSetCn;
 
 import android.app.Activity;
 import android.content.Context;
@@ -52,8 +50,8 @@ public class Skiggle extends Activity {
 	protected static final String APP_TITLE = "Skiggle"; // Title of the app
 	protected static final String PREFERENCES_FILENAME = "Skiggle_preferences";
 	
-	protected static final String CHINESE_MODE = "Chinese"; // Chinese handwriting mode
-	protected static final String ENGLISH_MODE = "English"; // English handwriting mode
+	public static final String CHINESE_MODE = "Chinese"; // Chinese handwriting mode
+	public static final String ENGLISH_MODE = "English"; // English handwriting mode
 	protected static final String DEFAULT_LANGUAGE_MODE = ENGLISH_MODE; // Default language mode is English
 	
 	// TODO: Use res/values/colors.xml?
@@ -67,6 +65,8 @@ public class Skiggle extends Activity {
 	
 	// Global variables
 	protected static String sLanguage = ENGLISH_MODE; // Set default language to English
+	protected static boolean sArchiveInk = false; // Keep the (simplified) strokes written, for support and re-training
+	protected static int sStrokeFilterDeviceClass = StrokeFilterChain.DEFAULT_DEVICE_CLASS; // Stroke smoothing for the touch screen
 
 	protected static int sDefaultPenColor = AQUA; // aqua
 	protected static int sDefaultCanvasColor = WHITE;  // White color
@@ -93,18 +93,11 @@ public class Skiggle extends Activity {
 	protected static Paint sTextPaint;
 	protected static Context sContext;
 
-	// TODO - Move to the WritingArea class but keep the setTitle line (last line) in the Skiggle class
 	public void setLanguageMode(String language) {
-		// Set language specifics globals
-		sLanguage = language;
-		if (language == CHINESE_MODE) {
-			SegmentBitSetCn.initializeSegmentBitSetGlobals();
-		}
-		else if (language == ENGLISH_MODE) {
-			SegmentBitSetEn.initializeSegmentBitSetGlobals();
-		}
+		// Swap in the tables of the language; sLanguage is set to the canonical language name
+		sBoxView.setLanguageMode(language);
 
-		this.setTitle(APP_TITLE + "-" + language);
+		this.setTitle(APP_TITLE + "-" + sLanguage);
 	}
 
 	private void restorePreferences() {
@@ -113,6 +106,13 @@ public class Skiggle extends Activity {
 		SharedPreferences prefs = getSharedPreferences(PREFERENCES_FILENAME, MODE_PRIVATE);
 		sLanguage = prefs.getString("language", DEFAULT_LANGUAGE_MODE);
 		sDebugOn = prefs.getBoolean("debugMode", false);
+		RecognitionStats.setEnabled(sDebugOn);
+		InkArchive.setVerifying(sDebugOn);
+		sArchiveInk = prefs.getBoolean("archiveInk", false);
+		sStrokeFilterDeviceClass = prefs.getInt("strokeFilterDeviceClass", StrokeFilterChain.DEFAULT_DEVICE_CLASS);
+		if (sBoxView != null) {
+			sBoxView.setStrokeFilterDeviceClass(sStrokeFilterDeviceClass);
+		}
 	}
 	
 	private void savePreferences() {
@@ -122,7 +122,12 @@ public class Skiggle extends Activity {
 		SharedPreferences.Editor mPrefsEditor = prefs.edit();
 		mPrefsEditor.putString("language", sLanguage);
 		mPrefsEditor.putBoolean("debugMode", sDebugOn);
+		mPrefsEditor.putBoolean("archiveInk", sArchiveInk);
+		mPrefsEditor.putInt("strokeFilterDeviceClass", sStrokeFilterDeviceClass);
 		mPrefsEditor.commit();
+		CharacterPrior.savePriors(this);
+		RecognitionStats.writeReports(this);
+		InkArchive.writeVerificationReport(this);
 	}
 
 	@Override
@@ -152,9 +157,9 @@ public class Skiggle extends Activity {
 		// Set text paint defaults
 		sTextPaint.setTextSize(sDefaultFontSize);
 
-		setLanguageMode(sLanguage);
-		
 		restorePreferences();
+
+		setLanguageMode(sLanguage);
 		
 		/*
 		// Set language specifics globals
@@ -216,9 +221,13 @@ public class Skiggle extends Activity {
 	        return true;
 	    case R.id.debug_on:
 	    	sDebugOn = true; 
+	    	RecognitionStats.setEnabled(true);
+	    	InkArchive.setVerifying(true);
 	        return true;
 	    case R.id.debug_off:
 	    	sDebugOn = false; 
+	    	RecognitionStats.setEnabled(false);
+	    	InkArchive.setVerifying(false);
 	        return true;
 	    default:
 	        return super.onOptionsItemSelected(item);
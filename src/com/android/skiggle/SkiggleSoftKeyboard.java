@@ -278,6 +278,11 @@ public class SkiggleSoftKeyboard extends InputMethodService
         // its window.
         setCandidatesViewShown(false);
         
+        // Keep what the user committed in this field for ordering candidates
+        CharacterPrior.savePriors(this);
+        RecognitionStats.writeReports(this);
+        InkArchive.writeVerificationReport(this);
+        
         mCurKeyboard = mQwertyKeyboard;
         if (mInputView != null) {
             mInputView.closing();
@@ -289,6 +294,11 @@ public class SkiggleSoftKeyboard extends InputMethodService
         // Apply the selected keyboard to the input view.
         mInputView.setKeyboard(mCurKeyboard);
         mInputView.closing();
+        
+        // Only recognize the characters that can be written in the field, e.g., digits in a number field
+        if (sWritingArea != null) {
+            sWritingArea.setFieldProfile(FieldProfile.getFieldProfile(attribute.inputType));
+        }
     }
     
     /**
@@ -0,0 +1,37 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+/**
+ * StrokeFilter is a smoothing stage that is run over the points sampled along a stroke before the curvature
+ * (kappa) is computed from them.  Filters work in place in a single pass over the packed x and y arrays and
+ * must not allocate any memory when filtering.
+ */
+public interface StrokeFilter {
+
+	/**
+	 * Smooths the first numOfPoints points in place
+	 * @param x - x-coords of the points
+	 * @param y - y-coords of the points
+	 * @param numOfPoints - number of points to smooth
+	 */
+	public void filter(float x[], float y[], int numOfPoints);
+
+}
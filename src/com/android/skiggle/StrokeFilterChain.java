@@ -0,0 +1,95 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+
+package com.android.skiggle;
+
+import android.util.DisplayMetrics;
+
+/**
+ * StrokeFilterChain runs a fixed list of StrokeFilter stages, in order, over the points sampled along a
+ * stroke.  The stages are built once per device class so that filtering a stroke does not allocate.  As stages
+ * keep scratch space of their own, a chain must not be used by more than one thread at a time; each
+ * RecognitionContext has its own.  The window filters leave the end points of the stroke where they are, but
+ * the one-euro filter moves the last one (see OneEuroFilter), so chains with it may shorten the stroke a little.
+ */
+public class StrokeFilterChain implements StrokeFilter {
+
+	// Device classes, from the most to the least precise touch screen
+	public static final int DEVICE_CLASS_AUTO = -1; // Pick the device class from the screen density
+	public static final int DEVICE_CLASS_NONE = 0; // No smoothing (the original behavior)
+	public static final int DEVICE_CLASS_HIGH_PRECISION = 1; // Light smoothing: 5-point Savitzky-Golay
+	public static final int DEVICE_CLASS_MEDIUM_PRECISION = 2; // One-euro then 5-point Savitzky-Golay
+	public static final int DEVICE_CLASS_LOW_PRECISION = 3; // Stronger one-euro then 3-point moving average
+	public static final int NUM_OF_DEVICE_CLASSES = 4;
+
+	// No smoothing unless asked for, as the filters make segmentation less stable under heavier jitter
+	public static final int DEFAULT_DEVICE_CLASS = DEVICE_CLASS_NONE;
+
+	// Screens at least this dense (in DisplayMetrics.density units) are taken to have precise digitizers
+	private static final float HIGH_PRECISION_DENSITY = 1.5F;
+	private static final float LOW_PRECISION_DENSITY = 1.0F;
+
+	private StrokeFilter mStages[];
+
+	public StrokeFilterChain(StrokeFilter stages[]) {
+		mStages = stages;
+	} // End of StrokeFilterChain() constructor
+
+	public void filter(float x[], float y[], int numOfPoints) {
+		for (int i = 0; i < mStages.length; i++) {
+			mStages[i].filter(x, y, numOfPoints);
+		}
+	} // End of filter() method
+
+	public int getNumOfStages() {
+		return mStages.length;
+	}
+
+	/**
+	 * Builds the filter chain for a device class
+	 * @param deviceClass - one of the DEVICE_CLASS_* constants; DEVICE_CLASS_AUTO gives the default chain
+	 * @return the filter chain
+	 */
+	public static StrokeFilterChain getChainForDeviceClass(int deviceClass) {
+		switch (deviceClass) {
+		case DEVICE_CLASS_HIGH_PRECISION:
+			return new StrokeFilterChain(new StrokeFilter[] {new SavitzkyGolayFilter(2)});
+		case DEVICE_CLASS_MEDIUM_PRECISION:
+			return new StrokeFilterChain(new StrokeFilter[] {new OneEuroFilter(0.3F, 0.05F, 0.25F), new SavitzkyGolayFilter(2)});
+		case DEVICE_CLASS_LOW_PRECISION:
+			return new StrokeFilterChain(new StrokeFilter[] {new OneEuroFilter(0.15F, 0.02F, 0.25F), new MovingAverageFilter(1)});
+		case DEVICE_CLASS_NONE:
+		default:
+			return new StrokeFilterChain(new StrokeFilter[] {});
+		}
+	} // End of getChainForDeviceClass() method
+
+	/**
+	 * Picks a device class from the screen density; denser (usually newer) screens have more precise digitizers
+	 * @param metrics - display metrics of the device
+	 * @return the device class
+	 */
+	public static int getDeviceClassForDisplay(DisplayMetrics metrics) {
+		if (metrics == null) return DEFAULT_DEVICE_CLASS;
+		if (metrics.density >= HIGH_PRECISION_DENSITY) return DEVICE_CLASS_HIGH_PRECISION;
+		if (metrics.density < LOW_PRECISION_DENSITY) return DEVICE_CLASS_LOW_PRECISION;
+		return DEVICE_CLASS_MEDIUM_PRECISION;
+	} // End of getDeviceClassForDisplay() method
+
+}
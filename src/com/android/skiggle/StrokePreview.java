@@ -0,0 +1,224 @@
+/*
+*   This file is part of Skiggle, an Android Input Method Editor (IME)
+*   for handwritten input.
+*
+*   Copyright (C) 2009-2012 Willie Lim <drwillie650@gmail.com>
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+package com.android.skiggle;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.graphics.Path;
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * StrokePreview recognizes the stroke being drawn, as if the pen were lifted now, so that candidates can be
+ * shown before the stroke is finished.  The strokes already written keep their segments, so only the stroke
+ * being drawn is segmented again.  Previews are made on a thread of their own, with a recognition context of
+ * their own, so that drawing is not held up: the UI thread only copies the character and the stroke, and is
+ * handed the candidates back when they change.  One preview is made at a time, at most once a frame, and less
+ * often if each one takes more than its share of the frames.
+ */
+public class StrokePreview {
+
+	private static final long FRAME_MILLIS = 16; // One frame at 60 frames per second
+	private static final float FRAME_BUDGET_RATIO = 0.25F; // Share of each frame the preview may take on average
+	private static final float MIN_NEW_STROKE_LENGTH = 10.0F; // Min length (in pixels) drawn since the last preview
+
+	private static ExecutorService sExecutor = null; // Thread the previews are made on, started when first needed
+
+	// Told of the candidates of the stroke being drawn when they change, on the UI thread
+	public interface OnPreviewListener {
+		public void onPreview(StrokePreview preview);
+	}
+
+	// A preview: what it is made from, copied on the UI thread, and what it found, on the preview thread
+	private class Preview implements Runnable {
+		int strokeNumber; // Stroke the preview is of
+		long startTime; // Time (in ms since boot) the preview was asked for
+		long cost; // Time (in ms) from startTime until the preview was made
+		PenCharacter penCharacter; // Copy of the character with the strokes written before this one
+		PenStroke penStroke; // Copy of the stroke drawn so far
+		Character matchedChar;
+		char candidates[] = new char[0];
+		int numOfCandidates; // Number of candidates, or -1 if the stroke could not be recognized
+
+		// Recognizes the stroke, on the preview thread
+		public void run() {
+			numOfCandidates = -1;
+			try {
+				penCharacter.addStroke(penStroke);
+				penCharacter.addSegments(penStroke.segmentStroke(null, null, mContext));
+				penCharacter.findMatchingCharacter(null, null, mContext);
+				int bufferSize = mContext.getLanguageTables().getNumOfCharacters() + 1;
+				if (candidates.length < bufferSize) {
+					candidates = new char[bufferSize];
+				}
+				numOfCandidates = penCharacter.getRankedCandidates(candidates);
+				matchedChar = penCharacter.matchedChar;
+			}
+			catch (RuntimeException e) {
+				// Nothing is shown; the stroke is recognized again at pen up, which fails the same way
+			}
+			finally {
+				cost = SystemClock.uptimeMillis() - startTime;
+				penCharacter = null;
+				penStroke = null;
+				mHandler.post(mShowPreview);
+			}
+		} // End of run() method
+	} // End of Preview class
+
+	private final Handler mHandler; // Of the UI thread, which the previews are handed back to
+	private final OnPreviewListener mListener;
+	private final Preview mPreview = new Preview(); // The one preview made at a time
+	private boolean mIsPreviewing = false; // Whether mPreview is being made, so it and mContext must not be touched
+	private int mStrokeNumber = 0; // Stroke being drawn, so that previews of earlier strokes are dropped
+	private RecognitionContext mContext = null; // Context of the preview thread, set from the writing area's
+	private CharacterPrior mPrior = null; // Copy of the user's prior for the preview thread
+	private StrokeFilterChain mStrokeFilterChain = // Smoothing of the previews, as the writing area's chain is its own
+		StrokeFilterChain.getChainForDeviceClass(StrokeFilterChain.DEFAULT_DEVICE_CLASS);
+
+	private long mNextPreviewTime = 0; // Earliest time (in ms since boot) for the next preview
+	private float mPreviewStrokeLength = 0.0F; // Length of the stroke at the last preview
+	private Character mPreviewChar = null; // Matched character of the last preview
+	private char mPreviewCandidates[] = new char[0]; // Candidates of the last preview, matched character first
+	private int mNumOfPreviewCandidates = 0;
+
+	// Takes the preview made on the preview thread, on the UI thread
+	private final Runnable mShowPreview = new Runnable() {
+		public void run() {
+			mIsPreviewing = false;
+			// Wait long enough that the previews take no more than their share of the frames on average
+			mNextPreviewTime = mPreview.startTime + Math.max(FRAME_MILLIS, (long) (mPreview.cost/FRAME_BUDGET_RATIO));
+			if ((mPreview.strokeNumber != mStrokeNumber) || (mPreview.numOfCandidates < 0)) return;
+
+			int numOfCandidates = mPreview.numOfCandidates;
+			boolean changedP = (numOfCandidates != mNumOfPreviewCandidates) ||
+				((mPreview.matchedChar == null) ? (mPreviewChar != null) : !mPreview.matchedChar.equals(mPreviewChar));
+			for (int i = 0; !changedP && (i < numOfCandidates); i++) {
+				changedP = (mPreview.candidates[i] != mPreviewCandidates[i]);
+			}
+			if (!changedP) return;
+
+			if (mPreviewCandidates.length < numOfCandidates) {
+				mPreviewCandidates = new char[mPreview.candidates.length];
+			}
+			System.arraycopy(mPreview.candidates, 0, mPreviewCandidates, 0, numOfCandidates);
+			mNumOfPreviewCandidates = numOfCandidates;
+			mPreviewChar = mPreview.matchedChar;
+			mListener.onPreview(StrokePreview.this);
+		}
+	};
+
+	/**
+	 * Makes the preview of the strokes of a writing area; on the UI thread, which the candidates are handed back to
+	 * @param listener - told of the candidates of the stroke being drawn when they change
+	 */
+	public StrokePreview(OnPreviewListener listener) {
+		mHandler = new Handler();
+		mListener = listener;
+	} // End of StrokePreview() constructor
+
+	private static synchronized ExecutorService getExecutor() {
+		if (sExecutor == null) {
+			sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "SkiggleStrokePreview");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sExecutor;
+	} // End of getExecutor() method
+
+	/**
+	 * Forgets the last preview and drops the one being made, if any; called at pen down and pen up
+	 */
+	public void reset() {
+		mStrokeNumber++;
+		mNextPreviewTime = 0;
+		mPreviewStrokeLength = 0.0F;
+		mPreviewChar = null;
+		mNumOfPreviewCandidates = 0;
+	} // End of reset() method
+
+	// Sets the smoothing filters of the previews; a chain of their own, as they are made on another thread
+	public void setStrokeFilterChain(StrokeFilterChain chain) {
+		mStrokeFilterChain = chain;
+	}
+
+	/**
+	 * Starts recognizing the stroke drawn so far if the last preview is done, the frame budget allows it and
+	 * enough of the stroke is new.  The listener is told if the candidates change.
+	 * @param pChar - character with the strokes written before this one; it is copied, not changed
+	 * @param path - stroke drawn so far; it is copied
+	 * @param context - recognition context of the writing area, whose settings the preview is made with
+	 */
+	public void update(PenCharacter pChar, Path path, RecognitionContext context) {
+		long startTime = SystemClock.uptimeMillis();
+		if (mIsPreviewing || (startTime < mNextPreviewTime)) return;
+
+		PenStroke penStroke = new PenStroke(path);
+		penStroke.addPath(path);
+		if (penStroke.penStrokeLength - mPreviewStrokeLength < MIN_NEW_STROKE_LENGTH) return;
+		mPreviewStrokeLength = penStroke.penStrokeLength;
+
+		// The preview thread is idle, so its context can be brought up to date with the writing area's
+		LanguageTables tables = context.getLanguageTables();
+		if (mContext == null) {
+			mContext = new RecognitionContext(tables);
+			mContext.setMinParallelCandidates(Integer.MAX_VALUE); // Leaves the other cores to the recognition at pen up
+		}
+		else if (mContext.getLanguageTables() != tables) {
+			mContext.setLanguageTables(tables);
+		}
+		if (mContext.getFieldProfile() != context.getFieldProfile()) {
+			mContext.setFieldProfile(context.getFieldProfile());
+		}
+		mContext.setNumOfScoredCandidates(context.getNumOfScoredCandidates());
+		mContext.setStrokeFilterChain(mStrokeFilterChain);
+		CharacterPrior prior = context.getCharacterPrior();
+		if (prior != null) {
+			mPrior = prior.copyTo(mPrior);
+		}
+		mContext.setCharacterPrior((prior == null) ? null : mPrior);
+
+		mPreview.strokeNumber = mStrokeNumber;
+		mPreview.startTime = startTime;
+		mPreview.penCharacter = new PenCharacter(pChar);
+		mPreview.penStroke = penStroke;
+		mIsPreviewing = true;
+		getExecutor().execute(mPreview);
+	} // End of update() method
+
+	public Character getPreviewChar() {
+		return mPreviewChar;
+	}
+
+	// Candidates of the last preview, matched character first; only the first getNumOfPreviewCandidates() are used
+	public char[] getPreviewCandidates() {
+		return mPreviewCandidates;
+	}
+
+	public int getNumOfPreviewCandidates() {
+		return mNumOfPreviewCandidates;
+	}
+
+}
@@ -2,8 +2,6 @@ package com.android.skiggle;
 
 import com.android.skiggle.Skiggle;
 //import com.android.skiggle.Skiggle.BoxView;
-import com.android.skiggle.chinese.SegmentBitSetCn;
-import com.android.skiggle.english.SegmentBitSetEn;
 
 import android.content.Context;
 import android.graphics.Bitmap;
@@ -19,7 +17,7 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
-public class WritingArea extends View {
+public class WritingArea extends View implements StrokePreview.OnPreviewListener {
 	private Bitmap mBitmap;
 	protected Canvas canvas;
 	private Path mPath;
@@ -29,6 +27,13 @@ public class WritingArea extends View {
 	private int mBitmapPaintColor;
 	private boolean mIsAppInstance = false; // Flag to indicate if Skiggle is an app or a soft key board; defaults to soft key board (not an app instance)
 	private CandidatesKeyboard mCandidatesKeyboard;
+	private CandidatesKeyboard mPreviewKeyboard; // Provisional candidates for the stroke being drawn
+	private boolean mIsPreviewShown = false;
+	private char mCandidatesBuffer[] = new char[0]; // Ranked candidates of the last stroke, reused from stroke to stroke
+	private StrokePreview mStrokePreview; // Candidates of the stroke being drawn, made on a thread of their own
+	private RecognitionContext mRecognitionContext; // Tables of the language written in, swapped on a language change
+	private InkStroke mInkStroke = new InkStroke(); // Raw points of the stroke being drawn, for the ink archive
+	private StrokeFilterChain mArchiveFilterChain; // Smoothing of the strokes archived, on the archive thread
 	private float mX, mY;
 	private static final float TOUCH_TOLERANCE = 4;
 	private PenStroke mPenStroke;
@@ -60,30 +65,73 @@ public class WritingArea extends View {
 		mIsAppInstance = isAppInstance;
 		mSoftKeyboard = softKeyboard;	
 		mCandidatesKeyboard = new CandidatesKeyboard(context, null, "", mSoftKeyboard, mIsAppInstance);
+		mPreviewKeyboard = new CandidatesKeyboard(context, null, "", mSoftKeyboard, mIsAppInstance);
+		mStrokePreview = new StrokePreview(this);
 		mPath = new Path();
+		LanguagePackLoader.loadAssetPacks(context);
 		setLanguageMode(Skiggle.sLanguage);
+		setStrokeFilterDeviceClass(Skiggle.sStrokeFilterDeviceClass);
 	} // End of WritingArea constructor
 
+	/**
+	 * Sets the smoothing filters used on the strokes for the class of touch screen of the device
+	 * @param deviceClass - one of the StrokeFilterChain.DEVICE_CLASS_* constants; DEVICE_CLASS_AUTO
+	 * picks one from the screen density
+	 */
+	public void setStrokeFilterDeviceClass(int deviceClass) {
+		Skiggle.sStrokeFilterDeviceClass = deviceClass;
+		if (deviceClass == StrokeFilterChain.DEVICE_CLASS_AUTO) {
+			deviceClass = StrokeFilterChain.getDeviceClassForDisplay(getResources().getDisplayMetrics());
+		}
+		mRecognitionContext.setStrokeFilterChain(StrokeFilterChain.getChainForDeviceClass(deviceClass));
+		mStrokePreview.setStrokeFilterChain(StrokeFilterChain.getChainForDeviceClass(deviceClass));
+		mArchiveFilterChain = StrokeFilterChain.getChainForDeviceClass(deviceClass);
+	}
+
 	/**
 	 * Sets the language mode for Skiggle
 	 * @param language - ENGLISH_MODE (default) or CHINESE_MODE
 	 */
 	public void setLanguageMode(String language) {
-		// Set language specifics globals
-		Skiggle.sLanguage = language;
-		if (language == Skiggle.CHINESE_MODE) {
-			SegmentBitSetCn.initializeSegmentBitSetGlobals();
+		// The tables of each language are built once, so switching language just swaps them
+		LanguageTables tables = LanguageTables.getLanguageTables(language);
+		Skiggle.sLanguage = tables.getLanguage();
+		if (mRecognitionContext == null) {
+			mRecognitionContext = new RecognitionContext(tables);
 		}
-		else if (language == Skiggle.ENGLISH_MODE) {
-			SegmentBitSetEn.initializeSegmentBitSetGlobals();
+		else {
+			mRecognitionContext.setLanguageTables(tables);
 		}
+		// Candidates are tried, and shown, in the order of what the user writes most
+		mRecognitionContext.setCharacterPrior(CharacterPrior.getCharacterPrior(getContext(), tables.getLanguage()));
 	}	
+
+	/**
+	 * Sets the characters that can be written in the field being edited
+	 * @param profile - profile of the field, e.g., from FieldProfile.getFieldProfile(); FieldProfile.ALL_CHARACTERS if any
+	 */
+	public void setFieldProfile(FieldProfile profile) {
+		if (profile == mRecognitionContext.getFieldProfile()) return;
+
+		mRecognitionContext.setFieldProfile(profile);
+		// Recognize the character being written again, among the characters of the new field; the matchers already
+		// run on its segments are not run again
+		if (penCharacter.segmentStore.numOfSegments > 0) {
+			recognizeCharacter();
+			invalidate();
+		}
+	}
 	
 	@Override
 	protected void onDraw(Canvas canvas) {	
 		canvas.drawColor(mBitmapPaintColor); // Allow dynamic changing of background color by changing the preferences/settings.
 		canvas.drawBitmap(mBitmap, 0, 0, mBitmapPaint);
 		canvas.drawPath(mPath, mStrokePaint);
+		// Provisional candidates are drawn on the screen only, not on the bitmap, so they go away at pen up
+		if (mIsPreviewShown) {
+			mCandidatesKeyboard.clear(canvas);
+			mPreviewKeyboard.draw(canvas);
+		}
 	}
 
 	private void touchStart(float x, float y) {
@@ -91,19 +139,44 @@ public class WritingArea extends View {
 		mPath.moveTo(x, y);
 		mX = x;
 		mY = y;
+		mStrokePreview.reset();
+		mIsPreviewShown = false;
+		mInkStroke.reset();
+		mInkStroke.addPoint(x, y);
 	}
 
 	private void touchMove(float x, float y) {
+		mInkStroke.addPoint(x, y);
 		float dx = Math.abs(x - mX);
 		float dy = Math.abs(y - mY);
 		if (dx >= TOUCH_TOLERANCE || dy >= TOUCH_TOLERANCE) {
 			mPath.quadTo(mX, mY, (x + mX) / 2, (y + mY) / 2);
 			mX = x;
 			mY = y;
+			updatePreview();
+		}
+	}
+
+	// Recognize the stroke drawn so far, for its candidates to be shown by onPreview().  Not done in debug mode,
+	// which draws the segment data of every recognition on the bitmap.
+	private void updatePreview() {
+		if (!Skiggle.sDebugOn) {
+			mStrokePreview.update(penCharacter, mPath, mRecognitionContext);
 		}
 	}
 
+	// Show the candidates of the stroke drawn so far
+	public void onPreview(StrokePreview preview) {
+		int numOfCandidates = preview.getNumOfPreviewCandidates();
+		mPreviewKeyboard.setAttributes(SkiggleSoftKeyboard.sContext, preview.getPreviewChar(),
+				preview.getPreviewCandidates(), numOfCandidates, mSoftKeyboard, mIsAppInstance);
+		mIsPreviewShown = (numOfCandidates > 0);
+		invalidate();
+	}
+
 	private void touchUp() {
+		mStrokePreview.reset(); // A preview still being made is not shown
+		mIsPreviewShown = false;
 		mPath.lineTo(mX, mY);
 		// commit the path to our off screen
 		canvas.drawPath(mPath, mStrokePaint);
@@ -116,6 +189,9 @@ public class WritingArea extends View {
 			// Create a line of 1 pixel length
 			mPath.lineTo(boundingRectF.centerX(), boundingRectF.centerY() + 1);
 		}
+		if (Skiggle.sArchiveInk) {
+			InkArchive.archiveStroke(getContext(), mInkStroke, mArchiveFilterChain);
+		}
 		// Set pen stroke to a copy of the stroke
 		mPenStroke = new PenStroke(mPath);
 		mPenStroke.addPath(mPath);
@@ -127,22 +203,30 @@ public class WritingArea extends View {
 			this.clear();
 		}
 		else {
-			penCharacter.addSegments(mPenStroke, canvas, mTextPaint);					
-			penCharacter.findMatchingCharacter(canvas, mTextPaint, Skiggle.sLanguage);		
-			// TODO: Temp from findMacthingCharacter
-			String str = penCharacter.penCharacterCandidates;
-			if (penCharacter.matchedChar != null) {
-				str = penCharacter.matchedChar + PenUtil.removeCharFromString(penCharacter.matchedChar, penCharacter.penCharacterCandidates);
-			}
-			if (mCandidatesKeyboard != null) {
-				mCandidatesKeyboard.setAttributes(SkiggleSoftKeyboard.sContext, penCharacter.matchedChar, str, mSoftKeyboard, mIsAppInstance);
-				mCandidatesKeyboard.draw(canvas);
-			}
+			penCharacter.addSegments(mPenStroke, canvas, mTextPaint, mRecognitionContext);					
+			recognizeCharacter();
 		}
 		// kill this so we don't double draw
 		mPath.reset();
 	}
 
+	// Recognizes the character written so far and shows its candidates
+	private void recognizeCharacter() {
+		penCharacter.findMatchingCharacter(canvas, mTextPaint, mRecognitionContext);		
+		int bufferSize = mRecognitionContext.getLanguageTables().getNumOfCharacters() + 1;
+		if (mCandidatesBuffer.length < bufferSize) {
+			mCandidatesBuffer = new char[bufferSize];
+		}
+		int numOfCandidates = penCharacter.getRankedCandidates(mCandidatesBuffer);
+		if (mCandidatesKeyboard != null) {
+			// Replace the candidates of the last stroke (and the preview of this one) with the final ones
+			mCandidatesKeyboard.clear(canvas);
+			mCandidatesKeyboard.setAttributes(SkiggleSoftKeyboard.sContext, penCharacter.matchedChar,
+					mCandidatesBuffer, numOfCandidates, mSoftKeyboard, mIsAppInstance);
+			mCandidatesKeyboard.draw(canvas);
+		}
+	} // End of recognizeCharacter() method
+
 	/**
 	 * Handles touch events
 	 */
@@ -19,7 +19,12 @@
 
 package com.android.skiggle.chinese;
 
+import java.nio.ByteBuffer;
+
+import com.android.skiggle.LanguagePackCompiler;
+import com.android.skiggle.PenSegment;
 import com.android.skiggle.SegmentBitSet;
+import com.android.skiggle.Skiggle;
 
 /**
  * SegmentBitSetCn contains the character bit sets for Chinese Characters
@@ -34,23 +39,32 @@ public class SegmentBitSetCn extends SegmentBitSet {
 	//str = new String("abc");
 	//SegmentBitSet.setSAllCharactersString(str);
 
-	public static void initializeSegmentBitSetGlobals() {
-		SegmentBitSet.setSAllCharactersString(new String("〇一二三四五六七八九十?"));
+	// Compiles the Chinese definition into a language pack (see LanguageTables.getLanguageTables())
+	public static ByteBuffer getLanguagePack() {
+		String allCharactersString = new String("〇一二三四五六七八九十?");
+		SegmentBitSet primitiveBitsets[] = new SegmentBitSet[PenSegment.NUM_OF_PRIMITIVES];
 //		SegmentBitSet.setSAllCharactersStringBitset();
-		SegmentBitSet.setSVLineBitset(new SegmentBitSet("00001000001"));
-		SegmentBitSet.setSHLineBitset(new SegmentBitSet("01111110001"));
-		SegmentBitSet.setSFSlashBitset(new SegmentBitSet("00001000100"));
-		SegmentBitSet.setSBSlashBitset(new SegmentBitSet("00000000100"));
-		SegmentBitSet.setSBcBitset(new SegmentBitSet("00000000000"));
-		SegmentBitSet.setSCircleBitset(new SegmentBitSet("10000000000"));
-		SegmentBitSet.setSFcBitset(new SegmentBitSet("00000000000"));
-		SegmentBitSet.setSDotBitset(new SegmentBitSet("00000000000"));
-		SegmentBitSet.setSUBitset(new SegmentBitSet("00000000000"));
-		SegmentBitSet.setSOneSegmentBitset(new SegmentBitSet("11000110000"));
-		SegmentBitSet.setSTwoSegmentsBitset(new SegmentBitSet("00100000101"));
-		SegmentBitSet.setSThreeSegmentsBitset(new SegmentBitSet("00011000000"));
-		SegmentBitSet.setSFourSegmentsBitset(new SegmentBitSet("00000000000"));
-	}
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.VLINE_CHAR)] = new SegmentBitSet("00001000001");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.HLINE_CHAR)] = new SegmentBitSet("01111110001");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.FSLASH_CHAR)] = new SegmentBitSet("00001000100");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.BSLASH_CHAR)] = new SegmentBitSet("00000000100");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.BC_CHAR)] = new SegmentBitSet("00000000000");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.CIRCLE_CHAR)] = new SegmentBitSet("10000000000");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.FC_CHAR)] = new SegmentBitSet("00000000000");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.DOT_CHAR)] = new SegmentBitSet("00000000000");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.U_CHAR)] = new SegmentBitSet("00000000000");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.HOOK_CHAR)] = new SegmentBitSet("00000000000");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.ZIGZAG_CHAR)] = new SegmentBitSet("00000000000");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.SCURVE_CHAR)] = new SegmentBitSet("00000000000");
+		primitiveBitsets[PenSegment.getPrimitiveIndex(PenSegment.CHECK_CHAR)] = new SegmentBitSet("00000000000");
+
+		// Primitive signature of each character, with variants separated by spaces; empty means no matcher
+		String characterSignatures[] = {
+				"O", "-", "--", "---", "|-/", "-", "-", "", "/\\", "", "|-", ""
+		};
+
+		return LanguagePackCompiler.compile(Skiggle.CHINESE_MODE, allCharactersString, primitiveBitsets, characterSignatures);
+	} // End of getLanguagePack() method
 
 	public SegmentBitSetCn() {};
 
@@ -20,9 +20,14 @@
 package com.android.skiggle.english;
 
 import com.android.skiggle.Skiggle;
+import com.android.skiggle.CharacterEngine;
+import com.android.skiggle.CharacterFeatures;
+import com.android.skiggle.CharacterPrefilter;
 import com.android.skiggle.PenCharacter;
 import com.android.skiggle.PenSegment;
 import com.android.skiggle.PenUtil;
+import com.android.skiggle.PointCloudEngine;
+import com.android.skiggle.SegmentGeometry;
 
 /**
  * Represents the handwritten English character.
@@ -34,169 +39,46 @@ import com.android.skiggle.PenUtil;
  */
 public class PenCharacterEn extends PenCharacter {
 
-	// Check to see if a float is greater than the low and less than high thresholds
-	private static boolean isBetweenThresholds(double num, double lowThreshold, double highThreshold) {
-		return ((lowThreshold < num) && (num < highThreshold));
-	}
+	// Characters with an empty case in matchCharacter(), or whose check never matches
+	private static final String UNMATCHED_CHARACTERS = "068efghlmnr␠\"&'*?@`{}~";
 
-	// Check to see if the strokes form a small letter (that is the rectangle bounding them is small enough for a small letter)
-	private static boolean isSmallLetter(PenCharacter pChar) {
+	private static final PointCloudEngine sTemplates = newPointCloudEngine();
 
-		return isBetweenThresholds(pChar.penStrokesMaxY - pChar.penStrokesMinY, 0, (float) (0.4 * Skiggle.sDefaultWritePadHeight));
-
-	}
-
-	// Get the x,y coordinates of the left and right of a stroke (like a '-')
-	// and return a 4-element array containing the leftX, leftY, rightX and rightY respectively
-	private static float[] getLeftRightCoordsOfSegment(PenSegment pSegment) {
-		// Initially assume the start of the stroke
-		float leftX = pSegment.posStart[0]; // x-coord of top end of the stroke
-		float leftY = pSegment.posStart[1]; // y-coord of top end of the stroke
-		float rightX = pSegment.posEnd[0]; // x-coord of bottom end of the stroke
-		float rightY = pSegment.posEnd[1]; // y-coord of bottom end of the stroke
-		// Swap the left and right points of the stroke if necessary
-		if (rightX < leftX) {
-			leftX = rightX;
-			leftY = rightY;
-			rightX = pSegment.posStart[0];
-			rightY = pSegment.posStart[1];
+	// Matches the characters by their checks, for PenCharacter.getEngines()
+	public static final CharacterEngine ENGINE = new CharacterEngine() {
+		public boolean hasMatcher(char c) {
+			return (UNMATCHED_CHARACTERS.indexOf(c) < 0);
 		}
-		float coords[] = {leftX, leftY, rightX, rightY};
-		return coords;
-	}
 
-	// Get the x,y coordinates of the top and bottom of a stroke (like a '/', '\', or '|')
-	// and return a 4-element array containing the topX, topY, bottomX and bottomY respectively
-	private static float[] getTopBottomCoordsOfSegment(PenSegment pSegment) {
-		// Initially assume the start of the stroke is the top
-		float topX = pSegment.posStart[0]; // x-coord of top end of the stroke
-		float topY = pSegment.posStart[1]; // y-coord of top end of the stroke
-		float bottomX = pSegment.posEnd[0]; // x-coord of bottom end of the stroke
-		float bottomY = pSegment.posEnd[1]; // y-coord of bottom end of the stroke
-		// Swap the top and bottom ends of the stroke if necessary
-		if (bottomY < topY) {
-			topX = bottomX;
-			topY = bottomY;
-			bottomX = pSegment.posStart[0];
-			bottomY = pSegment.posStart[1];
+		public boolean matchesByShape() {
+			return false;
 		}
-		float coords[] = {topX, topY, bottomX, bottomY};
-		return coords;
-	}
-
-	// Get the gaps between the tops and bottoms of two strokes
-	// and return a 2-element array containing the top gap and bottom gap
-	private static float[] getTopBottomGapsBetween2Segments(PenSegment pSegment1, PenSegment pSegment2) {
-		float coords[] = getTopBottomCoordsOfSegment(pSegment1);
-		float stroke1TopX = coords[0]; // x-coord of top end of FSLASH stroke
-		float stroke1TopY = coords[1]; // y-coord of top end of FSLASH stroke
-		float stroke1BottomX = coords[2]; // x-coord of bottom end of FSLASH stroke
-		float stroke1BottomY = coords[3]; // y-coord of bottom end of FSLASH stroke
-
-		coords = getTopBottomCoordsOfSegment(pSegment2);
-		float stroke2TopX = coords[0]; // x-coord of top end of FSLASH stroke
-		float stroke2TopY = coords[1]; // y-coord of top end of FSLASH stroke
-		float stroke2BottomX = coords[2]; // x-coord of bottom end of FSLASH stroke
-		float stroke2BottomY = coords[3]; // y-coord of bottom end of FSLASH stroke
-
-		float gaps[] = {
-				PenUtil.distanceBetween2Points(stroke1TopX, stroke1TopY, stroke2TopX, stroke2TopY),
-				PenUtil.distanceBetween2Points(stroke1BottomX, stroke1BottomY, stroke2BottomX, stroke2BottomY)};
-		return gaps;
-	}
-
-	// Get the x, y coordinates of points at 1/3 and 2/3 from the left (or top) line between the points (left or top
-	// coordinates first
-	private static float[] getPointsAt1stAnd2ndThirdMarks(float leftOrTopX, float leftOrTopY, float rightOrBottomX, float rightOrBottomY) {
-		// Get the x,y coordinates at the one-third and two-third marks of the line between
-		// the points (leftOrTopX, leftOrTopY) and  (rightOrBottomX, rightOrBottomY)
-
-		float oneThirdX = (rightOrBottomX - leftOrTopX)/3; // one third the distance between 
-		float oneThirdY = (rightOrBottomY - leftOrTopY)/3; // one third the distance between left and right y-ccords
-
-		float coords[] = {
-				leftOrTopX + oneThirdX,  // x-coord of first one-third mark
-				leftOrTopY + oneThirdY,  // y-coord of first one-third mark
-				leftOrTopX + 2 * oneThirdX, // x-coord of second one-third mark
-				leftOrTopY + 2 * oneThirdY}; // x-coord of second one-third mark
-
-		return coords;
-	}
-
-	// Order a pair of PenSegments into the left and right and return them as an array of 2 with
-	// left PenSegment as first element and right PenSegment as the second element.
-	private static PenSegment[] order2PenSegmentsIntoLeftRight(PenSegment pSegment1, PenSegment pSegment2) {
-		PenSegment leftRightPenSegments[] = {pSegment1, pSegment2}; // Assume pSegment1 is on left of pSegment2 initially.
-
-		// Determine which of the 2 HLINE strokes is on the left and which is on the right.
 
-		// Initially assume the first PenSegment found to be the left PenSegment of the 'I'.
-		float leftSegmentStartX = pSegment1.posStart[0]; // x-coord of left point of the first PenSegment stroke.
-		float leftSegmentEndX = pSegment1.posEnd[0]; // x-coord of bottom end of the first PenSegment stroke.
-		float leftSegmentMidX = (leftSegmentStartX + leftSegmentEndX)/2;
-
-		// Initially assume the second PenSegment found to be the right PenSegment of the 'I'.
-		float rightSegmentStartX = pSegment2.posStart[0]; // x-coord of left point of second PenSegment stroke.
-		float rightSegmentEndX = pSegment2.posEnd[0]; // x-coord of right point of second PenSegment stroke.
-		float rightSegmentMidX = (rightSegmentStartX + rightSegmentEndX)/2;
-
-		// If the second PenSegment is on left of the first PenSegment, swap them (make the second PenSegment the left
-		// and the first PenSegment the right).
-		if (rightSegmentMidX < leftSegmentMidX) {
-			leftRightPenSegments[0] = pSegment2;
-			leftRightPenSegments[1] = pSegment1;
+		public float score(char c, PenCharacter pChar) {
+			return matchCharacter(c, pChar) ? 1.0F : 0.0F;
 		}
-		return leftRightPenSegments;
-	}
 
-	// Order a pair of PenSegments into the right and bottom and return them as an array of 2 with
-	// top PenSegment as first element and bottom PenSegment as the second element.
-	private static PenSegment[] order2PenSegmentsIntoTopBottom(PenSegment pSegment1, PenSegment pSegment2) {
-		PenSegment topBottomPenSegments[] = {pSegment1, pSegment2}; // Assume pSegment1 is on top of pSegment2 initially.
-
-		// Determine which of the 2 HLINE strokes is at the top and which is at the bottom.
-
-		// Initially assume the first PenSegment found to be the top PenSegment of the 'I'.
-		float topSegmentStartY = pSegment1.posStart[1]; // y-coord of top end of the first PenSegment stroke.
-		float topSegmentEndY = pSegment1.posEnd[1]; // y-coord of bottom end of the first PenSegment stroke.
-		float topSegmentMidY = (topSegmentStartY + topSegmentEndY)/2;
-
-		// Initially assume the second PenSegment found to be the bottom PenSegment of the 'I'.
-		float bottomSegmentStartY = pSegment2.posStart[1]; // y-coord of top end of second PenSegment stroke.
-		float bottomSegmentEndY = pSegment2.posEnd[1]; // y-coord of bottom end of second PenSegment stroke.
-		float bottomSegmentMidY = (bottomSegmentStartY + bottomSegmentEndY)/2;
-
-		// If the second PenSegment is on top of the first PenSegment, swap them (make the second PenSegment the top
-		// and the first PenSegment the bottom).
-		// Note: y increases downwards (y values of the top stroke are smaller than those of the bottom stroke).
-		if (bottomSegmentMidY < topSegmentMidY) {
-			topBottomPenSegments[0] = pSegment2;
-			topBottomPenSegments[1] = pSegment1;
+		public float getUpperBound(char c, PenCharacter pChar) {
+			return 1.0F;
 		}
-		return topBottomPenSegments;
-	}
+	};
 
-	// Check to see if the gap between the top (bottom) of a caret ('/' and '\') or V ('\' or '/') are close enough
-	// That is, the gap between the tops for caret (or bottoms for 'V') of FSLASH and BSLASH are less than one
-	// quarter the distance between their bases
-	private static boolean gapCheckForCaretShape(PenSegment pSegment1, PenSegment pSegment2) {
-		float gaps[] = getTopBottomGapsBetween2Segments(pSegment1, pSegment2);
-		float gapBetweenTops = gaps[0];
-		float gapBetweenBottoms = gaps[1];
-		return 	(gapBetweenTops < 0.25 * gapBetweenBottoms);
+	// Check to see if a float is greater than the low and less than high thresholds
+	private static boolean isBetweenThresholds(double num, double lowThreshold, double highThreshold) {
+		return ((lowThreshold < num) && (num < highThreshold));
 	}
 
-	private static boolean gapCheckForVShape(PenSegment pSegment1, PenSegment pSegment2) {
-		float gaps[] = getTopBottomGapsBetween2Segments(pSegment1, pSegment2);
-		float gapBetweenTops = gaps[0];
-		float gapBetweenBottoms = gaps[1];
-		return 	(gapBetweenBottoms < 0.25 * gapBetweenTops);
+	// Check to see if the strokes form a small letter (that is the rectangle bounding them is small enough for a small letter)
+	private static boolean isSmallLetter(PenCharacter pChar) {
+
+		return isBetweenThresholds(pChar.penStrokesMaxY - pChar.penStrokesMinY, 0, (float) (0.4 * Skiggle.sDefaultWritePadHeight));
+
 	}
 
 	// '9' or 'q' has a FC and a dot2Index on the right joining the VLINE at the top and middle
 	private static boolean checkFor9OrSmallQ(float vLineTopYMin, float vLineTopYMax, PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		// VLINE is the first stroke and BC the second, both written top down.
 		if (numOfSegments == 2) {
@@ -205,7 +87,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'q' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					vLineIndex = i;
 					break;
@@ -221,14 +103,14 @@ public class PenCharacterEn extends PenCharacter {
 			// fCIndex and vLineIndex are both not negative
 			if ((fCIndex >= 0) && (vLineIndex >= 0)) {
 				// Get the x,y of the top and bottom of FC
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fCIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fCIndex);
 				float fCTopX = coords[0]; // x-coord of top end of the right FC stroke
 				float fCTopY = coords[1]; // y-coord of top end of the right FC stroke
 				float fCBottomX = coords[2]; // x-coord of bottom end of the right FC stroke
 				float fCBottomY = coords[3]; // y-coord of bottom end of the right FC stroke
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -256,7 +138,7 @@ public class PenCharacterEn extends PenCharacter {
 	private static boolean checkForCShape(PenCharacter pChar) { //float minSize, float maxSize) {
 		boolean matchedP = false;
 
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		// 'C' has only one pen stroke character.
 		if (numOfSegments == 1) {
@@ -267,12 +149,12 @@ public class PenCharacterEn extends PenCharacter {
 
 			matchedP =
 				// Must be a forward character primitive
-				(pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.FC_CHAR) &&
+				(pChar.segmentStore.primitives[0] == PenSegment.FC_CHAR) &&
 				/*
 				// and the ends of the stroke is less than its height
 				(PenUtil.distanceBetween2Points(
-						pChar.penSegments.elementAt(0).mPosStart[0], pChar.penSegments.elementAt(0).mPosStart[1],
-						pChar.penSegments.elementAt(0).mPosEnd[0], pChar.penSegments.elementAt(0).mPosEnd[1])
+						pChar.penSegments.get(0).mPosStart[0], pChar.penSegments.get(0).mPosStart[1],
+						pChar.penSegments.get(0).mPosEnd[0], pChar.penSegments.get(0).mPosEnd[1])
 						< 0.9 * heightOfC); && */
 						// and the width of the stroke is more than .4 its height
 						(widthOfC > .4 * heightOfC);
@@ -285,7 +167,7 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for the three strokes that form 'K' or 'k' and return either 'K', 'k' or NUL (Ascii value 0)
 	private static char checkForCapitalOrSmallK(PenCharacter pChar) {
 		char c = '\0';
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int fSlashIndex = -1;
@@ -295,7 +177,7 @@ public class PenCharacterEn extends PenCharacter {
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'K' has only three pen stroke characters
 
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					vLineIndex = i;
 					break;
@@ -314,18 +196,18 @@ public class PenCharacterEn extends PenCharacter {
 			// fSlashIndex, bSlashIndex, and vLineIndex are all not negative
 			if ((fSlashIndex >= 0) && (bSlashIndex >= 0) && (vLineIndex >= 0)) {
 
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fSlashIndex);
 				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke (above BSLASH)
 				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke (above BSLASH)
 				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke (above BSLASH)
 
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(bSlashIndex);
 				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke (below FSLASH)
 				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke (below FSLASH)
 				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke (below FSLASH)
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
@@ -354,24 +236,6 @@ public class PenCharacterEn extends PenCharacter {
 		return c;
 	} // End of checkForKShape()
 
-	/**
-	 *  Checks to see if the stroke is a 'O' or 'o', both made up of a single stroke, CIRCLE.
-	 * Is used as checkForOShape method in PenCharacterCn
-	 * @param pChar - PenCharacter object to check
-	 * @return - true if matched, false otherwise
-	 */
-	private static boolean checkForOShape(PenCharacter pChar) {
-		boolean matchedP = false;
-
-		int numOfSegments = pChar.penSegments.size();
-
-		// 'O'or 'o' has only one pen stroke character.
-		if (numOfSegments == 1) {
-			matchedP = (pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.CIRCLE_CHAR);
-		}
-		return matchedP;
-	}  // End of checkForOShape() method
-
 	// Check to see if the two strokes (VLINE and BC) form the shape of a 'P'.   
 	// This method is used by the methods checking for capital 'P' and small 'p'.
 	// Capital 'P' has a height larger than 2/3 the height of the writing space.
@@ -379,7 +243,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'P' has a VLINE and a BC (backward C or ')') on the right joining the VLINE at the top and mid-point
 	private static boolean checkForPShape(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		// VLINE is the first stroke and BC the second, both written top down.
 		if (numOfSegments == 2) {
@@ -388,7 +252,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'P' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					vLineIndex = i;
 					break;
@@ -404,7 +268,7 @@ public class PenCharacterEn extends PenCharacter {
 			// bCIndex and vLineIndex are both not negative
 			if ((bCIndex >= 0) && (vLineIndex >= 0)) {
 				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -413,7 +277,7 @@ public class PenCharacterEn extends PenCharacter {
 				float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
 
 				// Get the x,y of the top and bottom of BC
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bCIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(bCIndex);
 				float bCTopX = coords[0]; // x-coord of top end of the right BC stroke
 				float bCTopY = coords[1]; // y-coord of top end of the right BC stroke
 				float bCBottomX = coords[2]; // x-coord of bottom end of the right BC stroke
@@ -435,14 +299,18 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for 'S' for capital 'S' and small 's'
 	private static boolean checkForSShape(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
-		if (numOfSegments == 2) {
+		// The FC and BC drawn in one motion as an SCURVE
+		if (numOfSegments == 1) {
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.SCURVE_CHAR);
+		}
+		else if (numOfSegments == 2) {
 			int fCIndex = -1; // first stroke N to S
 			int bCIndex = -1; // second stroke N to S
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'S' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.FC_CHAR:
 					fCIndex = i;
 					break;
@@ -456,13 +324,13 @@ public class PenCharacterEn extends PenCharacter {
 			// Check to make sure that the two component strokes for 'S' are there, i.e.,
 			// fSlashIndex and bSlashIndex are both not negative
 			if ((fCIndex >= 0) && (bCIndex >= 0)) {
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fCIndex));		
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fCIndex);		
 				float fCTopX = coords[0]; // x-coord of top end of the FC stroke
 				float fCTopY = coords[1]; // y-coord of top end of the FC stroke
 				float fCBottomX = coords[2]; // x-coord of bottom end of the FC stroke
 				float fCBottomY = coords[3]; // y-coord of bottom end of the FC stroke
 
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bCIndex));		
+				coords = pChar.getFeatures().getTopBottomCoords(bCIndex);		
 				float bCTopX = coords[0]; // x-coord of top end of the BC stroke
 				float bCTopY = coords[1]; // y-coord of top end of the BC stroke
 				float bCBottomX = coords[2]; // x-coord of bottom end of the BC stroke
@@ -483,11 +351,11 @@ public class PenCharacterEn extends PenCharacter {
 	private static boolean checkForUShape(PenCharacter pChar) {
 		boolean matchedP = false;
 
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		// 'C' has only one pen stroke character.
 		if (numOfSegments == 1) {
-			matchedP = (pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.U_CHAR);
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.U_CHAR);
 		}
 		return matchedP;
 	}  // End of checkForUShape()
@@ -496,12 +364,15 @@ public class PenCharacterEn extends PenCharacter {
 	private static boolean checkForVShape(PenCharacter pChar) {
 		boolean matchedP = false;
 
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
-		// 'V' has only two pen stroke characters.
-		if (numOfSegments == 2) {
+		// 'V' has only two pen stroke characters, or one when drawn in one motion as a CHECK
+		if (numOfSegments == 1) {
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.CHECK_CHAR);
+		}
+		else if (numOfSegments == 2) {
 			matchedP =
-				(gapCheckForVShape(pChar.penSegments.elementAt(0), pChar.penSegments.elementAt(1)));
+				(SegmentGeometry.isVShape(pChar.getFeatures(), 0, 1));
 		}
 		return matchedP;
 	} // End of checkForVShape()
@@ -509,7 +380,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'W' or 'w' has two pairs of BSLASH's ('\') and a FSLASH's ('/') or V's, side by side
 	private static boolean checkForWShape(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 4) {
 			int leftBSlashIndex = -1; 
@@ -518,7 +389,7 @@ public class PenCharacterEn extends PenCharacter {
 			int rightFSlashIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'W' has only four pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.BSLASH_CHAR:
 					if (leftBSlashIndex < 0)
 						leftBSlashIndex = i;
@@ -540,29 +411,27 @@ public class PenCharacterEn extends PenCharacter {
 			// leftFSlashIndex, leftBSlashIndex, rightFSlashIndex, and rightVLineIndex are all not negative
 			if ((leftBSlashIndex >= 0) && (leftFSlashIndex >= 0) && (rightBSlashIndex >= 0) && (rightFSlashIndex >= 0)) {
 				// Get the left and right BSLASH strokes of 'W'
-				PenSegment leftRightBSlashSegments[] = 
-					order2PenSegmentsIntoLeftRight(pChar.penSegments.elementAt(leftBSlashIndex),
-							pChar.penSegments.elementAt(rightBSlashIndex));
+				int leftRightBSlashSegments[] = 
+					pChar.getFeatures().getLeftRightOrder(leftBSlashIndex, rightBSlashIndex);
 
-				PenSegment leftBSlashSegment = leftRightBSlashSegments[0];
-				PenSegment rightBSlashSegment = leftRightBSlashSegments[1];	
+				int leftBSlashSegment = leftRightBSlashSegments[0];
+				int rightBSlashSegment = leftRightBSlashSegments[1];	
 
 				// Get the left and right FSLASH strokes of 'W'
-				PenSegment leftRightFSlashSegments[] = 
-					order2PenSegmentsIntoLeftRight(pChar.penSegments.elementAt(leftFSlashIndex),
-							pChar.penSegments.elementAt(rightFSlashIndex));
+				int leftRightFSlashSegments[] = 
+					pChar.getFeatures().getLeftRightOrder(leftFSlashIndex, rightFSlashIndex);
 
-				PenSegment leftFSlashSegment = leftRightFSlashSegments[0];
-				PenSegment rightFSlashSegment = leftRightFSlashSegments[1];	
+				int leftFSlashSegment = leftRightFSlashSegments[0];
+				int rightFSlashSegment = leftRightFSlashSegments[1];	
 
 				// Check to see if the following gaps are close enough:
 				// i.   Gap between the bottom of the left BSLASH and the bottom of the left FSLASH (bottom of first 'V' of 'W')
 				// ii.  Gap between the top of the left FSLASH and the bottom of the right BSLASH (top middle caret of 'W')
 				// iii. Gap between the bottom of the right BSLASH and the bottom of the right FSLASH (bottom of second 'V' of 'W')
 				matchedP = 
-					(gapCheckForVShape(leftBSlashSegment, leftFSlashSegment))  // Check for left '\/' of 'W'
-					&& (gapCheckForCaretShape(leftFSlashSegment, rightBSlashSegment)) // Check for middle '/\' of 'W'
-					&& (gapCheckForVShape(rightBSlashSegment, rightFSlashSegment));  // Check for right '\/' of 'W'
+					(SegmentGeometry.isVShape(pChar.getFeatures(), leftBSlashSegment, leftFSlashSegment))  // Check for left '\/' of 'W'
+					&& (SegmentGeometry.isCaretShape(pChar.getFeatures(), leftFSlashSegment, rightBSlashSegment)) // Check for middle '/\' of 'W'
+					&& (SegmentGeometry.isVShape(pChar.getFeatures(), rightBSlashSegment, rightFSlashSegment));  // Check for right '\/' of 'W'
 			}
 		}
 		return matchedP;
@@ -571,7 +440,7 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for 'X' for capital 'X' and small 'x'
 	private static boolean checkForXShape(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 
 		if (numOfSegments == 2) {
@@ -579,7 +448,7 @@ public class PenCharacterEn extends PenCharacter {
 			int fSlashIndex = -1; // second stroke NE to SW
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'X' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.BSLASH_CHAR:
 					bSlashIndex = i;
 					break;
@@ -593,7 +462,7 @@ public class PenCharacterEn extends PenCharacter {
 			// Check to make sure that the two component strokes for 'X' are there, i.e.,
 			// fSlashIndex and bSlashIndex are both not negative
 			if ((bSlashIndex >= 0) && (fSlashIndex >= 0)) {
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));		
+				float coords[] = pChar.getFeatures().getTopBottomCoords(bSlashIndex);		
 				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
 				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
 				float bSlashBottomX = coords[2]; // x-coord of bottom end of the BSLASH stroke
@@ -601,7 +470,7 @@ public class PenCharacterEn extends PenCharacter {
 				float bSlashAvgX = (bSlashTopX + bSlashBottomX)/2; // average of x-coord (mid-point) of BSLASH stroke
 				float bSlashAvgY = (bSlashTopY + bSlashBottomY)/2; // average of y-coord (mid-point) of BSLASH stroke
 
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));		
+				coords = pChar.getFeatures().getTopBottomCoords(fSlashIndex);		
 				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
 				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
 				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
@@ -626,18 +495,21 @@ public class PenCharacterEn extends PenCharacter {
 		return matchedP;
 	} // End of checkForXShape()
 
-	// 'Z' or 'z' has an HLINE ('-') at the top and bottom of a FSLASH ('/')
+	// 'Z' or 'z' has an HLINE ('-') at the top and bottom of a FSLASH ('/'), or is a ZIGZAG with a straight top
 	private static boolean checkForZShape(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
-		if (numOfSegments == 3) {
+		if (numOfSegments == 1) {
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.ZIGZAG_CHAR) && !pChar.segmentStore.hasCurvedStart[0];
+		}
+		else if (numOfSegments == 3) {
 			int topHLineIndex = -1;
 			int fSlashIndex = -1;
 			int bottomHLineIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'Z' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					if (topHLineIndex < 0)
 						topHLineIndex = i;
@@ -656,22 +528,21 @@ public class PenCharacterEn extends PenCharacter {
 			// topHLineIndex, vLineIndex, and bottomHLineIndex are all not negative
 			if ((topHLineIndex >= 0) && (fSlashIndex >= 0) && (bottomHLineIndex >= 0)) {
 				// Get the top and bottom HLINE strokes of 'Z'
-				PenSegment topBottomHLineSegments[] = 
-					order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(topHLineIndex),
-							pChar.penSegments.elementAt(bottomHLineIndex));
+				int topBottomHLineSegments[] = 
+					pChar.getFeatures().getTopBottomOrder(topHLineIndex, bottomHLineIndex);
 
 				// Get x, y coords of right end of top HLINE
-				float coords[] = getLeftRightCoordsOfSegment(topBottomHLineSegments[0]);
+				float coords[] = pChar.getFeatures().getLeftRightCoords(topBottomHLineSegments[0]);
 				float topHLineRightX = coords[2]; // x-coord of right end of top HLINE;
 				float topHLineRightY = coords[3]; // y-coord of right end of top HLINE;
 
 				// Get x, y coords of left end of bottom HLINE
-				coords = getLeftRightCoordsOfSegment(topBottomHLineSegments[1]);
+				coords = pChar.getFeatures().getLeftRightCoords(topBottomHLineSegments[1]);
 				float bottomHLineLeftX = coords[0]; // x-coord of left end of bottom HLINE;
 				float bottomHLineLeftY = coords[1]; // y-coord of left end of bottom HLINE;
 
 				// Get x,y of top and bottom of FSLASH
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(fSlashIndex);
 				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
 				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
 				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
@@ -689,22 +560,54 @@ public class PenCharacterEn extends PenCharacter {
 		return matchedP;
 	} // End of checkForZShape() method
 
+	// '2' drawn in one motion is a ZIGZAG with a curved (BC) top
+	private static boolean checkFor2(PenCharacter pChar) {
+		boolean matchedP = false;
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
-	// Check for specific characters
+		if (numOfSegments == 1) {
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.ZIGZAG_CHAR) && pChar.segmentStore.hasCurvedStart[0];
+		}
+		return matchedP;
+	} // End of checkFor2() method
 
-	// Caret character (or inverted V) is made up of a forward slash ('/') and a back slash ('\')
-	private static boolean checkForCaret(PenCharacter pChar) {
+	// '$' has a VLINE ('|') through the middle of an SCURVE
+	private static boolean checkForDollarSign(PenCharacter pChar) {
 		boolean matchedP = false;
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
-		int numOfSegments = pChar.penSegments.size();
-
-		// Caret has only two pen stroke characters.
 		if (numOfSegments == 2) {
-			matchedP = (gapCheckForCaretShape(pChar.penSegments.elementAt(0), pChar.penSegments.elementAt(1)));
-		}
+			int sCurveIndex = -1;
+			int vLineIndex = -1;
+			for (int i = 0; i < numOfSegments; i++) {
+				switch (pChar.segmentStore.primitives[i]) {
+				case PenSegment.SCURVE_CHAR:
+					sCurveIndex = i;
+					break;
+				case PenSegment.VLINE_CHAR:
+					vLineIndex = i;
+					break;
+				default:
+					break;
+				}
+			}
+
+			if ((sCurveIndex >= 0) && (vLineIndex >= 0)) {
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
+				float vLineMidX = (coords[0] + coords[2])/2;
+				float vLineMidY = (coords[1] + coords[3])/2;
 
+				// Check to see that the VLINE crosses the SCURVE near its center
+				matchedP =
+					(Math.abs(vLineMidX - pChar.segmentStore.getCenterX(sCurveIndex)) < 0.25 * pChar.segmentStore.getWidth(sCurveIndex)) &&
+					(Math.abs(vLineMidY - pChar.segmentStore.getCenterY(sCurveIndex)) < 0.25 * pChar.segmentStore.getHeight(sCurveIndex));
+			}
+		}
 		return matchedP;
-	}  // End of checkForCaret() method
+	} // End of checkForDollarSign() method
+
+
+	// Check for specific characters
 
 	/*****************
 	 *               *
@@ -715,7 +618,7 @@ public class PenCharacterEn extends PenCharacter {
 	// '1' always has VLINE ('|') and an optional FSLASH ('/') at the top and/or HLINE ('-') at the bottom
 	private static boolean checkFor1(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if ((numOfSegments > 0) && (numOfSegments < 4)) { // '1' can have one to three strokes
 			int topFSlashIndex = -1;
@@ -725,7 +628,7 @@ public class PenCharacterEn extends PenCharacter {
 			for (int i = 0; i < numOfSegments; i++) {
 				// '1' has at least one pen stroke characters, a VLINE ('|') and at most two other pen stroke characters,
 				// an optional FSLASH ('/') at the top and/or HLINE ('-') at the bottom
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					vLineIndex = i;
 					matchedP = true; // Must have a VLINE ('|')
@@ -745,7 +648,7 @@ public class PenCharacterEn extends PenCharacter {
 			if (matchedP && (numOfSegments > 1)) {
 				
 				// Get x,y of top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
@@ -758,7 +661,7 @@ public class PenCharacterEn extends PenCharacter {
 				if (matchedP && (topFSlashIndex >= 0)) {
 				
 					// Get x,y of top and bottom of the top FSLASH
-					coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(topFSlashIndex));
+					coords = pChar.getFeatures().getTopBottomCoords(topFSlashIndex);
 
 					float topFSlashTopX = coords[0]; // x-coord of top end of the VLINE stroke
 					float topFSlashTopY = coords[1]; // y-coord of top end of the VLINE stroke
@@ -773,9 +676,8 @@ public class PenCharacterEn extends PenCharacter {
 				// (Can this be shared with checking the bottom HLINE in Capital I?)
 				if (matchedP && (bottomHLineIndex >= 0)) {
 				
-					PenSegment bottomHLineSegment = pChar.penSegments.elementAt(bottomHLineIndex);
-					float bottomHLineMidX = (bottomHLineSegment.posStart[0] + bottomHLineSegment.posEnd[0])/2;
-					float bottomHLineMidY = (bottomHLineSegment.posStart[1] + bottomHLineSegment.posEnd[1])/2;
+					float bottomHLineMidX = (pChar.segmentStore.startX[bottomHLineIndex] + pChar.segmentStore.endX[bottomHLineIndex])/2;
+					float bottomHLineMidY = (pChar.segmentStore.startY[bottomHLineIndex] + pChar.segmentStore.endY[bottomHLineIndex])/2;
 					
 					matchedP = (PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineMidX, bottomHLineMidY) < gapThreshold);
 					
@@ -791,7 +693,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 3 has two strokes - two BC (backward C or ')') strokes stacked on top of one another.
 	private static boolean checkFor3(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		// 3 has only two pen stroke characters
 		if (numOfSegments == 2) {
@@ -799,7 +701,7 @@ public class PenCharacterEn extends PenCharacter {
 			int bottomBCIndex = -1;
 
 			for (int i = 0; i < numOfSegments; i++) {
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.BC_CHAR:
 					if (topBCIndex < 0) topBCIndex = i;
 					else bottomBCIndex = i;
@@ -813,17 +715,17 @@ public class PenCharacterEn extends PenCharacter {
 			// topBCIndex and bottomBCIndex are both not negative
 			if ((topBCIndex >= 0) && (bottomBCIndex >= 0)) {
 				// Get the top and bottom BC strokes
-				PenSegment topBottomBCSegments[] = 
-					order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(topBCIndex), pChar.penSegments.elementAt(bottomBCIndex));
+				int topBottomBCSegments[] = 
+					pChar.getFeatures().getTopBottomOrder(topBCIndex, bottomBCIndex);
 
 				// Get x,y coords of the top BC stroke
-				float coords[] = getTopBottomCoordsOfSegment(topBottomBCSegments[0]);
+				float coords[] = pChar.getFeatures().getTopBottomCoords(topBottomBCSegments[0]);
 				float topBCTopY = coords[1]; // y-coord of top end of the top BC stroke
 				float topBCBottomX = coords[2]; // x-coord of bottom end of the top BC stroke
 				float topBCBottomY = coords[3]; // y-coord of bottom end of the top BC stroke
 
 				// Get x,y coords of the bottom BC stroke
-				coords = getTopBottomCoordsOfSegment(topBottomBCSegments[1]);
+				coords = pChar.getFeatures().getTopBottomCoords(topBottomBCSegments[1]);
 				float bottomBCTopX = coords[0]; // x-coord of top end of the bottom BC stroke
 				float bottomBCTopY = coords[1]; // y-coord of top end of the bottom BC stroke
 				float bottomBCBottomY = coords[3]; // y-coord of bottom end of the bottom BC stroke
@@ -842,7 +744,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 4 has three strokes - a HLINE, a VLINE, and a FSLASH.
 	private static boolean checkFor4(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		// 5 has only three pen stroke characters
 		if (numOfSegments == 3) {
@@ -851,7 +753,7 @@ public class PenCharacterEn extends PenCharacter {
 			int fSlashIndex = -1;
 
 			for (int i = 0; i < numOfSegments; i++) {
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					hLineIndex = i;
 					break;
@@ -870,7 +772,7 @@ public class PenCharacterEn extends PenCharacter {
 			// hLineIndex, vLineIndex, and fSlashIndex are all not negative
 			if ((hLineIndex >= 0) && (vLineIndex >= 0) && (fSlashIndex >= 0)) {
 				// Get the left, right x,y coords of the HLINE stroke
-				float coords[] = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(hLineIndex));
+				float coords[] = pChar.getFeatures().getLeftRightCoords(hLineIndex);
 				float hLineLeftX = coords[0]; // x-coord of left end of the HLINE stroke
 				float hLineLeftY = coords[1]; // y-coord of left end of the HLINE stroke
 				float hLineRightX = coords[2]; // x-coord of right end of the HLINE stroke
@@ -879,7 +781,7 @@ public class PenCharacterEn extends PenCharacter {
 				float hLineMidY = (hLineLeftY + hLineRightY)/2; // y-coord of mid-point of the HLINE stroke
 
 				// Get the top, bottom x,y coords of the VLINE stroke
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -888,7 +790,7 @@ public class PenCharacterEn extends PenCharacter {
 				float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coord of mid-point of the VLINE stroke
 
 				// Get the top, bottom x,y coords of the BC stroke
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(fSlashIndex);
 				float fSlashBottomX = coords[2]; // x-coord of bottom end of the bottom BC stroke
 				float fSlashBottomY = coords[3]; // y-coord of bottom end of the bottom BC stroke
 
@@ -909,7 +811,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 5 has three strokes - a HLINE, a VLINE, and a BC (backward C or ')') strokes stacked on top of one another.
 	private static boolean checkFor5(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		// 5 has only three pen stroke characters
 		if (numOfSegments == 3) {
@@ -918,7 +820,7 @@ public class PenCharacterEn extends PenCharacter {
 			int bCIndex = -1;
 
 			for (int i = 0; i < numOfSegments; i++) {
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					hLineIndex = i;
 					break;
@@ -937,19 +839,19 @@ public class PenCharacterEn extends PenCharacter {
 			// hLineIndex, vLineIndex, and bCIndex are all not negative
 			if ((hLineIndex >= 0) && (vLineIndex >= 0) && (bCIndex >= 0)) {
 				// Get the left, right x,y coords of the HLINE stroke
-				float coords[] = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(hLineIndex));
+				float coords[] = pChar.getFeatures().getLeftRightCoords(hLineIndex);
 				float hLineLeftX = coords[0]; // x-coord of left end of the HLINE stroke
 				float hLineLeftY = coords[1]; // y-coord of left end of the HLINE stroke
 
 				// Get the top, bottom x,y coords of the VLINE stroke
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
 				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
 
 				// Get the top, bottom x,y coords of the BC stroke
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bCIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(bCIndex);
 				float bCTopX = coords[0]; // x-coord of top end of the bottom BC stroke
 				float bCTopY = coords[1]; // y-coord of top end of the bottom BC stroke
 				float bCBottomY = coords[3]; // y-coord of bottom end of the bottom BC stroke
@@ -971,7 +873,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 7 has two strokes - a HLINE above a FSLASH.
 	private static boolean checkFor7(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		// 7 has only two pen stroke characters
 		if (numOfSegments == 2) {
@@ -979,7 +881,7 @@ public class PenCharacterEn extends PenCharacter {
 			int fSlashIndex = -1;
 
 			for (int i = 0; i < numOfSegments; i++) {
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					hLineIndex = i;
 					break;
@@ -995,14 +897,14 @@ public class PenCharacterEn extends PenCharacter {
 			// hLineIndex and fSlashIndex both all not negative
 			if ((hLineIndex >= 0) && (fSlashIndex >= 0)) {
 				// Get the left, right x,y coords of the HLINE stroke
-				float coords[] = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(hLineIndex));
+				float coords[] = pChar.getFeatures().getLeftRightCoords(hLineIndex);
 				//				float hLineLeftX = coords[0]; // x-coord of left end of the HLINE stroke
 				//				float hLineLeftY = coords[1]; // y-coord of left end of the HLINE stroke
 				float hLineRightX = coords[2]; // x-coord of right end of the HLINE stroke
 				float hLineRightY = coords[3]; // y-coord of right end of the HLINE stroke
 
 				// Get the top, bottom x,y coords of the VLINE stroke
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(fSlashIndex);
 				float fSlashTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float fSlashTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				//				float fSlashBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -1047,7 +949,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'A' is made up of a forward slash ('/'), a back slash ('\'), and a horizontal line ('-')
 	private static boolean checkForCapitalA(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int fSlashIndex = -1;
@@ -1055,7 +957,7 @@ public class PenCharacterEn extends PenCharacter {
 			int hLineIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'A' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.FSLASH_CHAR:
 					fSlashIndex = i;
 					break;
@@ -1075,14 +977,14 @@ public class PenCharacterEn extends PenCharacter {
 			if ((fSlashIndex >= 0) && (bSlashIndex >= 0) && (hLineIndex >= 0)) {
 
 				// Get x,y of top and bottom of FSLASH
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fSlashIndex);
 				float fSlashTopX = coords[0]; // x-coord of start point of FSLASH stroke
 				float fSlashTopY = coords[1]; // y-coord of start point of FSLASH stroke
 				float fSlashBottomX = coords[2]; // x-coord of end point of FSLASH stroke
 				float fSlashBottomY = coords[3]; // y-coord of end point of FSLASH stroke
 
 				// Get x,y of top and bottom of BSLASH
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(bSlashIndex);
 				float bSlashTopX = coords[0]; // x-coord of start point of BSLASH stroke
 				float bSlashTopY = coords[1]; // y-coord of start point of BSLASH stroke
 				float bSlashBottomX = coords[2]; // x-coord of end point of BSLASH stroke
@@ -1099,15 +1001,15 @@ public class PenCharacterEn extends PenCharacter {
 				float minX = Math.min(Math.min(fSlashTopX, fSlashBottomX), Math.min(bSlashTopX, bSlashBottomX));
 				float width = maxX - minX;
 
-				float hLineAvgX = (pChar.penSegments.elementAt(hLineIndex).posStart[0] + pChar.penSegments.elementAt(hLineIndex).posEnd[0])/2;
-				float hLineAvgY = (pChar.penSegments.elementAt(hLineIndex).posStart[1] + pChar.penSegments.elementAt(hLineIndex).posEnd[1])/2;
+				float hLineAvgX = (pChar.segmentStore.startX[hLineIndex] + pChar.segmentStore.endX[hLineIndex])/2;
+				float hLineAvgY = (pChar.segmentStore.startY[hLineIndex] + pChar.segmentStore.endY[hLineIndex])/2;
 
 				float hLineAvgXDist = hLineAvgX - minX;
 				float hLineAvgYDist = hLineAvgY - minY;
 
 				// Check for caret (or '/' and '\') forming the top of A and position of horizontal line (dash) wrt to caret
 				matchedP = 
-					gapCheckForCaretShape(pChar.penSegments.elementAt(fSlashIndex), pChar.penSegments.elementAt(bSlashIndex)) &&
+					SegmentGeometry.isCaretShape(pChar.getFeatures(), fSlashIndex, bSlashIndex) &&
 					isBetweenThresholds(hLineAvgXDist, .25 * width, .75 * width) &&
 					isBetweenThresholds(hLineAvgYDist, .25 * height, .75 * height);
 			}
@@ -1120,7 +1022,7 @@ public class PenCharacterEn extends PenCharacter {
 	// at around the mid-point and the bottom
 	private static boolean checkForCapitalB(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int topBCIndex = -1;
@@ -1129,7 +1031,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'B' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.BC_CHAR:
 					if (topBCIndex < 0) topBCIndex = i;
 					else bottomBCIndex = i;
@@ -1146,25 +1048,25 @@ public class PenCharacterEn extends PenCharacter {
 			// topBCIndex, bottomBCIndex, and vLineIndex are all not negative
 			if ((topBCIndex >= 0) && (bottomBCIndex >= 0) && (vLineIndex >= 0)) {
 				// Get the top and bottom BC strokes
-				PenSegment topBottomBCSegments[] = 
-					order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(topBCIndex), pChar.penSegments.elementAt(bottomBCIndex));
+				int topBottomBCSegments[] = 
+					pChar.getFeatures().getTopBottomOrder(topBCIndex, bottomBCIndex);
 
 				// Get x,y coords of the top BC stroke
-				float coords[] = getTopBottomCoordsOfSegment(topBottomBCSegments[0]);
+				float coords[] = pChar.getFeatures().getTopBottomCoords(topBottomBCSegments[0]);
 				float topBCTopX = coords[0]; // x-coord of top end of the top BC stroke
 				float topBCTopY = coords[1]; // y-coord of top end of the top BC stroke
 				float topBCBottomX = coords[2]; // x-coord of bottom end of the top BC stroke
 				float topBCBottomY = coords[3]; // y-coord of bottom end of the top BC stroke
 
 				// Get x,y coords of the bottom BC stroke
-				coords = getTopBottomCoordsOfSegment(topBottomBCSegments[1]);
+				coords = pChar.getFeatures().getTopBottomCoords(topBottomBCSegments[1]);
 				float bottomBCTopX = coords[0]; // x-coord of top end of the bottom BC stroke
 				float bottomBCTopY = coords[1]; // y-coord of top end of the bottom BC stroke
 				float bottomBCBottomX = coords[2]; // x-coord of bottom end of the bottom BC stroke
 				float bottomBCBottomY = coords[3]; // y-coord of bottom end of the bottom BC stroke
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -1195,7 +1097,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'D' has a VLINE and a BC (backward C or ')') on the right joining the VLINE at the top and bottom
 	private static boolean checkForCapitalD(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int bCIndex = -1;
@@ -1203,7 +1105,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'D' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.BC_CHAR:
 					bCIndex = i;
 					break;
@@ -1219,14 +1121,14 @@ public class PenCharacterEn extends PenCharacter {
 			// bCIndex and vLineIndex are both not negative
 			if ((bCIndex >= 0) && (vLineIndex >= 0)) {
 				// Get the x,y of the top and bottom of BC
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bCIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(bCIndex);
 				float bCTopX = coords[0]; // x-coord of top end of the BC stroke
 				float bCTopY = coords[1]; // y-coord of top end of the BC stroke
 				float bCBottomX = coords[2]; // x-coord of bottom end of the BC stroke
 				float bCBottomY = coords[3]; // y-coord of bottom end of the BC stroke
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -1249,7 +1151,7 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for 'E'
 	private static boolean checkForCapitalE(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 4) {
 			int topHLineIndex = -1;
@@ -1259,7 +1161,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'E' has only four pen stroke characters - 1 long vertical and 3 short horizontal segments
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					if (topHLineIndex == -1)
 						topHLineIndex = i;
@@ -1279,15 +1181,15 @@ public class PenCharacterEn extends PenCharacter {
 			// Check to make sure that the four component strokes for 'E' are there, i.e.,
 			// topHLineIndex, midHLineIndex, bottomHLineIndex, and vLineIndex are all not negative
 			if ((topHLineIndex >= 0) && (midHLineIndex >= 0) && (bottomHLineIndex >= 0) && (vLineIndex >= 0)) {
-				float coords[] = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(topHLineIndex));
+				float coords[] = pChar.getFeatures().getLeftRightCoords(topHLineIndex);
 				float topHLineLeftX = coords[0]; // x-coord of left point of the top HLINE stroke
 				float topHLineLeftY = coords[1]; // y-coord of left point of the top HLINE stroke
 
-				coords = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(midHLineIndex));
+				coords = pChar.getFeatures().getLeftRightCoords(midHLineIndex);
 				float midHLineLeftX = coords[0]; // x-coord of left point of the mid HLINE stroke
 				float midHLineLeftY = coords[1]; // y-coord of left point of the mid HLINE stroke
 
-				coords = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(bottomHLineIndex));
+				coords = pChar.getFeatures().getLeftRightCoords(bottomHLineIndex);
 				float bottomHLineLeftX = coords[0]; // x-coord of left point of the bottom HLINE stroke
 				float bottomHLineLeftY = coords[1]; // y-coord of left point of the bottom HLINE stroke
 
@@ -1330,7 +1232,7 @@ public class PenCharacterEn extends PenCharacter {
 				}	
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
@@ -1359,7 +1261,7 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for 'F'
 	private static boolean checkForCapitalF(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int topHLineIndex = -1;
@@ -1368,7 +1270,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'F' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					if (topHLineIndex == -1) {
 						topHLineIndex = i;
@@ -1388,21 +1290,21 @@ public class PenCharacterEn extends PenCharacter {
 			// topHLineIndex, midHLineIndex, and vLineIndex are all not negative
 			if ((topHLineIndex >= 0) && (midHLineIndex >= 0) && (vLineIndex >= 0)) {
 				// Check to see which of the two HLINE is the top one (the one with lower y-coord value)
-				if (pChar.penSegments.elementAt(midHLineIndex).posStart[1] < pChar.penSegments.elementAt(topHLineIndex).posStart[1]) {
+				if (pChar.segmentStore.startY[midHLineIndex] < pChar.segmentStore.startY[topHLineIndex]) {
 					int temp = topHLineIndex;
 					topHLineIndex = midHLineIndex;
 					midHLineIndex = temp;
 				}
 
-				float coords[] = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(topHLineIndex));
+				float coords[] = pChar.getFeatures().getLeftRightCoords(topHLineIndex);
 				float topHLineLeftX = coords[0]; // x-coord of left point of the top HLINE stroke
 				float topHLineLeftY = coords[1]; // y-coord of left point of the top HLINE stroke
 
-				coords = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(midHLineIndex));
+				coords = pChar.getFeatures().getLeftRightCoords(midHLineIndex);
 				float midHLineLeftY = coords[1]; // y-coord of left point of the mid HLINE stroke
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
@@ -1427,7 +1329,7 @@ public class PenCharacterEn extends PenCharacter {
 	// in turn is touched by the lower right end of the FC.
 	private static boolean checkForCapitalG(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 		// G can have 3 strokes - FC and HLINE and an optional VLINE
 		if (numOfSegments == 3) {
 			int fCIndex = -1;
@@ -1436,7 +1338,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'G' has only two pen stroke characters.
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.FC_CHAR:
 					fCIndex = i;
 					break;
@@ -1455,12 +1357,12 @@ public class PenCharacterEn extends PenCharacter {
 			// fCIndex, vLineIndex, and hLineIndex are all not negative.
 			if ((fCIndex >= 0) && (vLineIndex >= 0) && (hLineIndex >= 0)) {
 				// Get the x,y of the top and bottom of FC.
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fCIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fCIndex);
 				float fCBottomX = coords[2]; // x-coord of bottom end of the BC stroke.
 				float fCBottomY = coords[3]; // y-coord of bottom end of the BC stroke.
 
 				// Get x,y of the top and bottom of HLINE
-				coords = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(hLineIndex));
+				coords = pChar.getFeatures().getLeftRightCoords(hLineIndex);
 				float hLineLeftX = coords[0]; // x-coord of left end of the HLINE stroke.
 				float hLineLeftY = coords[1]; // y-coord of left end of the HLINE stroke.
 				float hLineRightX = coords[2]; // x-coord of right end of the HLINE stroke.
@@ -1470,7 +1372,7 @@ public class PenCharacterEn extends PenCharacter {
 				float hLineWidth = Math.abs(hLineLeftX - hLineRightX);
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke.
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke.
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke.
@@ -1505,13 +1407,13 @@ public class PenCharacterEn extends PenCharacter {
 	// 'H' has a HLINE ('-') between two VLINE's ('|')
 	private static boolean checkForCapitalH(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int leftVLineIndex = -1, hLineIndex = -1, rightVLineIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'H' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					if (leftVLineIndex < 0)
 						leftVLineIndex = i;
@@ -1530,19 +1432,18 @@ public class PenCharacterEn extends PenCharacter {
 			// leftVLineIndex, hLineIndex, and rightVLineIndex are all not negative
 			if ((leftVLineIndex >= 0) && (hLineIndex >= 0) && (rightVLineIndex >= 0)) {
 				// Get the left and left VLINE strokes of 'I'
-				PenSegment leftRightVLineSegments[] = 
-					order2PenSegmentsIntoLeftRight(pChar.penSegments.elementAt(leftVLineIndex),
-							pChar.penSegments.elementAt(rightVLineIndex));
-				PenSegment leftVLineSegment = leftRightVLineSegments[0];
-				PenSegment rightVLineSegment = leftRightVLineSegments[1];	
+				int leftRightVLineSegments[] = 
+					pChar.getFeatures().getLeftRightOrder(leftVLineIndex, rightVLineIndex);
+				int leftVLineSegment = leftRightVLineSegments[0];
+				int rightVLineSegment = leftRightVLineSegments[1];	
 				// Get the average x,y coords of each of the left and right VLINE's
-				float leftVLineMidX = (leftVLineSegment.posStart[0] + leftVLineSegment.posEnd[0])/2;
-				float leftVLineMidY = (leftVLineSegment.posStart[1] + leftVLineSegment.posEnd[1])/2;				
-				float rightVLineMidX = (rightVLineSegment.posStart[0] + rightVLineSegment.posEnd[0])/2;
-				float rightVLineMidY = (rightVLineSegment.posStart[1] + rightVLineSegment.posEnd[1])/2;
+				float leftVLineMidX = (pChar.segmentStore.startX[leftVLineSegment] + pChar.segmentStore.endX[leftVLineSegment])/2;
+				float leftVLineMidY = (pChar.segmentStore.startY[leftVLineSegment] + pChar.segmentStore.endY[leftVLineSegment])/2;				
+				float rightVLineMidX = (pChar.segmentStore.startX[rightVLineSegment] + pChar.segmentStore.endX[rightVLineSegment])/2;
+				float rightVLineMidY = (pChar.segmentStore.startY[rightVLineSegment] + pChar.segmentStore.endY[rightVLineSegment])/2;
 
 				// Get x,y of the left and right of HLINE
-				float coords[] = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(hLineIndex));
+				float coords[] = pChar.getFeatures().getLeftRightCoords(hLineIndex);
 
 				float hLineLeftX = coords[0]; // x-coord of left point of the HLINE stroke
 				float hLineLeftY = coords[1]; // y-coord of left point of the HLINE stroke
@@ -1565,7 +1466,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'I' has an HLINE ('-') at the top and bottom of a VLINE ('|')
 	private static boolean checkForCapitalI(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int topHLineIndex = -1;
@@ -1573,7 +1474,7 @@ public class PenCharacterEn extends PenCharacter {
 			int bottomHLineIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'I' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					if (topHLineIndex < 0)
 						topHLineIndex = i;
@@ -1592,16 +1493,15 @@ public class PenCharacterEn extends PenCharacter {
 			// topHLineIndex, vLineIndex, and bottomHLineIndex are all not negative
 			if ((topHLineIndex >= 0) && (vLineIndex >= 0) && (bottomHLineIndex >= 0)) {
 				// Get the top and bottom HLINE strokes of 'I'
-				PenSegment topBottomHLineSegments[] = 
-					order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(topHLineIndex),
-							pChar.penSegments.elementAt(bottomHLineIndex));
-				float topHLineMidX = (topBottomHLineSegments[0].posStart[0] + topBottomHLineSegments[0].posEnd[0])/2;
-				float topHLineMidY = (topBottomHLineSegments[0].posStart[1] + topBottomHLineSegments[0].posEnd[1])/2;				
-				float bottomHLineMidX = (topBottomHLineSegments[1].posStart[0] + topBottomHLineSegments[1].posEnd[0])/2;
-				float bottomHLineMidY = (topBottomHLineSegments[1].posStart[1] + topBottomHLineSegments[1].posEnd[1])/2;
+				int topBottomHLineSegments[] = 
+					pChar.getFeatures().getTopBottomOrder(topHLineIndex, bottomHLineIndex);
+				float topHLineMidX = (pChar.segmentStore.startX[topBottomHLineSegments[0]] + pChar.segmentStore.endX[topBottomHLineSegments[0]])/2;
+				float topHLineMidY = (pChar.segmentStore.startY[topBottomHLineSegments[0]] + pChar.segmentStore.endY[topBottomHLineSegments[0]])/2;				
+				float bottomHLineMidX = (pChar.segmentStore.startX[topBottomHLineSegments[1]] + pChar.segmentStore.endX[topBottomHLineSegments[1]])/2;
+				float bottomHLineMidY = (pChar.segmentStore.startY[topBottomHLineSegments[1]] + pChar.segmentStore.endY[topBottomHLineSegments[1]])/2;
 
 				// Get x,y of top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
@@ -1621,18 +1521,49 @@ public class PenCharacterEn extends PenCharacter {
 		return matchedP;
 	}  // End of checkForCapitalI()
 
-	// 'J' has an HLINE ('-') at the top of a VLINE ('|') and a U below the VLINE
+	// 'J' has an HLINE ('-') at the top of a VLINE ('|') and a U below the VLINE.
+	// The VLINE and U may be drawn in one motion as a HOOK, with or without the HLINE.
 	private static boolean checkForCapitalJ(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
-		if (numOfSegments == 3) {
+		if (numOfSegments == 1) {
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.HOOK_CHAR);
+		}
+		else if (numOfSegments == 2) {
+			int topHLineIndex = -1;
+			int hookIndex = -1;
+			for (int i = 0; i < numOfSegments; i++) {
+				switch (pChar.segmentStore.primitives[i]) {
+				case PenSegment.HLINE_CHAR:
+					topHLineIndex = i;
+					break;
+				case PenSegment.HOOK_CHAR:
+					hookIndex = i;
+					break;
+				default:
+					break;
+				}
+			}
+
+			if ((topHLineIndex >= 0) && (hookIndex >= 0)) {
+				float topHLineMidX = (pChar.segmentStore.startX[topHLineIndex] + pChar.segmentStore.endX[topHLineIndex])/2;
+				float topHLineMidY = (pChar.segmentStore.startY[topHLineIndex] + pChar.segmentStore.endY[topHLineIndex])/2;
+
+				// The HOOK starts at its top
+				double gapThreshold = 0.1 * pChar.segmentStore.getHeight(hookIndex);
+
+				matchedP = (PenUtil.distanceBetween2Points(pChar.segmentStore.startX[hookIndex], pChar.segmentStore.startY[hookIndex],
+						topHLineMidX, topHLineMidY) < gapThreshold);
+			}
+		}
+		else if (numOfSegments == 3) {
 			int topHLineIndex = -1;
 			int vLineIndex = -1;
 			int bottomUIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'J' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					topHLineIndex = i;
 					break;
@@ -1650,13 +1581,12 @@ public class PenCharacterEn extends PenCharacter {
 			// Check to make sure that the three component strokes for 'J' are there, i.e.,
 			// topHLineIndex, vLineIndex, and bottomUIndex are all not negative
 			if ((topHLineIndex >= 0) && (vLineIndex >= 0) && (bottomUIndex >= 0)) {
-				// Get the top HLINE stroke of 'J'
-				PenSegment topHLineSegment = pChar.penSegments.elementAt(topHLineIndex);
-				float topHLineMidX = (topHLineSegment.posStart[0] + topHLineSegment.posEnd[0])/2;
-				float topHLineMidY = (topHLineSegment.posStart[1] + topHLineSegment.posEnd[1])/2;				
+				// Get the mid-point of the top HLINE stroke of 'J'
+				float topHLineMidX = (pChar.segmentStore.startX[topHLineIndex] + pChar.segmentStore.endX[topHLineIndex])/2;
+				float topHLineMidY = (pChar.segmentStore.startY[topHLineIndex] + pChar.segmentStore.endY[topHLineIndex])/2;				
 
 				// Get x,y of top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
@@ -1667,7 +1597,7 @@ public class PenCharacterEn extends PenCharacter {
 				double gapThreshold = 0.1 * vLineHeight;
 
 				// Get the left, right x,y coordinates of the bottom U stroke of 'J'
-				coords = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(bottomUIndex));
+				coords = pChar.getFeatures().getLeftRightCoords(bottomUIndex);
 				float rightUX = coords[2];
 				float rightUY = coords[3];				
 
@@ -1681,13 +1611,55 @@ public class PenCharacterEn extends PenCharacter {
 		return matchedP;
 	}  // End of checkForCapitalJ()
 
+	// 'j' has a HOOK and a DOT above it
+	private static boolean checkForSmallJ(PenCharacter pChar) {
+		boolean matchedP = false;
+		int numOfSegments = pChar.segmentStore.numOfSegments;
+
+		if (numOfSegments == 2) {
+			int hookIndex = -1;
+			int dotIndex = -1;
+			for (int i = 0; i < numOfSegments; i++) {
+				// 'j' has only two pen stroke characters
+				switch (pChar.segmentStore.primitives[i]) {
+				case PenSegment.HOOK_CHAR:
+					hookIndex = i;
+					break;
+				case PenSegment.DOT_CHAR:
+					dotIndex = i;
+					break;
+				default:
+					break;
+				}
+			}
+
+			// Check to make sure that the two component strokes for 'j' are there, i.e.,
+			// hookIndex and dotIndex are both not negative
+			if ((hookIndex >= 0) && (dotIndex >= 0)) {
+				// The HOOK starts at its top
+				float hookTopX = pChar.segmentStore.startX[hookIndex];
+				float hookTopY = pChar.segmentStore.startY[hookIndex];
+				double verticalGapThreshold = 0.5 * pChar.segmentStore.getHeight(hookIndex);
+				double horizontalGapThreshold = 0.1 * pChar.segmentStore.getHeight(hookIndex);
+
+				float dotX = pChar.segmentStore.endX[dotIndex];
+				float dotY = pChar.segmentStore.endY[dotIndex];
+
+				// Check to see that the DOT is above the top of the HOOK and not too far from it
+				matchedP = (dotY < hookTopY) && (hookTopY - dotY < verticalGapThreshold) &&
+					(Math.abs(dotX - hookTopX) < horizontalGapThreshold);
+			}
+		}
+		return matchedP;
+	}  // End of checkForSmallJ()
+
 
 	// 'K' is checked using checkForCapitalOrSmallK() which returns a 'k', 'K', or '\0' and not a boolean
 
 	// 'L' has a VLINE and an HLINE at the bottom
 	private static boolean checkForCapitalL(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int bottomHLineIndex = -1;
@@ -1695,7 +1667,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'L' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					bottomHLineIndex = i;
 					break;
@@ -1710,12 +1682,12 @@ public class PenCharacterEn extends PenCharacter {
 			// Check to make sure that the two component strokes for 'L' are there, i.e.,
 			// bottomHLineIndex and vLineIndex are both not negative
 			if ((bottomHLineIndex >= 0) && (vLineIndex >= 0)) {
-				float coords[] = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(bottomHLineIndex));
+				float coords[] = pChar.getFeatures().getLeftRightCoords(bottomHLineIndex);
 				float bottomHLineLeftX = coords[0]; // x-coord of left point of the bottom HLINE stroke
 				float bottomHLineLeftY = coords[1]; // y-coord of left point of the bottom HLINE stroke
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -1737,7 +1709,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'M' has a BSLASH ('\') and a FSLASH ('/') between two VLINE's ('|')
 	private static boolean checkForCapitalM(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 4) {
 			int leftVLineIndex = -1;
@@ -1746,7 +1718,7 @@ public class PenCharacterEn extends PenCharacter {
 			int rightVLineIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'M' has only four pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					if (leftVLineIndex < 0)
 						leftVLineIndex = i;
@@ -1768,23 +1740,22 @@ public class PenCharacterEn extends PenCharacter {
 			// leftVLineIndex, bSlashIndex, fSlashIndex, and rightVLineIndex are all not negative
 			if ((leftVLineIndex >= 0) && (bSlashIndex >= 0) && (fSlashIndex >= 0) && (rightVLineIndex >= 0)) {
 				// Get the left and left VLINE strokes of 'M'
-				PenSegment leftRightVLineSegments[] = 
-					order2PenSegmentsIntoLeftRight(pChar.penSegments.elementAt(leftVLineIndex),
-							pChar.penSegments.elementAt(rightVLineIndex));
+				int leftRightVLineSegments[] = 
+					pChar.getFeatures().getLeftRightOrder(leftVLineIndex, rightVLineIndex);
 
-				PenSegment leftVLineSegment = leftRightVLineSegments[0];
-				PenSegment rightVLineSegment = leftRightVLineSegments[1];				
+				int leftVLineSegment = leftRightVLineSegments[0];
+				int rightVLineSegment = leftRightVLineSegments[1];				
 				// Get x,y of the top of the left VLINE
-				float coords[] = getTopBottomCoordsOfSegment(leftVLineSegment);
+				float coords[] = pChar.getFeatures().getTopBottomCoords(leftVLineSegment);
 				float leftVLineTopX = coords[0]; // x-coord of top of the left VLINE
 				float leftVLineTopY = coords[1]; // y-coord of top of the left VLINE	
 
-				coords = getTopBottomCoordsOfSegment(rightVLineSegment);
+				coords = pChar.getFeatures().getTopBottomCoords(rightVLineSegment);
 				float rightVLineTopX = coords[0]; // x-coord of top of the right VLINE
 				float rightVLineTopY = coords[1]; // y-coord of top of the right VLINE	
 
 				// Get x,y of the top and bottom of BSLASH
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(bSlashIndex);
 				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
 				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
 				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke
@@ -1792,7 +1763,7 @@ public class PenCharacterEn extends PenCharacter {
 				double bSlashGapThreshold = 0.25 * bSlashHeight;
 
 				// Get x,y of the top and bottom of FSLASH
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(fSlashIndex);
 				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
 				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
 				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke
@@ -1805,7 +1776,7 @@ public class PenCharacterEn extends PenCharacter {
 				// iii. Gap between the top of the right HLINE and the top of the FSLASH (right top of 'M')
 				matchedP =
 					(PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, leftVLineTopX, leftVLineTopY) < bSlashGapThreshold) &&
-					gapCheckForVShape(pChar.penSegments.elementAt(fSlashIndex), pChar.penSegments.elementAt(bSlashIndex)) &&					
+					SegmentGeometry.isVShape(pChar.getFeatures(), fSlashIndex, bSlashIndex) &&					
 					(PenUtil.distanceBetween2Points(fSlashTopX, fSlashTopY, rightVLineTopX, rightVLineTopY) < fSlashGapThreshold);
 			}
 		}
@@ -1815,7 +1786,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'N' has a BSLASH ('\') between two VLINE's ('|')
 	private static boolean checkForCapitalN(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int leftVLineIndex = -1;
@@ -1823,7 +1794,7 @@ public class PenCharacterEn extends PenCharacter {
 			int rightVLineIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'N' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					if (leftVLineIndex < 0)
 						leftVLineIndex = i;
@@ -1842,24 +1813,23 @@ public class PenCharacterEn extends PenCharacter {
 			// leftVLineIndex, bSlashIndex, and rightVLineIndex are all not negative
 			if ((leftVLineIndex >= 0) && (bSlashIndex >= 0) && (rightVLineIndex >= 0)) {
 				// Get the left and right VLINE strokes of 'N'
-				PenSegment leftRightVLineSegments[] = 
-					order2PenSegmentsIntoLeftRight(pChar.penSegments.elementAt(leftVLineIndex),
-							pChar.penSegments.elementAt(rightVLineIndex));
+				int leftRightVLineSegments[] = 
+					pChar.getFeatures().getLeftRightOrder(leftVLineIndex, rightVLineIndex);
 
-				PenSegment leftVLineSegment = leftRightVLineSegments[0];
-				PenSegment rightVLineSegment = leftRightVLineSegments[1];				
+				int leftVLineSegment = leftRightVLineSegments[0];
+				int rightVLineSegment = leftRightVLineSegments[1];				
 				// Get x,y of the top of the left VLINE
-				float coords[] = getTopBottomCoordsOfSegment(leftVLineSegment);
+				float coords[] = pChar.getFeatures().getTopBottomCoords(leftVLineSegment);
 				float leftVLineTopX = coords[0]; // x-coord of top of the left VLINE
 				float leftVLineTopY = coords[1]; // y-coord of top of the left VLINE	
 
 				// Get x,y of the bottom of the right VLINE
-				coords = getTopBottomCoordsOfSegment(rightVLineSegment);
+				coords = pChar.getFeatures().getTopBottomCoords(rightVLineSegment);
 				float rightVLineBottomX = coords[2]; // x-coord of bottom of the right VLINE
 				float rightVLineBottomY = coords[3]; // y-coord of bottom of the right VLINE
 
 				// Get x,y of the top and bottom of BSLASH
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(bSlashIndex);
 				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
 				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
 				float bSlashBottomX = coords[2]; // x-coord of bottom end of the BSLASH stroke
@@ -1885,7 +1855,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'Q' has a CIRCLE and a BSLASH cutting the circle at the bottom right
 	private static boolean checkForCapitalQ(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int circleIndex = -1;
@@ -1893,7 +1863,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'Q' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.CIRCLE_CHAR:
 					circleIndex = i;
 					break;
@@ -1909,15 +1879,15 @@ public class PenCharacterEn extends PenCharacter {
 			// circleIndex and vLineIndex are both not negative
 			if ((circleIndex >= 0) && (bSlashIndex >= 0)) {
 				// Get the x,y of the top and bottom of BC
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(bSlashIndex);
 				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
 				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
 
 				// Get average x,y of the CIRCLE stroke
-				float hLineAvgX = pChar.penSegments.elementAt(circleIndex).avgX; // average of x-coord (mid-point) of the CIRCLE stroke
-				float hLineAvgY = pChar.penSegments.elementAt(circleIndex).avgY; // average of y-coord (mid-point) of the CIRCLE stroke
+				float hLineAvgX = pChar.segmentStore.avgX[circleIndex]; // average of x-coord (mid-point) of the CIRCLE stroke
+				float hLineAvgY = pChar.segmentStore.avgY[circleIndex]; // average of y-coord (mid-point) of the CIRCLE stroke
 
-				float circleHeight = pChar.penSegments.elementAt(circleIndex).boundingRectHeight;
+				float circleHeight = pChar.segmentStore.getHeight(circleIndex);
 
 				// Check to see if the following gaps are less their respective thresholds
 				// i.   The gap between the top end BSLASH and the mid x,y coords of CIRCLE
@@ -1934,7 +1904,7 @@ public class PenCharacterEn extends PenCharacter {
 	// at around the mid-point and the bottom.
 	private static boolean checkForCapitalR(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int bCIndex = -1;
@@ -1943,7 +1913,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'R' has only three pen stroke characters.
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.BC_CHAR:
 					bCIndex = i;
 					break;
@@ -1962,19 +1932,19 @@ public class PenCharacterEn extends PenCharacter {
 			// bCIndex, bSlashIndex and vLineIndex are both not negative.
 			if ((bCIndex >= 0) && (bSlashIndex >= 0) && (vLineIndex >= 0)) {
 				// Get x,y coords of the BC stroke
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bCIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(bCIndex);
 				float bCTopX = coords[0]; // x-coord of top end of the BC stroke
 				float bCTopY = coords[1]; // y-coord of top end of the BC stroke
 				float bCBottomX = coords[2]; // x-coord of bottom end of the BC stroke
 				float bCBottomY = coords[3]; // y-coord of bottom end of the BC stroke
 
 				// Get x,y coords of the BSLASH stroke
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(bSlashIndex);
 				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
 				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -2001,7 +1971,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'T' has an HLINE ('-') at the top of a VLINE ('|')
 	private static boolean checkForCapitalT(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int topHLineIndex = -1;
@@ -2009,7 +1979,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'T' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					topHLineIndex = i;
 					break;
@@ -2025,15 +1995,15 @@ public class PenCharacterEn extends PenCharacter {
 			// topHLineIndex and vLineIndex are both not negative
 			if ((topHLineIndex >= 0) && (vLineIndex >= 0)) {
 				// Assume the HLINE found to be top HLINE of the 'T'
-				float topHLineStartX = pChar.penSegments.elementAt(topHLineIndex).posStart[0]; // x-coord of top end of the HLINE stroke
-				float topHLineStartY = pChar.penSegments.elementAt(topHLineIndex).posStart[1]; // y-coord of top end of the HLINE stroke
-				float topHLineEndX = pChar.penSegments.elementAt(topHLineIndex).posEnd[0]; // x-coord of bottom end of the HLINE stroke
-				float topHLineEndY = pChar.penSegments.elementAt(topHLineIndex).posEnd[1]; // y-coord of bottom end of the HLINE stroke
+				float topHLineStartX = pChar.segmentStore.startX[topHLineIndex]; // x-coord of top end of the HLINE stroke
+				float topHLineStartY = pChar.segmentStore.startY[topHLineIndex]; // y-coord of top end of the HLINE stroke
+				float topHLineEndX = pChar.segmentStore.endX[topHLineIndex]; // x-coord of bottom end of the HLINE stroke
+				float topHLineEndY = pChar.segmentStore.endY[topHLineIndex]; // y-coord of bottom end of the HLINE stroke
 				float topHLineMidX = (topHLineStartX + topHLineEndX)/2;
 				float topHLineMidY = (topHLineStartY + topHLineEndY)/2;
 
 				// Get x,y of top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));		
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);		
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
@@ -2058,7 +2028,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'Y' is made up of a back slash ('\'), a forward slash ('/') and a vertical line ('|')
 	private static boolean checkForCapitalY(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int fSlashIndex = -1;
@@ -2066,7 +2036,7 @@ public class PenCharacterEn extends PenCharacter {
 			int vLineIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'Y' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.FSLASH_CHAR:
 					fSlashIndex = i;
 					break;
@@ -2086,18 +2056,18 @@ public class PenCharacterEn extends PenCharacter {
 			if ((fSlashIndex >= 0) && (bSlashIndex >= 0) && (vLineIndex >= 0)) {
 
 				// Get the bottom coords of FSLASH and BSLASH
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));		
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fSlashIndex);		
 				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
 				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke
 
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));		
+				coords = pChar.getFeatures().getTopBottomCoords(bSlashIndex);		
 				float bSlashBottomX = coords[2]; // x-coord of bottom end of the BSLASH stroke
 				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke
 
 				float avgSlashBottomX = (fSlashBottomX + bSlashBottomX)/2;
 				float avgSlashBottomY = (fSlashBottomY + bSlashBottomY)/2;
 
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float hLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float hLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float hLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
@@ -2107,7 +2077,7 @@ public class PenCharacterEn extends PenCharacter {
 				// between their tops and the bottom of FSLASH and BSLASH is less than half the HLINE height from the
 				// top of HLINE
 				matchedP = 
-					(gapCheckForVShape(pChar.penSegments.elementAt(fSlashIndex), pChar.penSegments.elementAt(bSlashIndex))) &&
+					(SegmentGeometry.isVShape(pChar.getFeatures(), fSlashIndex, bSlashIndex)) &&
 					(PenUtil.distanceBetween2Points(avgSlashBottomX, avgSlashBottomY, hLineTopX, hLineTopY) < .5 * hLineHeight);
 
 			}
@@ -2126,7 +2096,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'a' has a FC and VLINE on the right joining the VLINE almost at the top and bottom
 	private static boolean checkForSmallA(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			// Indices listed in writing order, i.e., FC first and then VLINE (both strokes should be written top to bottom)
@@ -2135,7 +2105,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'a' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.FC_CHAR:
 					fCIndex = i;
 					break;
@@ -2151,14 +2121,14 @@ public class PenCharacterEn extends PenCharacter {
 			// fCIndex and vLineIndex are both not negative
 			if ((fCIndex >= 0) && (vLineIndex >= 0)) {
 				// Get the x,y of the top and bottom of FC
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fCIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fCIndex);
 				float fCTopX = coords[0]; // x-coord of top end of the FC stroke
 				float fCTopY = coords[1]; // y-coord of top end of the FC stroke
 				float fCBottomX = coords[2]; // x-coord of bottom end of the FC stroke
 				float fCBottomY = coords[3]; // y-coord of bottom end of the FC stroke
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -2181,7 +2151,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'b' has a VLINE and a BC on the right joining the VLINE at the middle and bottom
 	private static boolean checkForSmallB(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			// Indices listed in writing order, i.e., VLINE first and then BC (both strokes should be written top to bottom)
@@ -2191,7 +2161,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'b' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					vLineIndex = i;
 					break;
@@ -2208,7 +2178,7 @@ public class PenCharacterEn extends PenCharacter {
 			if ((bCIndex >= 0) && (vLineIndex >= 0)) {
 
 				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -2217,7 +2187,7 @@ public class PenCharacterEn extends PenCharacter {
 				float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coordinate of the mid point of the VLINE stroke
 
 				// Get the x,y of the top and bottom of BC
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bCIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(bCIndex);
 				float bCTopX = coords[0]; // x-coord of top end of the BC stroke
 				float bCTopY = coords[1]; // y-coord of top end of the BC stroke
 				float bCBottomX = coords[2]; // x-coord of bottom end of the BC stroke
@@ -2244,7 +2214,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'd' has a FC and VLINE on the right joining the VLINE at the middle and bottom
 	private static boolean checkForSmallD(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			// Indices listed in writing order, i.e., FC first and then VLINE (both strokes should be written top to bottom)
@@ -2253,7 +2223,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'd' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.FC_CHAR:
 					fCIndex = i;
 					break;
@@ -2269,14 +2239,14 @@ public class PenCharacterEn extends PenCharacter {
 			// fCIndex and vLineIndex are both not negative
 			if ((fCIndex >= 0) && (vLineIndex >= 0)) {
 				// Get the x,y of the top and bottom of FC
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fCIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fCIndex);
 				float fCTopX = coords[0]; // x-coord of top end of the FC stroke
 				float fCTopY = coords[1]; // y-coord of top end of the FC stroke
 				float fCBottomX = coords[2]; // x-coord of bottom end of the FC stroke
 				float fCBottomY = coords[3]; // y-coord of bottom end of the FC stroke
 
 				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
@@ -2302,7 +2272,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'i' has a VLINE and a DOT above it
 	private static boolean checkForSmallI(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			// Indices listed in writing order, i.e., VLINE (top down)and then a DOT above the VLINE
@@ -2311,7 +2281,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'i' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					vLineIndex = i;
 					break;
@@ -2327,7 +2297,7 @@ public class PenCharacterEn extends PenCharacter {
 			// vLineIndex and dotIndex are both not negative
 			if ((vLineIndex >= 0) && (dotIndex >= 0)) {
 				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke	
@@ -2337,7 +2307,7 @@ public class PenCharacterEn extends PenCharacter {
 				double horizontalGapThreshold = 0.1 * vLineHeight;
 
 				// Get the x,y of the top and bottom of DOT
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(dotIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(dotIndex);
 				float dotBottomX = coords[2]; // x-coord of bottom end of the DOT stroke
 				float dotBottomY = coords[3]; // y-coord of bottom end of the DOT stroke
 
@@ -2373,7 +2343,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 't' has a VLINE and a HLINE cutting the VLINE somewhere between .2 and .4 of the VLINE's height from the top of VLINE
 	private static boolean checkForSmallT(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int vLineIndex = -1;
@@ -2381,7 +2351,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 't' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					vLineIndex = i;
 					break;
@@ -2397,7 +2367,7 @@ public class PenCharacterEn extends PenCharacter {
 			// vLineIndex and hLineIndex are both not negative
 			if ((vLineIndex >= 0) && (hLineIndex >= 0)) {
 				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
@@ -2406,7 +2376,7 @@ public class PenCharacterEn extends PenCharacter {
 				double minDistFromTop = 0.2 * vLineHeight;
 				double maxDistFromTop = 0.5 * vLineHeight;
 
-				coords = getLeftRightCoordsOfSegment(pChar.penSegments.elementAt(hLineIndex));
+				coords = pChar.getFeatures().getLeftRightCoords(hLineIndex);
 				float hLineLeftX = coords[0]; // x-coord of left point of the HLINE stroke
 				float hLineLeftY = coords[1]; // y-coord of left point of the HLINE stroke
 				float hLineRightX = coords[2]; // x-coord of right point of the HLINE stroke
@@ -2435,7 +2405,7 @@ public class PenCharacterEn extends PenCharacter {
 	// 'y' has a BSLASH and a FSLASH on the right with the bottom of the BSLASH touching the middle of the FSLASH
 	private static boolean checkForSmallY(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int bSlashIndex = -1; // First stroke
@@ -2443,7 +2413,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'y' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.BSLASH_CHAR:
 					bSlashIndex = i;
 					break;
@@ -2458,11 +2428,11 @@ public class PenCharacterEn extends PenCharacter {
 			// fSlashIndex and bSlashIndex are both not negative
 			if ((bSlashIndex >= 0) && (fSlashIndex >= 0)) {
 
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bSlashIndex));		
+				float coords[] = pChar.getFeatures().getTopBottomCoords(bSlashIndex);		
 				float bSlashBottomX = coords[2]; // x-coord of bottom end of the BSLASH stroke
 				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke
 
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));		
+				coords = pChar.getFeatures().getTopBottomCoords(fSlashIndex);		
 				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
 				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
 				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
@@ -2494,7 +2464,7 @@ public class PenCharacterEn extends PenCharacter {
 	// '!' has a VLINE and a DOT below it
 	private static boolean checkForExclamationMark(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			// Indices listed in writing order, i.e., VLINE (top down)and then a DOT above the VLINE
@@ -2503,7 +2473,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// '!' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.VLINE_CHAR:
 					vLineIndex = i;
 					break;
@@ -2519,7 +2489,7 @@ public class PenCharacterEn extends PenCharacter {
 			// vLineIndex and dotIndex are both not negative
 			if ((vLineIndex >= 0) && (dotIndex >= 0)) {
 				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
 				float vLineBottomX = coords[2]; // x-coord of top end of the VLINE stroke
 				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke	
@@ -2529,7 +2499,7 @@ public class PenCharacterEn extends PenCharacter {
 				double horizontalGapThreshold = 0.1 * vLineHeight;
 
 				// Get the x,y of the top and bottom of DOT
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(dotIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(dotIndex);
 				float dotTopX = coords[0]; // x-coord of top end of the DOT stroke
 				float dotTopY = coords[1]; // y-coord of top end of the DOT stroke
 
@@ -2550,7 +2520,7 @@ public class PenCharacterEn extends PenCharacter {
 	//  The pairs of FSLASH's and HLINE's cross each other.
 	private static boolean checkForHashSymbol(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 4) {
 			int hLine1Index = -1;
@@ -2559,7 +2529,7 @@ public class PenCharacterEn extends PenCharacter {
 			int fSlash2Index = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// '#' has only four pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					if (hLine1Index < 0)
 						hLine1Index = i;
@@ -2581,46 +2551,40 @@ public class PenCharacterEn extends PenCharacter {
 			// hLine1Index, hLine2Index, fSlash1Index, and fSlash2Index are all not negative
 			if ((hLine1Index >= 0) && (hLine2Index >= 0) && (fSlash1Index >= 0) && (fSlash2Index >= 0)) {
 				// Get the top and bottom HLINE strokes of '#'
-				PenSegment topBottomHLineSegments[] = 
-					order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(hLine1Index),
-							pChar.penSegments.elementAt(hLine2Index));
+				int topBottomHLineSegments[] = 
+					pChar.getFeatures().getTopBottomOrder(hLine1Index, hLine2Index);
 
 				// Get the x,y coordinates at the one-third point of the top HLINE stroke
-				PenSegment topHLineSegment = topBottomHLineSegments[0];
-				float coords[] = getLeftRightCoordsOfSegment(topHLineSegment);
-				float coordsOf1stAnd2ndThirdMarks[] = getPointsAt1stAnd2ndThirdMarks(coords[0], coords[1], coords[2], coords[3]);
+				int topHLineSegment = topBottomHLineSegments[0];
+				float coordsOf1stAnd2ndThirdMarks[] = pChar.getFeatures().getLeftRightThirds(topHLineSegment);
 				float topHLine1st3rdX = coordsOf1stAnd2ndThirdMarks[0];
 				float topHLine1st3rdY = coordsOf1stAnd2ndThirdMarks[1];
 				float topHLine2nd3rdX = coordsOf1stAnd2ndThirdMarks[2];
 				float topHLine2nd3rdY = coordsOf1stAnd2ndThirdMarks[3];
 
 				// Get the x,y coordinates at the two-third point of the bottom HLINE stroke
-				PenSegment bottomHLineSegment = topBottomHLineSegments[1];
-				coords = getLeftRightCoordsOfSegment(bottomHLineSegment);
-				coordsOf1stAnd2ndThirdMarks = getPointsAt1stAnd2ndThirdMarks(coords[0], coords[1], coords[2], coords[3]);
+				int bottomHLineSegment = topBottomHLineSegments[1];
+				coordsOf1stAnd2ndThirdMarks = pChar.getFeatures().getLeftRightThirds(bottomHLineSegment);
 				float bottomHLine1st3rdX = coordsOf1stAnd2ndThirdMarks[0];
 				float bottomHLine1st3rdY = coordsOf1stAnd2ndThirdMarks[1];
 				float bottomHLine2nd3rdX = coordsOf1stAnd2ndThirdMarks[2];
 				float bottomHLine2nd3rdY = coordsOf1stAnd2ndThirdMarks[3];
 
 				// Get the left and right FSLASH strokes of '#'
-				PenSegment leftRightFSlashSegments[] = 
-					order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(fSlash1Index),
-							pChar.penSegments.elementAt(fSlash2Index));
+				int leftRightFSlashSegments[] = 
+					pChar.getFeatures().getTopBottomOrder(fSlash1Index, fSlash2Index);
 
 				// Get the x,y coordinates at the one-third point of the top FSLASH stroke
-				PenSegment leftFSlashSegment = leftRightFSlashSegments[0];
-				coords = getTopBottomCoordsOfSegment(leftFSlashSegment);
-				coordsOf1stAnd2ndThirdMarks = getPointsAt1stAnd2ndThirdMarks(coords[0], coords[1], coords[2], coords[3]);
+				int leftFSlashSegment = leftRightFSlashSegments[0];
+				coordsOf1stAnd2ndThirdMarks = pChar.getFeatures().getTopBottomThirds(leftFSlashSegment);
 				float leftFSlash1st3rdX = coordsOf1stAnd2ndThirdMarks[0];
 				float leftFSlash1st3rdY = coordsOf1stAnd2ndThirdMarks[1];
 				float leftFSlash2nd3rdX = coordsOf1stAnd2ndThirdMarks[2];
 				float leftFSlash2nd3rdY = coordsOf1stAnd2ndThirdMarks[3];
 
 				// Get the x,y coordinates at the one-third point of the top FSLASH stroke
-				PenSegment rightFSlashSegment = leftRightFSlashSegments[1];
-				coords = getTopBottomCoordsOfSegment(rightFSlashSegment);
-				coordsOf1stAnd2ndThirdMarks = getPointsAt1stAnd2ndThirdMarks(coords[0], coords[1], coords[2], coords[3]);
+				int rightFSlashSegment = leftRightFSlashSegments[1];
+				coordsOf1stAnd2ndThirdMarks = pChar.getFeatures().getTopBottomThirds(rightFSlashSegment);
 				float rightFSlash1st3rdX = coordsOf1stAnd2ndThirdMarks[0];
 				float rightFSlash1st3rdY = coordsOf1stAnd2ndThirdMarks[1];
 				float rightFSlash2nd3rdX = coordsOf1stAnd2ndThirdMarks[2];
@@ -2653,7 +2617,7 @@ public class PenCharacterEn extends PenCharacter {
 	// '%' CIRCLE ('o') at the top and bottom of a FSLASH ('/')
 	private static boolean checkForPercentSign(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int topCircleIndex = -1;
@@ -2661,7 +2625,7 @@ public class PenCharacterEn extends PenCharacter {
 			int bottomCircleIndex = -1;
 			for (int i = 0; i < numOfSegments; i++) {
 				// '%' has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.CIRCLE_CHAR:
 					if (topCircleIndex < 0)
 						topCircleIndex = i;
@@ -2680,20 +2644,19 @@ public class PenCharacterEn extends PenCharacter {
 			// topCircleIndex, vLineIndex, and bottomCircleIndex are all not negative
 			if ((topCircleIndex >= 0) && (fSlashIndex >= 0) && (bottomCircleIndex >= 0)) {
 				// Get the top and bottom CIRCLE strokes of '%'
-				PenSegment topBottomCircleSegments[] = 
-					order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(topCircleIndex),
-							pChar.penSegments.elementAt(bottomCircleIndex));
+				int topBottomCircleSegments[] = 
+					pChar.getFeatures().getTopBottomOrder(topCircleIndex, bottomCircleIndex);
 
 				// Get x, y coords of the middle of the top CIRCLE
-				float topCircleMidX = topBottomCircleSegments[0].avgX; // x-coord of mid point of the top CIRCLE;
-				float topCircleMidY = topBottomCircleSegments[0].avgY; // y-coord of mid point of the top CIRCLE;
+				float topCircleMidX = pChar.segmentStore.avgX[topBottomCircleSegments[0]]; // x-coord of mid point of the top CIRCLE;
+				float topCircleMidY = pChar.segmentStore.avgY[topBottomCircleSegments[0]]; // y-coord of mid point of the top CIRCLE;
 
 				// Get x, y coords of the middle of the bottom CIRCLE
-				float bottomCircleMidX = topBottomCircleSegments[1].avgX; // x-coord of mid point of the bottom CIRCLE;
-				float bottomCircleMidY = topBottomCircleSegments[1].avgY; // y-coord of mid point of the bottom CIRCLE;
+				float bottomCircleMidX = pChar.segmentStore.avgX[topBottomCircleSegments[1]]; // x-coord of mid point of the bottom CIRCLE;
+				float bottomCircleMidY = pChar.segmentStore.avgY[topBottomCircleSegments[1]]; // y-coord of mid point of the bottom CIRCLE;
 
 				// Get x,y of top and bottom of FSLASH
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(fSlashIndex));
+				float coords[] = pChar.getFeatures().getTopBottomCoords(fSlashIndex);
 				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
 				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
 				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
@@ -2721,8 +2684,8 @@ public class PenCharacterEn extends PenCharacter {
 		boolean matchedP = false;
 		// In checkForCShape, a test is done to see if the C shape is curved enough.  If so it is a "c" or "C".
 		// If not it is assumed to be a left parenthesis after confirming that the it is a FC_CHAR stroke primitive.
-		if (pChar.penSegments.size() == 1) // Left prenthesis has only one stroke
-			matchedP = (pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.FC_CHAR);
+		if (pChar.segmentStore.numOfSegments == 1) // Left prenthesis has only one stroke
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.FC_CHAR);
 		
 		return matchedP;
 	} // checkForLeftParenthesis()
@@ -2732,10 +2695,10 @@ public class PenCharacterEn extends PenCharacter {
 	private static char checkForRightParenthesisOrComma(PenCharacter pChar) {
 		char c = '\0';
 
-		if (pChar.penSegments.size() == 1) // ')' or ',' has only one stroke
-			if (pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.BC_CHAR) {
+		if (pChar.segmentStore.numOfSegments == 1) // ')' or ',' has only one stroke
+			if (pChar.segmentStore.primitives[0] == PenSegment.BC_CHAR) {
 				// Check to see the BC is no more than one third the height of the screen from the bottom of the screen
-				if (pChar.penSegments.elementAt(0).avgY > Skiggle.sDefaultWritePadHeight * (2.0/3))
+				if (pChar.segmentStore.avgY[0] > Skiggle.sDefaultWritePadHeight * (2.0/3))
 					c = ',';   // If so then it is a comma ','
 				else c = ')';  // otherwise it is a right parenthesis ')'
 			}
@@ -2745,61 +2708,6 @@ public class PenCharacterEn extends PenCharacter {
 
 	// Check for  '*'
 
-	// Check for  '+'
-	private static boolean checkForPlusSign(PenCharacter pChar) {
-		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
-
-
-		if (numOfSegments == 2) {
-			int hLineIndex = -1; // first stroke E to W
-			int vLineIndex = -1; // second stroke N to S
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// '+' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
-			// Check to make sure that the two component strokes for '+' are there, i.e.,
-			// vLineIndex and hLineIndex are both not negative
-			if ((hLineIndex >= 0) && (vLineIndex >= 0)) {
-				float coords[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(hLineIndex));		
-				float hLineTopX = coords[0]; // x-coord of top end of the HLINE stroke
-				float hLineTopY = coords[1]; // y-coord of top end of the HLINE stroke
-				float hLineBottomX = coords[2]; // x-coord of bottom end of the HLINE stroke
-				float hLineBottomY = coords[3]; // y-coord of bottom end of the HLINE stroke
-				float hLineAvgX = (hLineTopX + hLineBottomX)/2; // average of x-coord (mid-point) of HLINE stroke
-				float hLineAvgY = (hLineTopY + hLineBottomY)/2; // average of y-coord (mid-point) of HLINE stroke
-
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));		
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLLINE stroke
-				float vLineAvgX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of VLINE stroke
-				float vLineAvgY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of VLINE stroke
-
-				float topGap = PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, hLineTopX, hLineTopY);
-				float bottomGap = PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, hLineBottomX, hLineBottomY);
-				float midGap = PenUtil.distanceBetween2Points(vLineAvgX, vLineAvgY, hLineAvgX, hLineAvgY);
-				float maxGap = Math.max(topGap, bottomGap);
-
-				// Check to make sure HLINE and VLINE cross sufficiently to form the '+'
-				matchedP = (midGap < (.25 * maxGap)); // gap between the mid points of HLINE and VLINE must be small enough
-			}
-		}
-		return matchedP;
-	} // End of checkForPlusSign()
-
-
 	// Check for ',' is done in the same check for ')'
 
 	/**
@@ -2810,10 +2718,10 @@ public class PenCharacterEn extends PenCharacter {
 	private static char checkForDashOrUnderscore(PenCharacter pChar) {
 		char c = '\0';
 
-		if (pChar.penSegments.size() == 1) // '-' or '_' has only one stroke
-			if (true /* pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.HLINE_CHAR */) {
+		if (pChar.segmentStore.numOfSegments == 1) // '-' or '_' has only one stroke
+			if (true /* pChar.segmentStore.primitives[0] == PenSegment.HLINE_CHAR */) {
 				// Check to see the HLINE is no more than one third the height of the screen from the bottom of the screen
-				if (pChar.penSegments.elementAt(0).avgY > Skiggle.sDefaultWritePadHeight * (2.0/3))
+				if (pChar.segmentStore.avgY[0] > Skiggle.sDefaultWritePadHeight * (2.0/3))
 					c = '_';   // If so then it is an underscore '_'
 				else c = '-';  // otherwise it is a dash '-'
 			}
@@ -2824,8 +2732,8 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for  '.'
 	private static boolean checkForPeriod(PenCharacter pChar) {
 		boolean matchedP = false;
-		if (pChar.penSegments.size() == 1) // Back slash has only one stroke
-			matchedP = (pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.DOT_CHAR);
+		if (pChar.segmentStore.numOfSegments == 1) // Back slash has only one stroke
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.DOT_CHAR);
 
 		return matchedP;
 	} // checkForPeriod()
@@ -2833,8 +2741,8 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for  '/'
 	private static boolean checkForForwardSlash(PenCharacter pChar) {
 		boolean matchedP = false;
-		if (pChar.penSegments.size() == 1) // Forward slash has only one stroke
-			matchedP = (pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.FSLASH_CHAR);
+		if (pChar.segmentStore.numOfSegments == 1) // Forward slash has only one stroke
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.FSLASH_CHAR);
 
 		return matchedP;
 	} // checkForForwardSlash()
@@ -2843,7 +2751,7 @@ public class PenCharacterEn extends PenCharacter {
 	// ':' has a two DOT's, one on top of the other
 	private static boolean checkForColon(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int dot1Index = -1;
@@ -2851,7 +2759,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// ':' has only two pen stroke characters
-				if (pChar.penSegments.elementAt(i).penSegmentCharacter == PenSegment.DOT_CHAR)
+				if (pChar.segmentStore.primitives[i] == PenSegment.DOT_CHAR)
 					if (dot1Index < 0) dot1Index = i;
 					else dot2Index = i;
 			}
@@ -2859,12 +2767,12 @@ public class PenCharacterEn extends PenCharacter {
 			// Check to make sure that the two component strokes for ':' are there, i.e.,
 			// dot1Index and dot2Index are both not negative
 			if ((dot1Index >= 0) && (dot2Index >= 0)) {
-				PenSegment pSegments[] = order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(dot1Index), pChar.penSegments.elementAt(dot2Index));
+				int pSegments[] = pChar.getFeatures().getTopBottomOrder(dot1Index, dot2Index);
 				// Get x,y of the top DOT
-				float topDotX = pSegments[0].avgX; // x-coord of the top DOT
+				float topDotX = pChar.segmentStore.avgX[pSegments[0]]; // x-coord of the top DOT
 
 				// Get x,y of the bottom DOT
-				float bottomDotX = pSegments[0].avgX; // x-coord of the bottom DOT
+				float bottomDotX = pChar.segmentStore.avgX[pSegments[0]]; // x-coord of the bottom DOT
 
 				// Check to see if the DOT is below the dot1
 				matchedP = (Math.abs(topDotX - bottomDotX) < 20);
@@ -2878,7 +2786,7 @@ public class PenCharacterEn extends PenCharacter {
 	// ';' has a  DOT and a BC below it
 	private static boolean checkForSemiColon(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int dotIndex = -1;
@@ -2886,7 +2794,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// ';' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.DOT_CHAR:
 					dotIndex = i;
 					break;
@@ -2903,11 +2811,11 @@ public class PenCharacterEn extends PenCharacter {
 			if ((dotIndex >= 0) && (bCIndex >= 0)) {
 				// Get x,y of the top DOT
 
-				float dotX = pChar.penSegments.elementAt(dotIndex).avgX; // x-coord of the top DOT
-				//				float dotY = pChar.penSegments.elementAt(dotIndex).mAvgY; // y-coord of the top DOT
+				float dotX = pChar.segmentStore.avgX[dotIndex]; // x-coord of the top DOT
+				//				float dotY = pChar.penSegments.get(dotIndex).mAvgY; // y-coord of the top DOT
 
 				// Get x,y of the bottom DOT
-				float coord[] = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(bCIndex));
+				float coord[] = pChar.getFeatures().getTopBottomCoords(bCIndex);
 				float bCTopX = coord[0]; // x-coord of top end of BC
 				//				float bCTopY = coord[1]; // y-coord of the top end of BC
 
@@ -2923,7 +2831,7 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for the two strokes that form '<' or '>' and return either '<', '>' or NUL (Ascii value 0)
 	private static char checkForLessOrGreaterThanSign(PenCharacter pChar) {
 		char c = '\0';
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 
 		if (numOfSegments == 2) {
@@ -2931,7 +2839,7 @@ public class PenCharacterEn extends PenCharacter {
 			int fSlashIndex = -1; // second stroke NE to SW
 			for (int i = 0; i < numOfSegments; i++) {
 				// '>' has only two pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.BSLASH_CHAR:
 					bSlashIndex = i;
 					break;
@@ -2945,16 +2853,16 @@ public class PenCharacterEn extends PenCharacter {
 			// Check to make sure that the two component strokes for '<' or '>' are there, i.e.,
 			// fSlashIndex and bSlashIndex are both not negative
 			if ((bSlashIndex >= 0) && (fSlashIndex >= 0)) {
-				PenSegment pSegments[] = order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(bSlashIndex), pChar.penSegments.elementAt(fSlashIndex));
+				int pSegments[] = pChar.getFeatures().getTopBottomOrder(bSlashIndex, fSlashIndex);
 
 				// Get x,y of the top slash (could be an FSLASH or BSLASH)
-				float coords[] = getTopBottomCoordsOfSegment(pSegments[0]);
+				float coords[] = pChar.getFeatures().getTopBottomCoords(pSegments[0]);
 				float topSlashTopY = coords[1]; // y-coord of the top of the top slash
 				float topSlashBottomX = coords[2]; // x-coord of the bottom of the top slash
 				float topSlashBottomY = coords[3]; // y-coord of the bottom of the top slash
 
 				// Get x,y of the bottom slash (could be an FSLASH or BSLASH)
-				coords = getTopBottomCoordsOfSegment(pSegments[1]);
+				coords = pChar.getFeatures().getTopBottomCoords(pSegments[1]);
 				float bottomSlashTopX = coords[0]; // x-coord of the top of the bottom slash
 				float bottomSlashTopY = coords[1]; // y-coord of the top of the bottom slash
 				float bottomSlashBottomY = coords[3]; // y-coord of the bottom of the bottom slash
@@ -2963,7 +2871,7 @@ public class PenCharacterEn extends PenCharacter {
 
 				// Check to see the bottom of the top slash and the top of the bottom slash are closed enough
 				if (PenUtil.distanceBetween2Points(topSlashBottomX, topSlashBottomY, bottomSlashTopX, bottomSlashTopY) < .1 * strokesHeight)
-					if (pSegments[0].penSegmentCharacter == PenSegment.BSLASH_CHAR) // If the top slash is a BSLASH
+					if (pChar.segmentStore.primitives[pSegments[0]] == PenSegment.BSLASH_CHAR) // If the top slash is a BSLASH
 						c = '>';                                                  // then it is a '>'
 					else c = '<';                                                 // otherwise it is a '<'
 			}
@@ -2975,7 +2883,7 @@ public class PenCharacterEn extends PenCharacter {
 	// '=' has a two HLINE's, one on top of the other
 	private static boolean checkForEqualSign(PenCharacter pChar) {
 		boolean matchedP = false;
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 2) {
 			int hLine1Index = -1;
@@ -2983,7 +2891,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// ':' has only two pen stroke characters
-				if (pChar.penSegments.elementAt(i).penSegmentCharacter == PenSegment.HLINE_CHAR)
+				if (pChar.segmentStore.primitives[i] == PenSegment.HLINE_CHAR)
 					if (hLine1Index < 0) hLine1Index = i;
 					else hLine2Index = i;
 			}
@@ -2991,12 +2899,12 @@ public class PenCharacterEn extends PenCharacter {
 			// Check to make sure that the two component strokes for ':' are there, i.e.,
 			// hLine1Index and hLine2Index are both not negative
 			if ((hLine1Index >= 0) && (hLine2Index >= 0)) {
-				PenSegment pSegments[] = order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(hLine1Index), pChar.penSegments.elementAt(hLine2Index));
+				int pSegments[] = pChar.getFeatures().getTopBottomOrder(hLine1Index, hLine2Index);
 				// Get x,y of the top HLINE
-				float topHLineX = pSegments[0].avgX; // x-coord of the top HLINE
+				float topHLineX = pChar.segmentStore.avgX[pSegments[0]]; // x-coord of the top HLINE
 
 				// Get x,y of the bottom HLINE
-				float bottomHLineX = pSegments[0].avgX; // x-coord of the bottom HLINE
+				float bottomHLineX = pChar.segmentStore.avgX[pSegments[0]]; // x-coord of the bottom HLINE
 
 				// Check to see if the HLINE is below the hLine1
 				matchedP = (Math.abs(topHLineX - bottomHLineX) < 20);
@@ -3015,7 +2923,7 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for the two strokes that form 'I', '[' or ']' and return either '[', ']' or NUL (Ascii value 0)
 	private static char checkForCapitalIOrLeftOrRightSquareBracket(PenCharacter pChar) {
 		char c = '\0';
-		int numOfSegments = pChar.penSegments.size();
+		int numOfSegments = pChar.segmentStore.numOfSegments;
 
 		if (numOfSegments == 3) {
 			int topHLineIndex = -1; // top HLINE
@@ -3024,7 +2932,7 @@ public class PenCharacterEn extends PenCharacter {
 
 			for (int i = 0; i < numOfSegments; i++) {
 				// 'I', '[' or ']'has only three pen stroke characters
-				switch (pChar.penSegments.elementAt(i).penSegmentCharacter) {
+				switch (pChar.segmentStore.primitives[i]) {
 				case PenSegment.HLINE_CHAR:
 					if (topHLineIndex < 0)
 						topHLineIndex = i;
@@ -3043,11 +2951,10 @@ public class PenCharacterEn extends PenCharacter {
 			// topHLineIndex, vLineIndex, and bottomHLineIndex are all not negative
 			if ((topHLineIndex >= 0) && (vLineIndex >= 0) && (bottomHLineIndex >= 0)) {
 				// Get the top and bottom HLINE strokes of '[' or ']'
-				PenSegment topBottomHLineSegments[] = 
-					order2PenSegmentsIntoTopBottom(pChar.penSegments.elementAt(topHLineIndex),
-							pChar.penSegments.elementAt(bottomHLineIndex));
+				int topBottomHLineSegments[] = 
+					pChar.getFeatures().getTopBottomOrder(topHLineIndex, bottomHLineIndex);
 
-				float coords[] = getLeftRightCoordsOfSegment(topBottomHLineSegments[0]);
+				float coords[] = pChar.getFeatures().getLeftRightCoords(topBottomHLineSegments[0]);
 				float topHLineLeftX = coords[0]; // x-coord of the left point of the top HLINE
 				float topHLineLeftY = coords[1]; // y-coord of the left point of the top HLINE
 				float topHLineRightX = coords[2]; // x-coord of the right point of the top HLINE
@@ -3055,7 +2962,7 @@ public class PenCharacterEn extends PenCharacter {
 				float topHLineMidX = (topHLineLeftX + topHLineRightX)/2; // x-coord of the mid-point of the top HLINE
 				float topHLineMidY = (topHLineLeftY + topHLineRightY)/2; // y-coord of the mid-point of the top HLINE
 
-				coords = getLeftRightCoordsOfSegment(topBottomHLineSegments[1]);
+				coords = pChar.getFeatures().getLeftRightCoords(topBottomHLineSegments[1]);
 				float bottomHLineLeftX = coords[0]; // x-coord of the left point of the bottom HLINE
 				float bottomHLineLeftY = coords[1]; // y-coord of the left point of the bottom HLINE
 				float bottomHLineRightX = coords[2]; // x-coord of the right point of the bottom HLINE
@@ -3064,7 +2971,7 @@ public class PenCharacterEn extends PenCharacter {
 				float bottomHLineMidY = (bottomHLineLeftY + bottomHLineRightY)/2; // y-coord of the mid-point of the botom HLINE
 
 				// Get x,y of top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(pChar.penSegments.elementAt(vLineIndex));
+				coords = pChar.getFeatures().getTopBottomCoords(vLineIndex);
 
 				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
 				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
@@ -3096,8 +3003,8 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for  '\\'
 	private static boolean checkForBackSlash(PenCharacter pChar) {
 		boolean matchedP = false;
-		if (pChar.penSegments.size() == 1) // Back slash has only one stroke
-			matchedP = (pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.BSLASH_CHAR);
+		if (pChar.segmentStore.numOfSegments == 1) // Back slash has only one stroke
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.BSLASH_CHAR);
 
 		return matchedP;
 	} // checkForBackSlash()
@@ -3111,8 +3018,8 @@ public class PenCharacterEn extends PenCharacter {
 	// TODO: TO BE COMPLETED //
 	private static boolean checkForLeftCurlyBrace(PenCharacter pChar) {
 		boolean matchedP = false;
-//		if (pChar.penSegments.size() == 2) // Left curly brace has two strokes - two "c" stacked on top of one another
-//			matchedP = (pChar.penSegments.elementAt(0).mPenSegmentCharacter == PenSegment.VLINE_CHAR);
+//		if (pChar.segmentStore.numOfSegments == 2) // Left curly brace has two strokes - two "c" stacked on top of one another
+//			matchedP = (pChar.penSegments.get(0).mPenSegmentCharacter == PenSegment.VLINE_CHAR);
 
 		return matchedP;
 	} // checkForLeftCurlyBrace()
@@ -3120,8 +3027,8 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for  '|'
 	private static boolean checkForVerticalBar(PenCharacter pChar) {
 		boolean matchedP = false;
-		if (pChar.penSegments.size() == 1) // Vertical bar has only one stroke
-			matchedP = (pChar.penSegments.elementAt(0).penSegmentCharacter == PenSegment.VLINE_CHAR);
+		if (pChar.segmentStore.numOfSegments == 1) // Vertical bar has only one stroke
+			matchedP = (pChar.segmentStore.primitives[0] == PenSegment.VLINE_CHAR);
 
 		return matchedP;
 	} // checkForVerticalBar()
@@ -3129,6 +3036,93 @@ public class PenCharacterEn extends PenCharacter {
 	// Check for  '}'
 	// Check for  '~'
 
+	/**
+	 * Adds the geometric conditions the matchers below check, so that CharacterPrefilter can drop candidates before
+	 * their matchers run.  Only conditions that a matcher needs for it to match may be added.
+	 * @param prefilter - prefilter of the English tables
+	 */
+	public static void addPrefilterConditions(CharacterPrefilter prefilter) {
+		prefilter.addUnmatchedCharacters(UNMATCHED_CHARACTERS);
+
+		// Characters checked by the same method, which picks the character from the size or position of the strokes
+		String sharedMatchers[] = {"Cc", "Oo", "Pp", "Ss", "Uu", "Vv", "Ww", "Xx", "Zz", "Kk", "I[]", "),", "-_", "<>"};
+		for (int i = 0; i < sharedMatchers.length; i++) {
+			prefilter.addSharedMatcher(sharedMatchers[i]);
+		}
+
+		// checkForCShape(): the strokes are wider than .4 their height
+		prefilter.addCondition("Cc", CharacterPrefilter.WIDTH_TO_HEIGHT, .4, Double.POSITIVE_INFINITY);
+		// checkForCapitalT(): mid-point of the HLINE within .15 of the VLINE's height from its top
+		prefilter.addCondition("T", CharacterPrefilter.HLINE_ON_VLINE, -.15, .15);
+		// checkForSmallT(): mid-point of the HLINE less than .5 of the VLINE's height from its top
+		prefilter.addCondition("t", CharacterPrefilter.HLINE_ON_VLINE, -.5, .5);
+		// checkFor1(): mid-point of the bottom HLINE within .1 of the VLINE's height from its bottom
+		prefilter.addCondition("1", CharacterPrefilter.HLINE_ON_VLINE, .9, 1.1);
+		// checkFor9() and checkForSmallQ(): top of the VLINE above or below .4 of the writing area's height
+		prefilter.addCondition("9", CharacterPrefilter.VLINE_TOP, Double.NEGATIVE_INFINITY, .4);
+		prefilter.addCondition("q", CharacterPrefilter.VLINE_TOP, .4, Double.POSITIVE_INFINITY);
+	} // End of addPrefilterConditions() method
+
+	/**
+	 * Builds the templates of characters matched by their shape as a whole (see PointCloudEngine), those without
+	 * a check and those whose check misses common ways of writing them.  Points are in a 100 x 100 box, y down.
+	 */
+	private static PointCloudEngine newPointCloudEngine() {
+		PointCloudEngine templates = new PointCloudEngine();
+
+		// '0', narrower than 'O', counter-clockwise and clockwise from the top
+		templates.addTemplate('0', new float[][] {arc(50, 50, 30, 50, -90, -450)});
+		templates.addTemplate('0', new float[][] {arc(50, 50, 30, 50, -90, 270)});
+
+		// '2', a hook over a diagonal and a base
+		templates.addTemplate('2', new float[][] {join(arc(50, 30, 30, 25, -160, 30), new float[] {20, 100, 80, 100})});
+
+		// '6', down the left side from the top into a loop at the bottom
+		templates.addTemplate('6', new float[][] {join(arc(60, 70, 35, 65, -80, -180), arc(50, 75, 25, 25, 180, -180))});
+
+		// '8', from the top around the top loop to the left or right, then the bottom loop the other way
+		templates.addTemplate('8', new float[][] {eight(-1)});
+		templates.addTemplate('8', new float[][] {eight(1)});
+
+		return templates;
+	} // End of newPointCloudEngine() method
+
+	public static PointCloudEngine getPointCloudEngine() {
+		return sTemplates;
+	}
+
+	// Points of an arc of an ellipse from one angle to another, clockwise if the second is larger (as y is down)
+	private static float[] arc(float centerX, float centerY, float radiusX, float radiusY, float fromDegrees, float toDegrees) {
+		int numOfPoints = 24;
+		float points[] = new float[2 * numOfPoints];
+		for (int i = 0; i < numOfPoints; i++) {
+			double angle = Math.toRadians(fromDegrees + i * (toDegrees - fromDegrees)/(numOfPoints - 1));
+			points[2 * i] = centerX + radiusX * (float) Math.cos(angle);
+			points[2 * i + 1] = centerY + radiusY * (float) Math.sin(angle);
+		}
+		return points;
+	} // End of arc() method
+
+	// Points of a figure eight from the top, to the left first if direction is -1 and to the right if it is 1
+	private static float[] eight(int direction) {
+		int numOfPoints = 48;
+		float points[] = new float[2 * numOfPoints];
+		for (int i = 0; i < numOfPoints; i++) {
+			double t = 2 * Math.PI * i/(numOfPoints - 1);
+			points[2 * i] = 50 + direction * 25 * (float) Math.sin(2 * t);
+			points[2 * i + 1] = 50 - 50 * (float) Math.cos(t);
+		}
+		return points;
+	} // End of eight() method
+
+	// Points of one stroke made of several parts, one after the other
+	private static float[] join(float first[], float second[]) {
+		float points[] = new float[first.length + second.length];
+		System.arraycopy(first, 0, points, 0, first.length);
+		System.arraycopy(second, 0, points, first.length, second.length);
+		return points;
+	}
+
 	/**
 	 * Matches the pen strokes to the given English character c
 	 * @param c: character to match
@@ -3152,8 +3146,8 @@ public class PenCharacterEn extends PenCharacter {
 			if (foundP) penChar = '1';
 			break;
 		case '2':
-			//			foundP = checkFor2();
-			//			if (foundP) penChar = '2';
+			foundP = checkFor2(pChar);
+			if (foundP) penChar = '2';
 			break;
 		case '3':
 			foundP = checkFor3(pChar);
@@ -3254,7 +3248,7 @@ public class PenCharacterEn extends PenCharacter {
 			break;
 		case 'O': // Check for capital 'O' and small 'o'; same stroke but 'o' is smaller
 		case 'o':
-			foundP = checkForOShape(pChar);
+			foundP = SegmentGeometry.isOShape(pChar);
 			if (foundP) 
 				if (isSmallLetter(pChar)) penChar = 'o';
 				else penChar = 'O';
@@ -3355,6 +3349,8 @@ public class PenCharacterEn extends PenCharacter {
 			if (foundP) penChar = 'i';
 			break;
 		case 'j':
+			foundP = checkForSmallJ(pChar);
+			if (foundP) penChar = 'j';
 			break;
 			// Small 'k' is checked in the case for capital 'K'			
 		case 'l':
@@ -3402,6 +3398,8 @@ public class PenCharacterEn extends PenCharacter {
 			if (foundP) penChar = '#';
 			break;
 		case '$':
+			foundP = checkForDollarSign(pChar);
+			if (foundP) penChar = '$';
 			break;
 		case '%':
 			foundP = checkForPercentSign(pChar);
@@ -3427,7 +3425,7 @@ public class PenCharacterEn extends PenCharacter {
 		case '*':
 			break;
 		case '+':
-			foundP = checkForPlusSign(pChar);
+			foundP = SegmentGeometry.isPlusSign(pChar);
 			if (foundP) penChar = '+';
 			break;		
 			// ',' is checked in the case for ')'
@@ -3483,7 +3481,7 @@ public class PenCharacterEn extends PenCharacter {
 			break;
 			// '>' is checked in the case for '<'
 		case '^':
-			foundP = checkForCaret(pChar);
+			foundP = SegmentGeometry.isCaret(pChar);
 			if (foundP) penChar = '^';
 			break;
 			// '_' is checked in the case for '-'